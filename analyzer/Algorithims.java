@@ -1,23 +1,14 @@
 
 package analyzer;
 
-import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.TreeSet;
 
 import lotto.AbstractBonusBall;
 import lotto.Lottery;
-import util.ColdComparator;
-import util.HotComparator;
 
 /**
  * This is a module class, containing only all the methods needed to run the
@@ -26,6 +17,23 @@ import util.HotComparator;
  * @author Robert
  */
 public final class Algorithims {
+
+	/**
+	 * The number of random histories the significance of picks is found
+	 * from.
+	 */
+	public static final int SIMULATIONS = 100000;
+
+	/**
+	 * The seed of the random histories, fixed so the same picks always get
+	 * the same p-values.
+	 */
+	private static final long SEED = 1;
+
+	/**
+	 * Microsoft new line for the significance report.
+	 */
+	private static final String NEWLINE = "\r\n";
 	
 	/**
 	 * Private constructor to prevent making an Algorithms object.
@@ -36,18 +44,31 @@ public final class Algorithims {
 
 	public static String getRawData(final Lottery theGame,
 			final GetDraws theDraws) throws FileNotFoundException {
-		final Map<Integer, Percentage> count = getNumberCount(theDraws);
-		final Map<Percentage, Set<Integer>> hotNumbers = reverseMap(count,
-				new HotComparator());
+		return getRawData(DrawStatistics.compute(theGame, theDraws, true,
+				false));
+	}
+
+	/**
+	 * Lists every frequency of the number balls, hottest first, with the
+	 * numbers drawn that often.
+	 * 
+	 * @param theStatistics
+	 *            statistics computed with frequencies
+	 * @return the raw data for display
+	 */
+	public static String getRawData(final DrawStatistics theStatistics) {
+		final Ranking ranking = theStatistics.numbers();
 		final StringBuilder builder = new StringBuilder();
-		for (Percentage key : hotNumbers.keySet()) {
-			if (key.toString().length() < 18) {
-				builder.append(key.toString());
+		// hottest group first
+		for (int group = ranking.groupCount() - 1; group >= 0; group--) {
+			final String key = ranking.frequency(group).toString();
+			if (key.length() < 18) {
+				builder.append(key);
 			} else {
-				builder.append(key.toString().substring(0, 18));
+				builder.append(key.substring(0, 18));
 			}
 			builder.append('\n');
-			builder.append(hotNumbers.get(key));
+			builder.append(Arrays.toString(ranking.group(group)));
 			builder.append('\n');
 			builder.append('\n');
 		}
@@ -56,85 +77,24 @@ public final class Algorithims {
 
 	public static Set<Integer> getHotNumbers(final Lottery theGame,
 			final GetDraws theDraws) throws FileNotFoundException {
-		final Map<Integer, Percentage> count = getNumberCount(theDraws);
-		final Map<Percentage, Set<Integer>> hotNumbers = reverseMap(count,
-				new HotComparator());
-		return getFinalResult(hotNumbers, theGame.getNumberOfBalls(),
-				theGame.getRange());
-	}
-
-	private static Map<Integer, Percentage> getNumberCount(
-			final GetDraws theDraws) throws FileNotFoundException {
-		final Map<Integer, Percentage> count = new HashMap<Integer, Percentage>();
-		final List<Draw> draws = theDraws.getDraws();
-		for (final Draw draw : draws) {
-			final int[] numbers = draw.numbers();
-			// ensure the map has all the numbers
-			final int range = draw.numberRange();
-			for (int i = 1; i <= range; i++) {
-				if (!count.containsKey(i)) {
-					count.put(i, Percentage.ZERO);
-				}
-			}
-			// increase and decrease
-			for (int i = 1; i <= range; i++) {
-				if (arrayContains(numbers, i)) {
-					count.put(i, count.get(i).addOccurance());
-				} else {
-					count.put(i, count.get(i).addNonOccurance());
-				}
-			}
-		}
-		return count;
+		return getHotNumbers(theGame, DrawStatistics.compute(theGame,
+				theDraws, true, false));
 	}
 
-	private static Map<Integer, Percentage> getBonusBallCount(
-			final GetDraws theDraws) throws FileNotFoundException {
-		final Map<Integer, Percentage> count = new HashMap<Integer, Percentage>();
-		final List<Draw> draws = theDraws.getDraws();
-		for (final Draw draw : draws) {
-			final int bonusBall = draw.bonusBall();
-			// ensure the map has all the numbers
-			final int range = draw.bonusBallRange();
-			for (int i = 1; i <= range; i++) {
-				if (!count.containsKey(i)) {
-					count.put(i, Percentage.ZERO);
-				}
-			}
-			// increase and decrease
-			for (int i = 1; i <= range; i++) {
-				if (bonusBall == i) {
-					count.put(i, count.get(i).addOccurance());
-				} else {
-					count.put(i, count.get(i).addNonOccurance());
-				}
-			}
-		}
-		return count;
-	}
-
-	private static Map<Percentage, Set<Integer>> reverseMap(
-			final Map<Integer, Percentage> theOriginalMap,
-			final Comparator<Percentage> theCompare) {
-		final Map<Percentage, Set<Integer>> result = new TreeMap<Percentage, Set<Integer>>(
-				theCompare);
-		final Set<Percentage> originalValueSet = new HashSet<Percentage>(
-				theOriginalMap.values());
-		// go through a set of the original values
-		for (final Percentage originalValue : originalValueSet) {
-			final Set<Integer> newValueSet = new HashSet<Integer>();
-			// go through a set of the original keys
-			for (final int oldKey : theOriginalMap.keySet()) {
-				// if the original value equals the current value in the loop,
-				// keep it
-				if (theOriginalMap.get(oldKey).equals(originalValue)) {
-					newValueSet.add(oldKey);
-				}
-			}
-			// add to result
-			result.put(originalValue, newValueSet);
-		}
-		return result;
+	/**
+	 * This method gets the most frequently occurring numbers out of already
+	 * computed statistics.
+	 * 
+	 * @param theGame
+	 *            the game to be analyzed
+	 * @param theStatistics
+	 *            statistics computed with frequencies
+	 * @return an Integer Set of 'hot' numbers
+	 */
+	public static Set<Integer> getHotNumbers(final Lottery theGame,
+			final DrawStatistics theStatistics) {
+		return toSet(theStatistics.numbers().hottest(
+				theGame.getNumberOfBalls(), theGame.getRange()));
 	}
 
 	/**
@@ -150,45 +110,173 @@ public final class Algorithims {
 	 */
 	public static Set<Integer> getColdNumbers(final Lottery theGame,
 			final GetDraws theDraws) throws FileNotFoundException {
-		final Map<Integer, Percentage> count = getNumberCount(theDraws);
-		final Map<Percentage, Set<Integer>> coldNumbers = reverseMap(count,
-				new ColdComparator());
-		return getFinalResult(coldNumbers, theGame.getNumberOfBalls(),
-				theGame.getRange());
+		return getColdNumbers(theGame, DrawStatistics.compute(theGame,
+				theDraws, true, false));
 	}
 
 	/**
-	 * This method looks back several draws where, in a perfectly random system
-	 * one would expect those numbers to come up again in the next draw. This is
-	 * determined by dividing the range by the number of balls, and going back
-	 * and fetching numbers from that number of draws ago. This method does NOT
-	 * use the GetDraws object.
+	 * This method gets the least frequently occurring numbers out of already
+	 * computed statistics.
 	 * 
 	 * @param theGame
-	 *            the game to fetch for
+	 *            the game to be analyzed
+	 * @param theStatistics
+	 *            statistics computed with frequencies
+	 * @return an Integer Set of 'cold' numbers
+	 */
+	public static Set<Integer> getColdNumbers(final Lottery theGame,
+			final DrawStatistics theStatistics) {
+		return toSet(theStatistics.numbers().coldest(
+				theGame.getNumberOfBalls(), theGame.getRange()));
+	}
+
+	/**
+	 * Gets the numbers of the periodic draw out of already computed
+	 * statistics.
+	 * 
+	 * @param theStatistics
+	 *            statistics computed with the periodic draw
 	 * @return an Integer Set
-	 * @throws FileNotFoundException
-	 *             database file doesn't exist
 	 */
-	public static Set<Integer> getPeriodicNumbers(final Lottery theGame)
-			throws FileNotFoundException {
-		final Scanner in = new Scanner(new File(theGame.dataFile()));
-		final int weekFreq = theGame.getRange() / theGame.getNumberOfBalls();
+	public static Set<Integer> getPeriodicNumbers(
+			final DrawStatistics theStatistics) {
 		final Set<Integer> result = new HashSet<Integer>();
-		for (int i = 0; i < weekFreq - 1; i++) {
-			in.nextLine();
-		}
-		// consume date
-		in.next();
-		in.next();
-		in.next();
-		for (int i = 0; i < theGame.getNumberOfBalls(); i++) {
-			result.add(in.nextInt());
+		for (final int number : theStatistics.periodicNumbers()) {
+			result.add(number);
 		}
-		in.close();
 		return result;
 	}
 
+	/**
+	 * This method gets the numbers drawn most often when recent draws count
+	 * for more, each draw counting half as much once the half life has
+	 * passed.
+	 * 
+	 * @param theGame
+	 *            the game to be analyzed
+	 * @param theStatistics
+	 *            statistics computed with decayed frequencies
+	 * @return an Integer Set of recently 'hot' numbers
+	 */
+	public static Set<Integer> getDecayedNumbers(final Lottery theGame,
+			final DrawStatistics theStatistics) {
+		return toSet(theStatistics.decayed().hottest(
+				theGame.getNumberOfBalls(), theGame.getRange()));
+	}
+
+	/**
+	 * Gets the bonus balls drawn most often when recent draws count for more.
+	 * 
+	 * @param theGame
+	 *            the AbstractBonusBall game to analyze
+	 * @param theStatistics
+	 *            statistics computed with decayed frequencies
+	 * @return an Integer Set
+	 */
+	public static Set<Integer> getDecayedBonusBalls(
+			final AbstractBonusBall theGame, final DrawStatistics theStatistics) {
+		return toSet(theStatistics.decayed().hottestBonusBalls(
+				theGame.getNumberOfBonusBalls(), theGame.getBonusBallRange()));
+	}
+
+	/**
+	 * This method gets the numbers that are the most overdue, those whose
+	 * draws since they were last seen are the most times their mean gap
+	 * between appearances.
+	 * 
+	 * @param theGame
+	 *            the game to be analyzed
+	 * @param theStatistics
+	 *            statistics computed with gaps
+	 * @return an Integer Set of 'overdue' numbers
+	 */
+	public static Set<Integer> getOverdueNumbers(final Lottery theGame,
+			final DrawStatistics theStatistics) {
+		return toSet(theStatistics.gaps().overdue(theGame.getNumberOfBalls(),
+				theGame.getRange()));
+	}
+
+	/**
+	 * Gets the most overdue bonus balls.
+	 * 
+	 * @param theGame
+	 *            the AbstractBonusBall game to analyze
+	 * @param theStatistics
+	 *            statistics computed with gaps
+	 * @return an Integer Set
+	 */
+	public static Set<Integer> getOverdueBonusBalls(
+			final AbstractBonusBall theGame, final DrawStatistics theStatistics) {
+		return toSet(theStatistics.gaps().overdueBonusBalls(
+				theGame.getNumberOfBonusBalls(), theGame.getBonusBallRange()));
+	}
+
+	/**
+	 * This method gets the numbers of the pairs most often drawn together.
+	 * 
+	 * @param theGame
+	 *            the game to be analyzed
+	 * @param theStatistics
+	 *            statistics computed with pair counts
+	 * @return an Integer Set of numbers from 'hot' pairs
+	 */
+	public static Set<Integer> getHotPairNumbers(final Lottery theGame,
+			final DrawStatistics theStatistics) {
+		return toSet(theStatistics.pairs().hottest(
+				theGame.getNumberOfBalls(), theGame.getRange()));
+	}
+
+	/**
+	 * This method gets the numbers of the pairs least often drawn together.
+	 * 
+	 * @param theGame
+	 *            the game to be analyzed
+	 * @param theStatistics
+	 *            statistics computed with pair counts
+	 * @return an Integer Set of numbers from 'cold' pairs
+	 */
+	public static Set<Integer> getColdPairNumbers(final Lottery theGame,
+			final DrawStatistics theStatistics) {
+		return toSet(theStatistics.pairs().coldest(
+				theGame.getNumberOfBalls(), theGame.getRange()));
+	}
+
+	/**
+	 * Gets the bonus balls most often drawn with the numbers of the hot
+	 * pairs.
+	 * 
+	 * @param theGame
+	 *            the AbstractBonusBall game to analyze
+	 * @param theStatistics
+	 *            statistics computed with pair counts
+	 * @return an Integer Set
+	 */
+	public static Set<Integer> getHotPairBonusBalls(
+			final AbstractBonusBall theGame, final DrawStatistics theStatistics) {
+		final CoOccurrence pairs = theStatistics.pairs();
+		return toSet(pairs.hottestBonusBalls(
+				pairs.hottest(theGame.getNumberOfBalls(), theGame.getRange()),
+				theGame.getNumberOfBonusBalls(), theGame.getBonusBallRange()));
+	}
+
+	/**
+	 * Gets the bonus balls least often drawn with the numbers of the cold
+	 * pairs.
+	 * 
+	 * @param theGame
+	 *            the AbstractBonusBall game to analyze
+	 * @param theStatistics
+	 *            statistics computed with pair counts
+	 * @return an Integer Set
+	 */
+	public static Set<Integer> getColdPairBonusBalls(
+			final AbstractBonusBall theGame, final DrawStatistics theStatistics) {
+		final CoOccurrence pairs = theStatistics.pairs();
+		return toSet(pairs.coldestBonusBalls(
+				pairs.coldest(theGame.getNumberOfBalls(), theGame.getRange()),
+				theGame.getNumberOfBonusBalls(), theGame.getBonusBallRange()));
+	}
+
 	/**
 	 * Gets the most frequently occurring bonus balls.
 	 * 
@@ -203,11 +291,24 @@ public final class Algorithims {
 	public static Set<Integer> getHotBonusBalls(
 			final AbstractBonusBall theGame, final GetDraws theDraws)
 			throws FileNotFoundException {
-		final Map<Integer, Percentage> count = getBonusBallCount(theDraws);
-		final Map<Percentage, Set<Integer>> hotBonusBalls = reverseMap(count,
-				new HotComparator());
-		return getFinalResult(hotBonusBalls, theGame.getNumberOfBonusBalls(),
-				theGame.getBonusBallRange());
+		return getHotBonusBalls(theGame, DrawStatistics.compute(theGame,
+				theDraws, true, false));
+	}
+
+	/**
+	 * Gets the most frequently occurring bonus balls out of already computed
+	 * statistics.
+	 * 
+	 * @param theGame
+	 *            the AbstractBonusBall game to analyze
+	 * @param theStatistics
+	 *            statistics computed with frequencies
+	 * @return an Integer Set, likely to be small in size
+	 */
+	public static Set<Integer> getHotBonusBalls(
+			final AbstractBonusBall theGame, final DrawStatistics theStatistics) {
+		return toSet(theStatistics.bonusBalls().hottest(
+				theGame.getNumberOfBonusBalls(), theGame.getBonusBallRange()));
 	}
 
 	/**
@@ -224,81 +325,144 @@ public final class Algorithims {
 	public static Set<Integer> getColdBonusBalls(
 			final AbstractBonusBall theGame, final GetDraws theDraws)
 			throws FileNotFoundException {
-		final Map<Integer, Percentage> count = getBonusBallCount(theDraws);
-		final Map<Percentage, Set<Integer>> coldBonusBalls = reverseMap(count,
-				new ColdComparator());
-		return getFinalResult(coldBonusBalls, theGame.getNumberOfBonusBalls(),
-				theGame.getBonusBallRange());
+		return getColdBonusBalls(theGame, DrawStatistics.compute(theGame,
+				theDraws, true, false));
 	}
 
 	/**
-	 * A helper method for most above methods. This method takes in an Integer
-	 * -> Set<Integer> mapping, and outputs a single Tree Set according to the
-	 * number of balls given and removes numbers above the given max
+	 * Gets the least frequently occurring bonus balls out of already computed
+	 * statistics.
 	 * 
-	 * @param theBalls
-	 *            a mapping of frequency -> balls
-	 * @param theSize
-	 *            the minimum size of the resulting Set
-	 * @param theMax
-	 *            exclude numbers above this
-	 * @return a TreeSet of resulting numbers
+	 * @param theGame
+	 *            the AbstractBonusBall game to analyze
+	 * @param theStatistics
+	 *            statistics computed with frequencies
+	 * @return an Integer Set
 	 */
-	private static Set<Integer> getFinalResult(
-			final Map<Percentage, Set<Integer>> theBalls, final int theSize,
-			final int theMax) {
-		final Set<Integer> result = new TreeSet<Integer>();
-		for (final Percentage key : theBalls.keySet()) {
-			if (result.size() < theSize) {
-				result.addAll(theBalls.get(key));
-				final Iterator<Integer> itr = result.iterator();
-				while (itr.hasNext()) {
-					final int next = itr.next();
-					if (next > theMax || next <= 0) {
-						itr.remove();
-					}
-				}
+	public static Set<Integer> getColdBonusBalls(
+			final AbstractBonusBall theGame, final DrawStatistics theStatistics) {
+		return toSet(theStatistics.bonusBalls().coldest(
+				theGame.getNumberOfBonusBalls(), theGame.getBonusBallRange()));
+	}
+
+	/**
+	 * Reports how likely each hot or cold pick is to be that hot or cold by
+	 * luck alone, as found from random histories with the same draws at each
+	 * range as the counted draws. Each pick gets its own p-value, and the
+	 * p-value of the hottest or coldest of a whole random history being as
+	 * far out, which allows for having picked it out of the whole range. The
+	 * random histories simulate each number's count on its own, so the second
+	 * p-value is an approximation, and the report says so.
+	 * 
+	 * @param theGame
+	 *            the game analyzed
+	 * @param theStatistics
+	 *            statistics computed with frequencies
+	 * @param theHot
+	 *            if the hot picks are reported
+	 * @param theCold
+	 *            if the cold picks are reported
+	 * @return the report for display
+	 */
+	public static String getSignificance(final Lottery theGame,
+			final DrawStatistics theStatistics, final boolean theHot,
+			final boolean theCold) {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("Chance by luck alone, from ");
+		builder.append(SIMULATIONS);
+		builder.append(" random histories of each number's count");
+		builder.append(NEWLINE);
+		builder.append("(whole range p-values ignore that the balls of a"
+				+ " draw are distinct, so they are approximate):");
+		builder.append(NEWLINE);
+		final Significance numbers = Significance.of(theStatistics.numbers()
+				.histogram(), theGame.getNumberOfBalls(), SIMULATIONS, SEED);
+		if (theHot) {
+			appendSignificance(builder, "Hot", numbers, getHotNumbers(theGame,
+					theStatistics), true);
+		}
+		if (theCold) {
+			appendSignificance(builder, "Cold", numbers, getColdNumbers(
+					theGame, theStatistics), false);
+		}
+		if (theGame.hasBonusBall()) {
+			final AbstractBonusBall game = (AbstractBonusBall) theGame;
+			final Significance bonusBalls = Significance.of(theStatistics
+					.bonusBalls().histogram(), 1, SIMULATIONS, SEED);
+			if (theHot) {
+				appendSignificance(builder, "Hot bonus", bonusBalls,
+						getHotBonusBalls(game, theStatistics), true);
+			}
+			if (theCold) {
+				appendSignificance(builder, "Cold bonus", bonusBalls,
+						getColdBonusBalls(game, theStatistics), false);
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Adds a line of the significance report for each pick.
+	 * 
+	 * @param theBuilder
+	 *            the report
+	 * @param theLabel
+	 *            what the picks are
+	 * @param theSignificance
+	 *            the p-values of the picks' kind of ball
+	 * @param thePicks
+	 *            the picked numbers
+	 * @param theHot
+	 *            if the picks are hot rather than cold
+	 */
+	private static void appendSignificance(final StringBuilder theBuilder,
+			final String theLabel, final Significance theSignificance,
+			final Set<Integer> thePicks, final boolean theHot) {
+		for (final int number : thePicks) {
+			final double pValue;
+			final double rangePValue;
+			if (theHot) {
+				pValue = theSignificance.hotPValue(number);
+				rangePValue = theSignificance.hottestPValue(number);
+			} else {
+				pValue = theSignificance.coldPValue(number);
+				rangePValue = theSignificance.coldestPValue(number);
 			}
+			theBuilder.append(String.format("%-10s %2d  p = %.5f"
+					+ "  of the whole range p ~ %.5f", theLabel, number,
+					pValue, rangePValue));
+			theBuilder.append(NEWLINE);
+		}
+	}
 
+	/**
+	 * A helper method for most above methods. This method turns the numbers
+	 * picked from a Ranking into the Set the callers expect.
+	 * 
+	 * @param theNumbers
+	 *            the picked numbers in increasing order
+	 * @return a TreeSet of resulting numbers
+	 */
+	private static Set<Integer> toSet(final int[] theNumbers) {
+		final Set<Integer> result = new TreeSet<Integer>();
+		for (final int number : theNumbers) {
+			result.add(number);
 		}
 		return result;
 	}
 
 	/**
-	 * Returns the bonus balls from one periodic draw ago.
+	 * Gets the bonus ball of the periodic draw out of already computed
+	 * statistics.
 	 * 
-	 * @param theGame
-	 *            the game to look up
+	 * @param theStatistics
+	 *            statistics computed with the periodic draw
 	 * @return the periodic bonus ball
-	 * @throws FileNotFoundException
-	 *             if the database file is not found
 	 */
 	public static Set<Integer> getPeriodicBonusBalls(
-			final AbstractBonusBall theGame) throws FileNotFoundException {
-		final Scanner in = new Scanner(new File(theGame.dataFile()));
-		final int weekFreq = theGame.getRange() / theGame.getNumberOfBalls();
+			final DrawStatistics theStatistics) {
 		final Set<Integer> result = new HashSet<Integer>();
-		for (int i = 0; i < weekFreq - 1; i++) {
-			in.nextLine();
-		}
-		// consume date
-		in.next();
-		in.next();
-		in.next();
-		for (int i = 0; i < theGame.getNumberOfBalls(); i++) {
-			in.nextInt();
-		}
-		result.add(in.nextInt());
-		in.close();
+		result.add(theStatistics.periodicBonusBall());
 		return result;
 	}
-
-	public static boolean arrayContains(final int[] theArr, final int theNum) {
-		for (int num : theArr) {
-			if (num == theNum) {
-				return true;
-			}
-		}
-		return false;
-	}
 }
@@ -0,0 +1,641 @@
+package analyzer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * How often numbers were drawn together in a set of draws. The pair counts
+ * of the number balls are kept in a packed upper-triangular matrix, with the
+ * pair a < b at (b - 1)(b - 2) / 2 + a - 1, so a column only depends on its
+ * higher number and the matrix holds no diagonal and no lower half. Triples
+ * a < b < c can be counted too, packed the same way at C(c - 1, 3) +
+ * C(b - 1, 2) + a - 1, and each number ball is also counted with the bonus
+ * ball of its draw. The balls of each draw are taken from its bitmask in
+ * increasing order, so a draw costs O(balls^2) for its pairs and O(balls^3)
+ * for its triples.
+ *
+ * A pair or triple can only be drawn in draws whose range reaches its
+ * highest number, so its frequency is its count over the draws of the number
+ * histogram at that number, as for single numbers. When triples are counted
+ * the numbers are picked from triples instead of pairs. Of pairs or triples
+ * of equal frequency, the one first in packed order is picked first.
+ *
+ * @author Robert
+ */
+public final class CoOccurrence {
+
+	/**
+	 * The number of times each number ball was drawn and the draws reaching
+	 * it.
+	 */
+	private final FrequencyHistogram myNumbers;
+
+	/**
+	 * The number of times each bonus ball was drawn and the draws reaching
+	 * it, null if bonus balls were not counted.
+	 */
+	private final FrequencyHistogram myBonusBalls;
+
+	/**
+	 * The highest range of the number balls counted.
+	 */
+	private final int myRange;
+
+	/**
+	 * The highest range of the bonus balls counted.
+	 */
+	private final int myBonusRange;
+
+	/**
+	 * The number of times each pair of number balls was drawn, packed.
+	 */
+	private final int[] myPairs;
+
+	/**
+	 * The number of times each triple of number balls was drawn, packed, null
+	 * if triples were not counted.
+	 */
+	private final int[] myTriples;
+
+	/**
+	 * The number of times each number ball was drawn with each bonus ball, at
+	 * (number - 1) * myBonusRange + bonus ball - 1, null if bonus balls were
+	 * not counted.
+	 */
+	private final int[] myBonusPairs;
+
+	/**
+	 * Creates empty counts for draws up to the given ranges. Draws are added
+	 * with add(), and finish() is called once they all are.
+	 *
+	 * @param theRange
+	 *            the highest range of the number balls
+	 * @param theBonusRange
+	 *            the highest range of the bonus balls, 0 to not count them
+	 * @param theTriples
+	 *            if triples are counted
+	 */
+	CoOccurrence(final int theRange, final int theBonusRange,
+			final boolean theTriples) {
+		myRange = theRange;
+		myBonusRange = theBonusRange;
+		myNumbers = new FrequencyHistogram(theRange);
+		myPairs = new int[pairIndex(theRange - 1, theRange) + 1];
+		if (theTriples) {
+			myTriples = new int[tripleIndex(theRange - 2, theRange - 1,
+					theRange) + 1];
+		} else {
+			myTriples = null;
+		}
+		if (theBonusRange > 0) {
+			myBonusBalls = new FrequencyHistogram(theBonusRange);
+			myBonusPairs = new int[theRange * theBonusRange];
+		} else {
+			myBonusBalls = null;
+			myBonusPairs = null;
+		}
+	}
+
+	/**
+	 * Creates counts sharing the pairs of others but without their triples.
+	 *
+	 * @param theCounts
+	 *            the counts to share
+	 */
+	private CoOccurrence(final CoOccurrence theCounts) {
+		myRange = theCounts.myRange;
+		myBonusRange = theCounts.myBonusRange;
+		myNumbers = theCounts.myNumbers;
+		myPairs = theCounts.myPairs;
+		myTriples = null;
+		myBonusBalls = theCounts.myBonusBalls;
+		myBonusPairs = theCounts.myBonusPairs;
+	}
+
+	/**
+	 * Counts the selected rows of a table.
+	 *
+	 * @param theDraws
+	 *            the table
+	 * @param theSelection
+	 *            one bit per row, set if the row is counted, or null to count
+	 *            every row
+	 * @param theBonusBalls
+	 *            if the bonus balls are counted with the number balls
+	 * @param theTriples
+	 *            if triples are counted as well as pairs
+	 * @return the counts
+	 */
+	public static CoOccurrence of(final DrawTable theDraws,
+			final long[] theSelection, final boolean theBonusBalls,
+			final boolean theTriples) {
+		int highest = 0;
+		int highestBonus = 0;
+		final int size = theDraws.size();
+		for (int row = next(theSelection, 0, size); row < size; row = next(
+				theSelection, row + 1, size)) {
+			highest = Math.max(highest, theDraws.numberRange(row));
+			highestBonus = Math.max(highestBonus, theDraws.bonusBallRange(row));
+		}
+		final CoOccurrence result = new CoOccurrence(highest,
+				theBonusBalls ? highestBonus : 0, theTriples);
+		final int[] balls = new int[highest];
+		for (int row = next(theSelection, 0, size); row < size; row = next(
+				theSelection, row + 1, size)) {
+			result.add(theDraws, row, balls);
+		}
+		result.finish();
+		return result;
+	}
+
+	/**
+	 * Returns these counts with the given rows of a table added, making more
+	 * room if the rows have higher ranges than any counted so far. Pairs and
+	 * triples are packed by their highest numbers, so their counts so far are
+	 * copied across as they are.
+	 *
+	 * @param theDraws
+	 *            the table
+	 * @param theFirst
+	 *            the first row to add
+	 * @param theEnd
+	 *            the row after the last
+	 * @return the counts of the draws of this and the added rows
+	 */
+	CoOccurrence extend(final DrawTable theDraws, final int theFirst,
+			final int theEnd) {
+		int highest = myRange;
+		int highestBonus = myBonusRange;
+		for (int row = theFirst; row < theEnd; row++) {
+			highest = Math.max(highest, theDraws.numberRange(row));
+			if (myBonusBalls != null) {
+				highestBonus = Math.max(highestBonus,
+						theDraws.bonusBallRange(row));
+			}
+		}
+		final CoOccurrence result = new CoOccurrence(highest, highestBonus,
+				myTriples != null);
+		FrequencyHistogram.merge(result.myNumbers, myNumbers);
+		System.arraycopy(myPairs, 0, result.myPairs, 0, myPairs.length);
+		if (myTriples != null) {
+			System.arraycopy(myTriples, 0, result.myTriples, 0,
+					myTriples.length);
+		}
+		if (myBonusBalls != null) {
+			FrequencyHistogram.merge(result.myBonusBalls, myBonusBalls);
+			for (int number = 0; number < myRange; number++) {
+				System.arraycopy(myBonusPairs, number * myBonusRange,
+						result.myBonusPairs, number * highestBonus,
+						myBonusRange);
+			}
+		}
+		final int[] balls = new int[highest];
+		for (int row = theFirst; row < theEnd; row++) {
+			result.add(theDraws, row, balls);
+		}
+		result.finish();
+		return result;
+	}
+
+	/**
+	 * Returns these counts without their triples, so numbers are picked from
+	 * pairs. The counts are shared, not copied.
+	 *
+	 * @return counts without triples, this if triples were not counted
+	 */
+	public CoOccurrence withoutTriples() {
+		if (myTriples == null) {
+			return this;
+		}
+		return new CoOccurrence(this);
+	}
+
+	/**
+	 * Returns the number of times a number ball was drawn with a bonus ball.
+	 *
+	 * @param theNumber
+	 *            the number ball
+	 * @param theBonusBall
+	 *            the bonus ball
+	 * @return the number of draws holding both, 0 if they were not counted
+	 */
+	public int bonusPairCount(final int theNumber, final int theBonusBall) {
+		if (myBonusPairs == null || theNumber < 1 || theNumber > myRange
+				|| theBonusBall < 1 || theBonusBall > myBonusRange) {
+			return 0;
+		}
+		return myBonusPairs[(theNumber - 1) * myBonusRange + theBonusBall - 1];
+	}
+
+	/**
+	 * Picks the numbers of the most frequent pairs, or of the most frequent
+	 * triples if they were counted. Pairs are taken most frequent first until
+	 * at least the given number of numbers have been picked. Unlike a
+	 * Ranking, pairs as frequent as the last one taken are left out, as a
+	 * short history can have hundreds of pairs that were never drawn.
+	 *
+	 * @param theSize
+	 *            the minimum number of numbers to pick
+	 * @param theMax
+	 *            the highest number that can be picked
+	 * @return the picked numbers in increasing order
+	 */
+	public int[] hottest(final int theSize, final int theMax) {
+		if (myTriples != null) {
+			return pickTriples(theSize, theMax, true);
+		}
+		return pick(theSize, theMax, true);
+	}
+
+	/**
+	 * Picks the numbers of the least frequent pairs or triples, the same way
+	 * hottest() picks from the most frequent.
+	 *
+	 * @param theSize
+	 *            the minimum number of numbers to pick
+	 * @param theMax
+	 *            the highest number that can be picked
+	 * @return the picked numbers in increasing order
+	 */
+	public int[] coldest(final int theSize, final int theMax) {
+		if (myTriples != null) {
+			return pickTriples(theSize, theMax, false);
+		}
+		return pick(theSize, theMax, false);
+	}
+
+	/**
+	 * Picks the bonus balls drawn most often with the given number balls, by
+	 * their counts with all of the numbers over their draws. Bonus balls as
+	 * frequent as the last one picked are picked with it.
+	 *
+	 * @param theNumbers
+	 *            the number balls the bonus balls are paired with
+	 * @param theSize
+	 *            the minimum number of bonus balls to pick
+	 * @param theMax
+	 *            the highest bonus ball that can be picked
+	 * @return the picked bonus balls in increasing order
+	 */
+	public int[] hottestBonusBalls(final int[] theNumbers, final int theSize,
+			final int theMax) {
+		return pickBonusBalls(theNumbers, theSize, theMax, true);
+	}
+
+	/**
+	 * Picks the bonus balls drawn least often with the given number balls,
+	 * the same way hottestBonusBalls() picks the most often.
+	 *
+	 * @param theNumbers
+	 *            the number balls the bonus balls are paired with
+	 * @param theSize
+	 *            the minimum number of bonus balls to pick
+	 * @param theMax
+	 *            the highest bonus ball that can be picked
+	 * @return the picked bonus balls in increasing order
+	 */
+	public int[] coldestBonusBalls(final int[] theNumbers, final int theSize,
+			final int theMax) {
+		return pickBonusBalls(theNumbers, theSize, theMax, false);
+	}
+
+	/**
+	 * Turns the draws seen at each range into the draws reaching each number.
+	 * Called once every draw has been added.
+	 */
+	void finish() {
+		myNumbers.finish();
+		if (myBonusBalls != null) {
+			myBonusBalls.finish();
+		}
+	}
+
+	/**
+	 * Counts one draw while the counts are being made.
+	 *
+	 * @param theDraws
+	 *            the table holding the draw
+	 * @param theRow
+	 *            the draw
+	 * @param theBalls
+	 *            room for the balls of the draw, at least the range of the
+	 *            counts long
+	 */
+	void add(final DrawTable theDraws, final int theRow,
+			final int[] theBalls) {
+		final int range = theDraws.numberRange(theRow);
+		int count = 0;
+		for (int w = 0; w < theDraws.maskWords(); w++) {
+			long word = theDraws.maskWord(theRow, w);
+			while (word != 0) {
+				final int number = (w << 6) + Long.numberOfTrailingZeros(word);
+				if (number >= 1 && number <= range) {
+					theBalls[count] = number;
+					count++;
+				}
+				word &= word - 1;
+			}
+		}
+		myNumbers.addNumbers(theDraws, theRow);
+		for (int j = 1; j < count; j++) {
+			final int column = pairIndex(0, theBalls[j]) + 1;
+			for (int i = 0; i < j; i++) {
+				myPairs[column + theBalls[i] - 1]++;
+			}
+		}
+		if (myTriples != null) {
+			for (int k = 2; k < count; k++) {
+				for (int j = 1; j < k; j++) {
+					final int column = tripleIndex(0, theBalls[j],
+							theBalls[k]) + 1;
+					for (int i = 0; i < j; i++) {
+						myTriples[column + theBalls[i] - 1]++;
+					}
+				}
+			}
+		}
+		if (myBonusBalls != null) {
+			myBonusBalls.addBonusBall(theDraws, theRow);
+			final int bonusBall = theDraws.bonusBall(theRow);
+			if (bonusBall >= 1
+					&& bonusBall <= theDraws.bonusBallRange(theRow)) {
+				for (int i = 0; i < count; i++) {
+					myBonusPairs[(theBalls[i] - 1) * myBonusRange + bonusBall
+							- 1]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Takes pairs most or least frequent first until enough numbers are
+	 * picked, then puts the numbers in increasing order by marking them in a
+	 * table of the range. Only a few pairs are ever taken, so each is found
+	 * by a scan of the pairs not yet taken rather than by sorting them all,
+	 * and of pairs of equal frequency the first in packed order is taken.
+	 *
+	 * @param theSize
+	 *            the minimum number of numbers to pick
+	 * @param theMax
+	 *            the highest number that can be picked
+	 * @param theHottest
+	 *            if the most frequent pairs are taken
+	 * @return the picked numbers in increasing order
+	 */
+	private int[] pick(final int theSize, final int theMax,
+			final boolean theHottest) {
+		final int top = Math.max(0, Math.min(theMax, myRange));
+		final boolean[] picked = new boolean[top + 1];
+		final boolean[] taken = new boolean[myPairs.length];
+		int count = 0;
+		while (count < theSize) {
+			int best = -1;
+			int bestHigh = 0;
+			for (int high = 2; high <= top; high++) {
+				final int draws = myNumbers.draws(high);
+				if (draws == 0) {
+					continue;
+				}
+				final int column = pairIndex(0, high) + 1;
+				for (int low = 1; low < high; low++) {
+					final int index = column + low - 1;
+					if (taken[index]) {
+						continue;
+					}
+					if (best < 0) {
+						best = index;
+						bestHigh = high;
+						continue;
+					}
+					final long compared = (long) myPairs[index]
+							* myNumbers.draws(bestHigh) - (long) myPairs[best]
+							* draws;
+					if (theHottest ? compared > 0 : compared < 0) {
+						best = index;
+						bestHigh = high;
+					}
+				}
+			}
+			if (best < 0) {
+				break;
+			}
+			taken[best] = true;
+			final int bestLow = best - pairIndex(0, bestHigh);
+			if (!picked[bestLow]) {
+				picked[bestLow] = true;
+				count++;
+			}
+			if (!picked[bestHigh]) {
+				picked[bestHigh] = true;
+				count++;
+			}
+		}
+		final int[] result = new int[count];
+		int next = 0;
+		for (int number = 1; number < picked.length; number++) {
+			if (picked[number]) {
+				result[next] = number;
+				next++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Takes triples most or least frequent first until enough numbers are
+	 * picked, the same way pick() takes pairs.
+	 *
+	 * @param theSize
+	 *            the minimum number of numbers to pick
+	 * @param theMax
+	 *            the highest number that can be picked
+	 * @param theHottest
+	 *            if the most frequent triples are taken
+	 * @return the picked numbers in increasing order
+	 */
+	private int[] pickTriples(final int theSize, final int theMax,
+			final boolean theHottest) {
+		final int top = Math.max(0, Math.min(theMax, myRange));
+		final boolean[] picked = new boolean[top + 1];
+		final boolean[] taken = new boolean[myTriples.length];
+		int count = 0;
+		while (count < theSize) {
+			int best = -1;
+			int bestMiddle = 0;
+			int bestHigh = 0;
+			for (int high = 3; high <= top; high++) {
+				final int draws = myNumbers.draws(high);
+				if (draws == 0) {
+					continue;
+				}
+				for (int middle = 2; middle < high; middle++) {
+					final int column = tripleIndex(0, middle, high) + 1;
+					for (int low = 1; low < middle; low++) {
+						final int index = column + low - 1;
+						if (taken[index]) {
+							continue;
+						}
+						if (best < 0) {
+							best = index;
+							bestMiddle = middle;
+							bestHigh = high;
+							continue;
+						}
+						final long compared = (long) myTriples[index]
+								* myNumbers.draws(bestHigh)
+								- (long) myTriples[best] * draws;
+						if (theHottest ? compared > 0 : compared < 0) {
+							best = index;
+							bestMiddle = middle;
+							bestHigh = high;
+						}
+					}
+				}
+			}
+			if (best < 0) {
+				break;
+			}
+			taken[best] = true;
+			final int bestLow = best - tripleIndex(0, bestMiddle, bestHigh);
+			for (final int number : new int[] {bestLow, bestMiddle, bestHigh}) {
+				if (!picked[number]) {
+					picked[number] = true;
+					count++;
+				}
+			}
+		}
+		final int[] result = new int[count];
+		int next = 0;
+		for (int number = 1; number < picked.length; number++) {
+			if (picked[number]) {
+				result[next] = number;
+				next++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Picks bonus balls by how often they were drawn with the given numbers.
+	 *
+	 * @param theNumbers
+	 *            the number balls the bonus balls are paired with
+	 * @param theSize
+	 *            the minimum number of bonus balls to pick
+	 * @param theMax
+	 *            the highest bonus ball that can be picked
+	 * @param theHottest
+	 *            if the most frequent are picked
+	 * @return the picked bonus balls in increasing order
+	 */
+	private int[] pickBonusBalls(final int[] theNumbers, final int theSize,
+			final int theMax, final boolean theHottest) {
+		final int top = myBonusBalls == null ? 0 : Math.min(theMax,
+				myBonusRange);
+		final long[] counts = new long[top + 1];
+		final Integer[] order = new Integer[top];
+		for (int bonusBall = 1; bonusBall <= top; bonusBall++) {
+			for (final int number : theNumbers) {
+				counts[bonusBall] += bonusPairCount(number, bonusBall);
+			}
+			order[bonusBall - 1] = bonusBall;
+		}
+		final Comparator<Integer> frequency = new Comparator<Integer>() {
+			public int compare(final Integer theFirst, final Integer theSecond) {
+				final int compared = compareBonusBalls(counts, theFirst,
+						theSecond);
+				return theHottest ? -compared : compared;
+			}
+		};
+		Arrays.sort(order, frequency);
+		int count = Math.min(theSize, top);
+		while (count > 0 && count < top
+				&& frequency.compare(order[count], order[count - 1]) == 0) {
+			count++;
+		}
+		final int[] result = new int[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = order[i];
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Compares two bonus balls by their counts with a set of numbers over
+	 * the draws reaching them.
+	 *
+	 * @param theCounts
+	 *            the count of each bonus ball with the numbers
+	 * @param theFirst
+	 *            a bonus ball
+	 * @param theSecond
+	 *            another bonus ball
+	 * @return negative, zero or positive as the first is colder, the same or
+	 *         hotter
+	 */
+	private int compareBonusBalls(final long[] theCounts, final int theFirst,
+			final int theSecond) {
+		return Long.compare(theCounts[theFirst]
+				* myBonusBalls.draws(theSecond), theCounts[theSecond]
+				* myBonusBalls.draws(theFirst));
+	}
+
+	/**
+	 * Finds the next selected row, skipping whole words of unselected rows.
+	 *
+	 * @param theSelection
+	 *            the rows counted, or null for every row
+	 * @param theRow
+	 *            the first row that may be selected
+	 * @param theSize
+	 *            the number of rows
+	 * @return the first selected row from theRow on, theSize if none is
+	 */
+	private static int next(final long[] theSelection, final int theRow,
+			final int theSize) {
+		if (theSelection == null || theRow >= theSize) {
+			return theRow;
+		}
+		int w = theRow >>> 6;
+		long word = theSelection[w] & -1L << theRow;
+		while (word == 0) {
+			w++;
+			if (w >= theSelection.length) {
+				return theSize;
+			}
+			word = theSelection[w];
+		}
+		return Math.min(theSize, (w << 6) + Long.numberOfTrailingZeros(word));
+	}
+
+	/**
+	 * Returns where a pair is packed.
+	 *
+	 * @param theLow
+	 *            the lower number
+	 * @param theHigh
+	 *            the higher number
+	 * @return the index of the pair
+	 */
+	private static int pairIndex(final int theLow, final int theHigh) {
+		return (theHigh - 1) * (theHigh - 2) / 2 + theLow - 1;
+	}
+
+	/**
+	 * Returns where a triple is packed.
+	 *
+	 * @param theLow
+	 *            the lowest number
+	 * @param theMiddle
+	 *            the middle number
+	 * @param theHigh
+	 *            the highest number
+	 * @return the index of the triple
+	 */
+	private static int tripleIndex(final int theLow, final int theMiddle,
+			final int theHigh) {
+		return (theHigh - 1) * (theHigh - 2) * (theHigh - 3) / 6
+				+ (theMiddle - 1) * (theMiddle - 2) / 2 + theLow - 1;
+	}
+}
@@ -0,0 +1,292 @@
+package analyzer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Recency weighted frequencies, where a draw counts for half as much each
+ * time the given half life of draws passes. Each number has a score, and
+ * adding a draw multiplies every score by the decay of one draw before adding
+ * 1 for each ball drawn, so the score of a number is the sum of the weights
+ * of the draws it came up in. Adding a draw costs O(range), so a score vector
+ * is kept up to date by adding the new draws rather than by going over the
+ * history again. Scores cannot be changed once made; extend() makes new
+ * ones.
+ *
+ * @author Robert
+ */
+public final class DecayedFrequency {
+
+	/**
+	 * The half life in draws.
+	 */
+	private final int myHalfLife;
+
+	/**
+	 * The number of draws added.
+	 */
+	private final int mySize;
+
+	/**
+	 * The score of each number ball, indexed by number.
+	 */
+	private final double[] myNumbers;
+
+	/**
+	 * The score of each bonus ball, indexed by number.
+	 */
+	private final double[] myBonusBalls;
+
+	/**
+	 * Creates scores from their parts.
+	 *
+	 * @param theHalfLife
+	 *            the half life in draws
+	 * @param theSize
+	 *            the number of draws added
+	 * @param theNumbers
+	 *            the scores of the number balls
+	 * @param theBonusBalls
+	 *            the scores of the bonus balls
+	 */
+	private DecayedFrequency(final int theHalfLife, final int theSize,
+			final double[] theNumbers, final double[] theBonusBalls) {
+		myHalfLife = theHalfLife;
+		mySize = theSize;
+		myNumbers = theNumbers;
+		myBonusBalls = theBonusBalls;
+	}
+
+	/**
+	 * Creates zero scores for the given number of draws up to the given
+	 * ranges. The draws are added with addRows(), oldest first.
+	 *
+	 * @param theHalfLife
+	 *            the half life in draws, at least 1
+	 * @param theSize
+	 *            the number of draws that will be added
+	 * @param theRange
+	 *            the highest range of the number balls
+	 * @param theBonusRange
+	 *            the highest range of the bonus balls
+	 */
+	DecayedFrequency(final int theHalfLife, final int theSize,
+			final int theRange, final int theBonusRange) {
+		this(theHalfLife, theSize, new double[theRange + 1],
+				new double[theBonusRange + 1]);
+	}
+
+	/**
+	 * Scores every draw of a table.
+	 *
+	 * @param theDraws
+	 *            the draws, most recent first
+	 * @param theHalfLife
+	 *            the half life in draws, at least 1
+	 * @return the scores
+	 */
+	public static DecayedFrequency of(final DrawTable theDraws,
+			final int theHalfLife) {
+		return of(theDraws, 0, theHalfLife);
+	}
+
+	/**
+	 * Scores the draws of a table from the given row on, as they stood before
+	 * any of the draws above it were drawn.
+	 *
+	 * @param theDraws
+	 *            the draws, most recent first
+	 * @param theFirst
+	 *            the most recent row to score
+	 * @param theHalfLife
+	 *            the half life in draws, at least 1
+	 * @return the scores
+	 */
+	static DecayedFrequency of(final DrawTable theDraws, final int theFirst,
+			final int theHalfLife) {
+		int highest = 0;
+		int highestBonus = 0;
+		for (int row = theFirst; row < theDraws.size(); row++) {
+			highest = Math.max(highest, theDraws.numberRange(row));
+			highestBonus = Math.max(highestBonus, theDraws.bonusBallRange(row));
+		}
+		final int size = theDraws.size() - theFirst;
+		final DecayedFrequency result = new DecayedFrequency(theHalfLife,
+				size, highest, highestBonus);
+		result.addRows(theDraws, theFirst, size);
+		return result;
+	}
+
+	/**
+	 * Returns the scores of the given history, which must be the history of
+	 * this with newer draws on top. Only the new draws are added, unless
+	 * their ranges are higher than any this has room for, in which case the
+	 * history is scored again.
+	 *
+	 * @param theHistory
+	 *            the draws, most recent first
+	 * @return the scores of the whole history
+	 */
+	public DecayedFrequency extend(final DrawTable theHistory) {
+		return extend(theHistory, 0);
+	}
+
+	/**
+	 * Returns the scores of the given history from the given row on, which
+	 * must be the draws of this with newer draws on top. Only the new draws
+	 * are added, unless their ranges are higher than any this has room for.
+	 *
+	 * @param theHistory
+	 *            the draws, most recent first
+	 * @param theFirst
+	 *            the most recent row to score
+	 * @return the scores of the history from that row on
+	 */
+	DecayedFrequency extend(final DrawTable theHistory, final int theFirst) {
+		final int added = theHistory.size() - theFirst - mySize;
+		for (int row = theFirst; row < theFirst + added; row++) {
+			if (theHistory.numberRange(row) >= myNumbers.length
+					|| theHistory.bonusBallRange(row) >= myBonusBalls.length) {
+				return of(theHistory, theFirst, myHalfLife);
+			}
+		}
+		final DecayedFrequency result = new DecayedFrequency(myHalfLife,
+				mySize + added, myNumbers.clone(), myBonusBalls.clone());
+		result.addRows(theHistory, theFirst, added);
+		return result;
+	}
+
+	/**
+	 * Returns the half life the scores decay by.
+	 *
+	 * @return the half life in draws
+	 */
+	public int halfLife() {
+		return myHalfLife;
+	}
+
+	/**
+	 * Returns the number of draws scored.
+	 *
+	 * @return the number of draws
+	 */
+	public int size() {
+		return mySize;
+	}
+
+	/**
+	 * Returns the score of a number ball.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return its decayed count, 0 if it was never drawn
+	 */
+	public double score(final int theNumber) {
+		return theNumber < myNumbers.length ? myNumbers[theNumber] : 0;
+	}
+
+	/**
+	 * Picks the number balls with the highest scores. Numbers of equal score
+	 * are taken together, so ties with the last number picked are included.
+	 *
+	 * @param theSize
+	 *            the minimum number of numbers to pick
+	 * @param theMax
+	 *            the highest number that can be picked
+	 * @return the picked numbers in increasing order
+	 */
+	public int[] hottest(final int theSize, final int theMax) {
+		return hottest(myNumbers, theSize, theMax);
+	}
+
+	/**
+	 * Picks the bonus balls with the highest scores, the same way hottest()
+	 * picks the number balls.
+	 *
+	 * @param theSize
+	 *            the minimum number of bonus balls to pick
+	 * @param theMax
+	 *            the highest bonus ball that can be picked
+	 * @return the picked bonus balls in increasing order
+	 */
+	public int[] hottestBonusBalls(final int theSize, final int theMax) {
+		return hottest(myBonusBalls, theSize, theMax);
+	}
+
+	/**
+	 * Adds the given number of rows of a table from the given row down,
+	 * oldest first, to these scores while they are being made. Rows added by
+	 * separate calls must also come oldest first.
+	 *
+	 * @param theDraws
+	 *            the draws, most recent first
+	 * @param theFirst
+	 *            the most recent row to add
+	 * @param theCount
+	 *            how many rows to add
+	 */
+	void addRows(final DrawTable theDraws, final int theFirst,
+			final int theCount) {
+		final double decay = Math.pow(0.5, 1.0 / myHalfLife);
+		for (int row = theFirst + theCount - 1; row >= theFirst; row--) {
+			for (int number = 1; number < myNumbers.length; number++) {
+				myNumbers[number] *= decay;
+			}
+			final int range = theDraws.numberRange(row);
+			for (int w = 0; w < theDraws.maskWords(); w++) {
+				long word = theDraws.maskWord(row, w);
+				while (word != 0) {
+					final int number = (w << 6) + Long.numberOfTrailingZeros(word);
+					if (number >= 1 && number <= range) {
+						myNumbers[number]++;
+					}
+					word &= word - 1;
+				}
+			}
+			for (int number = 1; number < myBonusBalls.length; number++) {
+				myBonusBalls[number] *= decay;
+			}
+			final int bonusBall = theDraws.bonusBall(row);
+			if (bonusBall >= 1 && bonusBall <= theDraws.bonusBallRange(row)) {
+				myBonusBalls[bonusBall]++;
+			}
+		}
+	}
+
+	/**
+	 * Picks the numbers with the highest scores, taking every number of the
+	 * same score as the last one picked.
+	 *
+	 * @param theScores
+	 *            the score of each number
+	 * @param theSize
+	 *            the minimum number of numbers to pick
+	 * @param theMax
+	 *            the highest number that can be picked
+	 * @return the picked numbers in increasing order
+	 */
+	private static int[] hottest(final double[] theScores, final int theSize,
+			final int theMax) {
+		final int top = Math.max(0, Math.min(theMax, theScores.length - 1));
+		final Integer[] numbers = new Integer[top];
+		for (int i = 0; i < top; i++) {
+			numbers[i] = i + 1;
+		}
+		Arrays.sort(numbers, new Comparator<Integer>() {
+			public int compare(final Integer theFirst, final Integer theSecond) {
+				return Double.compare(theScores[theSecond], theScores[theFirst]);
+			}
+		});
+		int count = Math.min(theSize, top);
+		while (count > 0 && count < top
+				&& theScores[numbers[count]] == theScores[numbers[count - 1]]) {
+			count++;
+		}
+		final int[] result = new int[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = numbers[i];
+		}
+		Arrays.sort(result);
+		return result;
+	}
+}
@@ -1,5 +1,7 @@
 package analyzer;
 
+import util.DrawDate;
+
 /**
  * A simple object that represents a single drawing, with bonus ball as
  * applicable.
@@ -13,9 +15,9 @@ public final class Draw {
 	 */
 	public static final String DELIMITER = "\t";
 	/**
-	 * A string of the date of the draw.
+	 * The date of the draw as a count of days since 1970-01-01.
 	 */
-	private final String myDate;
+	private final int myDate;
 	/**
 	 * The regular number balls that were drawn.
 	 */
@@ -45,7 +47,7 @@ public final class Draw {
 	 * Constructor for a draw with a bonus ball.
 	 * 
 	 * @param theDate
-	 *            draw date
+	 *            draw date as an epoch day
 	 * @param theNumbers
 	 *            numbers drawn
 	 * @param theBonusBall
@@ -59,7 +61,7 @@ public final class Draw {
 	 * @param theBonusBallRange
 	 *            the bonus ball range applicable on this draw
 	 */
-	public Draw(final String theDate, final int[] theNumbers,
+	public Draw(final int theDate, final int[] theNumbers,
 			final int theBonusBall, final boolean theJackpotStatus,
 			final long thePayout, final int theNumberRange,
 			final int theBonusBallRange) {
@@ -72,12 +74,39 @@ public final class Draw {
 		myBonusBallRange = theBonusBallRange;
 	}
 
+	/**
+	 * Constructor for a draw with a bonus ball whose date is still text, such
+	 * as a scraped draw. The date is parsed once here.
+	 * 
+	 * @param theDate
+	 *            draw date as month, day and year
+	 * @param theNumbers
+	 *            numbers drawn
+	 * @param theBonusBall
+	 *            the bonus ball drawn
+	 * @param theJackpotStatus
+	 *            if this draw was a jackpot winner
+	 * @param thePayout
+	 *            the payout
+	 * @param theNumberRange
+	 *            the number range applicable on this draw
+	 * @param theBonusBallRange
+	 *            the bonus ball range applicable on this draw
+	 */
+	public Draw(final String theDate, final int[] theNumbers,
+			final int theBonusBall, final boolean theJackpotStatus,
+			final long thePayout, final int theNumberRange,
+			final int theBonusBallRange) {
+		this(DrawDate.parse(theDate), theNumbers, theBonusBall,
+				theJackpotStatus, thePayout, theNumberRange, theBonusBallRange);
+	}
+
 	/**
 	 * A constructor if this draw does not have a bonus ball. Sets fields
 	 * pertaining to bonus balls to 0
 	 * 
 	 * @param theDate
-	 *            the draw date
+	 *            the draw date as an epoch day
 	 * @param theNumbers
 	 *            the numbers drawn
 	 * @param theJackpotStatus
@@ -87,7 +116,7 @@ public final class Draw {
 	 * @param theNumberRange
 	 *            the range of applicable numbers
 	 */
-	public Draw(final String theDate, final int[] theNumbers,
+	public Draw(final int theDate, final int[] theNumbers,
 			final boolean theJackpotStatus, final long thePayout,
 			final int theNumberRange) {
 		myDate = theDate;
@@ -99,6 +128,28 @@ public final class Draw {
 		myBonusBallRange = 0;
 	}
 
+	/**
+	 * A constructor if this draw does not have a bonus ball and its date is
+	 * still text. The date is parsed once here.
+	 * 
+	 * @param theDate
+	 *            the draw date as month, day and year
+	 * @param theNumbers
+	 *            the numbers drawn
+	 * @param theJackpotStatus
+	 *            if this draw was a jackpot winner
+	 * @param thePayout
+	 *            the total payout from this drawing
+	 * @param theNumberRange
+	 *            the range of applicable numbers
+	 */
+	public Draw(final String theDate, final int[] theNumbers,
+			final boolean theJackpotStatus, final long thePayout,
+			final int theNumberRange) {
+		this(DrawDate.parse(theDate), theNumbers, theJackpotStatus, thePayout,
+				theNumberRange);
+	}
+
 	/**
 	 * A constructor that makes a duplicate Draw object to the one passed.
 	 * 
@@ -116,11 +167,20 @@ public final class Draw {
 	}
 
 	/**
-	 * A getter for the date field.
+	 * Formats the date field the way it is written in the database.
 	 * 
-	 * @return the draw date
+	 * @return the draw date as month, day and year
 	 */
 	public String date() {
+		return DrawDate.format(myDate, DELIMITER.charAt(0));
+	}
+
+	/**
+	 * A getter for the date field, for sorting and comparing draws.
+	 * 
+	 * @return the draw date as days since 1970-01-01
+	 */
+	public int epochDay() {
 		return myDate;
 	}
 
@@ -186,7 +246,7 @@ public final class Draw {
 	@Override
 	public String toString() {
 		final StringBuilder out = new StringBuilder();
-		out.append(myDate);
+		out.append(date());
 		out.append(DELIMITER);
 		for (final int num : myNumbers) {
 			if (num < 10) {
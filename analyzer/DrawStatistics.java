@@ -0,0 +1,323 @@
+package analyzer;
+
+import java.io.FileNotFoundException;
+
+import lotto.Lottery;
+import database.DrawHistory;
+import database.DrawRepository;
+
+/**
+ * Every statistic the algorithms are run on, worked out together so the
+ * selected draws are walked at most once however many algorithms are
+ * selected. Where it can, compute() reads the statistics out of the indexes
+ * and the saved statistics of the game's history instead of counting.
+ *
+ * @author Robert
+ */
+public final class DrawStatistics {
+
+	/**
+	 * The ranking of the number balls, null if frequencies were not needed.
+	 */
+	private final Ranking myNumbers;
+
+	/**
+	 * The ranking of the bonus balls, null if frequencies were not needed or
+	 * the game has no bonus ball.
+	 */
+	private final Ranking myBonusBalls;
+
+	/**
+	 * The decayed frequencies, null if they were not needed.
+	 */
+	private final DecayedFrequency myDecayed;
+
+	/**
+	 * The pair counts, null if they were not needed.
+	 */
+	private final CoOccurrence myPairs;
+
+	/**
+	 * The gaps of the whole history, null if they were not needed.
+	 */
+	private final GapStatistics myGaps;
+
+	/**
+	 * The number balls of the periodic draw, null if it was not needed.
+	 */
+	private final int[] myPeriodicNumbers;
+
+	/**
+	 * The bonus ball of the periodic draw.
+	 */
+	private final int myPeriodicBonusBall;
+
+	/**
+	 * Creates the statistics from their parts, taking the periodic draw from
+	 * the history.
+	 *
+	 * @param theFrequencies
+	 *            the rankings of the number balls and of the bonus balls, or
+	 *            null if frequencies were not needed
+	 * @param theDecayed
+	 *            the decayed frequencies
+	 * @param thePairs
+	 *            the pair counts
+	 * @param theGaps
+	 *            the gaps of the whole history
+	 * @param theHistory
+	 *            the history the statistics are of
+	 * @param theFirst
+	 *            the row of the most recent draw the statistics are of
+	 * @param theLookBack
+	 *            how many draws from that row the periodic draw is, 0 if it
+	 *            was not needed
+	 */
+	DrawStatistics(final Ranking[] theFrequencies,
+			final DecayedFrequency theDecayed, final CoOccurrence thePairs,
+			final GapStatistics theGaps, final DrawTable theHistory,
+			final int theFirst, final int theLookBack) {
+		if (theFrequencies == null) {
+			myNumbers = null;
+			myBonusBalls = null;
+		} else {
+			myNumbers = theFrequencies[0];
+			myBonusBalls = theFrequencies[1];
+		}
+		myDecayed = theDecayed;
+		myPairs = thePairs;
+		myGaps = theGaps;
+		if (theLookBack > 0) {
+			// the oldest draw if there are fewer than the look back
+			final int row = theFirst
+					+ Math.min(theLookBack, theHistory.size() - theFirst) - 1;
+			myPeriodicNumbers = new int[theHistory.numberOfBalls()];
+			for (int ball = 0; ball < myPeriodicNumbers.length; ball++) {
+				myPeriodicNumbers[ball] = theHistory.number(row, ball);
+			}
+			myPeriodicBonusBall = theHistory.bonusBall(row);
+		} else {
+			myPeriodicNumbers = null;
+			myPeriodicBonusBall = 0;
+		}
+	}
+
+	/**
+	 * Works out the statistics of a game that are asked for, without decayed
+	 * frequencies, pairs or gaps, and with the periodic draw the range divided
+	 * by the number of balls draws ago.
+	 *
+	 * @param theGame
+	 *            the game to analyze
+	 * @param theDraws
+	 *            the draws to count frequencies over
+	 * @param theFrequencies
+	 *            if the hot, cold or raw data algorithms will be run
+	 * @param thePeriodic
+	 *            if the periodic algorithm will be run
+	 * @return the statistics
+	 * @throws FileNotFoundException
+	 *             if the database file cannot be found
+	 */
+	public static DrawStatistics compute(final Lottery theGame,
+			final GetDraws theDraws, final boolean theFrequencies,
+			final boolean thePeriodic) throws FileNotFoundException {
+		int lookBack = 0;
+		if (thePeriodic) {
+			lookBack = theGame.getRange() / theGame.getNumberOfBalls();
+		}
+		return compute(theGame, theDraws, theFrequencies, lookBack, 0, false,
+				false, false);
+	}
+
+	/**
+	 * Works out the statistics of a game that are asked for. Frequencies of
+	 * unfiltered draws are read out as rank() reads them, and counted over
+	 * the selected rows of the history otherwise. Pairs are counted over the
+	 * same selected rows. The decayed frequencies and the gaps of the whole
+	 * history are kept up to date by DrawRepository.
+	 *
+	 * @param theGame
+	 *            the game to analyze
+	 * @param theDraws
+	 *            the draws to count frequencies over
+	 * @param theFrequencies
+	 *            if the hot, cold or raw data algorithms will be run
+	 * @param theLookBack
+	 *            how many draws ago the periodic draw is, 0 if the periodic
+	 *            algorithm will not be run
+	 * @param theHalfLife
+	 *            the half life of the decayed algorithm in draws, 0 if it
+	 *            will not be run
+	 * @param thePairs
+	 *            if the hot or cold pairs algorithms will be run
+	 * @param theTriples
+	 *            if the pairs algorithms pick from triples
+	 * @param theGaps
+	 *            if the overdue algorithm will be run
+	 * @return the statistics
+	 * @throws FileNotFoundException
+	 *             if the database file cannot be found
+	 */
+	public static DrawStatistics compute(final Lottery theGame,
+			final GetDraws theDraws, final boolean theFrequencies,
+			final int theLookBack, final int theHalfLife,
+			final boolean thePairs, final boolean theTriples,
+			final boolean theGaps) throws FileNotFoundException {
+		final DrawHistory history = DrawRepository.getHistory(theGame);
+		final DrawTable table = history.table();
+		Ranking[] frequencies = null;
+		final int[] window = theFrequencies || theHalfLife > 0 ? theDraws
+				.getWindow(history) : null;
+		final boolean whole = window != null && !theDraws.isFiltered()
+				&& window[0] == 0 && window[1] == history.size();
+		if (theFrequencies) {
+			frequencies = rank(history, theDraws.isFiltered(), window);
+			if (frequencies == null) {
+				frequencies = rank(HistogramCounter.count(table,
+						theDraws.getSelection(history), true,
+						theGame.hasBonusBall()));
+			}
+		}
+		DecayedFrequency decayed = null;
+		if (theHalfLife > 0 && whole) {
+			decayed = DrawRepository.getDecayed(history, theHalfLife);
+		} else if (theHalfLife > 0) {
+			decayed = DecayedFrequency.of(theDraws.getTable(history),
+					theHalfLife);
+		}
+		CoOccurrence pairs = null;
+		if (thePairs) {
+			pairs = CoOccurrence.of(table, theDraws.getSelection(history),
+					theGame.hasBonusBall(), theTriples);
+		}
+		GapStatistics gaps = null;
+		if (theGaps) {
+			gaps = DrawRepository.getGaps(history);
+		}
+		return new DrawStatistics(frequencies, decayed, pairs, gaps, table, 0,
+				theLookBack);
+	}
+
+	/**
+	 * Ranks the frequencies of a window of a history where they need no
+	 * counting, out of the statistics DrawRepository keeps if the window is
+	 * the whole history and out of the FrequencyIndex otherwise. Used by
+	 * compute(), StatisticsBatch and Replay alike.
+	 *
+	 * @param theHistory
+	 *            the history
+	 * @param theFiltered
+	 *            if the draws counted are filtered
+	 * @param theWindow
+	 *            the first row of the window and the row after the last
+	 * @return the rankings of the number balls and of the bonus balls, the
+	 *         second null if the game has no bonus ball, or null if the draws
+	 *         are filtered and must be counted
+	 */
+	static Ranking[] rank(final DrawHistory theHistory,
+			final boolean theFiltered, final int[] theWindow) {
+		if (theFiltered) {
+			return null;
+		}
+		final boolean bonusBall = theHistory.game().hasBonusBall();
+		final Ranking[] result = new Ranking[2];
+		if (theWindow[0] == 0 && theWindow[1] == theHistory.size()) {
+			final RunningStatistics statistics = DrawRepository
+					.getStatistics(theHistory);
+			result[0] = new Ranking(statistics.numbers());
+			if (bonusBall) {
+				result[1] = new Ranking(statistics.bonusBalls());
+			}
+		} else {
+			final FrequencyIndex index = theHistory.index();
+			result[0] = new Ranking(index.numbers(theWindow[0], theWindow[1]));
+			if (bonusBall) {
+				result[1] = new Ranking(index.bonusBalls(theWindow[0],
+						theWindow[1]));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Ranks counted frequencies.
+	 *
+	 * @param theCounts
+	 *            the finished histograms of the number balls and of the bonus
+	 *            balls, the second null if the game has no bonus ball
+	 * @return the rankings of the number balls and of the bonus balls
+	 */
+	static Ranking[] rank(final FrequencyHistogram[] theCounts) {
+		final Ranking[] result = new Ranking[2];
+		result[0] = new Ranking(theCounts[0]);
+		if (theCounts[1] != null) {
+			result[1] = new Ranking(theCounts[1]);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the ranking of the number balls.
+	 *
+	 * @return the ranking, null if frequencies were not asked for
+	 */
+	public Ranking numbers() {
+		return myNumbers;
+	}
+
+	/**
+	 * Returns the ranking of the bonus balls.
+	 *
+	 * @return the ranking, null if frequencies were not asked for or the game
+	 *         has no bonus ball
+	 */
+	public Ranking bonusBalls() {
+		return myBonusBalls;
+	}
+
+	/**
+	 * Returns the decayed frequencies.
+	 *
+	 * @return the scores, null if decayed frequencies were not asked for
+	 */
+	public DecayedFrequency decayed() {
+		return myDecayed;
+	}
+
+	/**
+	 * Returns the pair counts.
+	 *
+	 * @return the pair counts, null if pairs were not asked for
+	 */
+	public CoOccurrence pairs() {
+		return myPairs;
+	}
+
+	/**
+	 * Returns the gaps of the whole history.
+	 *
+	 * @return the gaps, null if gaps were not asked for
+	 */
+	public GapStatistics gaps() {
+		return myGaps;
+	}
+
+	/**
+	 * Returns the number balls of the periodic draw.
+	 *
+	 * @return the numbers, null if the periodic draw was not asked for
+	 */
+	public int[] periodicNumbers() {
+		return myPeriodicNumbers;
+	}
+
+	/**
+	 * Returns the bonus ball of the periodic draw.
+	 *
+	 * @return the bonus ball, 0 if the game has none
+	 */
+	public int periodicBonusBall() {
+		return myPeriodicBonusBall;
+	}
+}
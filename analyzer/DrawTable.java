@@ -0,0 +1,390 @@
+package analyzer;
+
+import java.util.List;
+
+import lotto.Lottery;
+
+/**
+ * The draw history of a game stored column by column in primitive arrays
+ * instead of one Draw object per drawing. Rows are in database order, so row
+ * 0 is the most recent draw. Every getter reads straight out of an array, so
+ * looping over a table allocates nothing. A table cannot be changed once
+ * made.
+ *
+ * @author Robert
+ */
+public final class DrawTable {
+
+	/**
+	 * The number of rows.
+	 */
+	private final int mySize;
+
+	/**
+	 * The number of number balls in each draw.
+	 */
+	private final int myNumberOfBalls;
+
+	/**
+	 * The number balls of every draw, one row after another.
+	 */
+	private final int[] myNumbers;
+
+	/**
+	 * The number of longs in the bitmask of each draw.
+	 */
+	private final int myMaskWords;
+
+	/**
+	 * The number balls of every draw as bitmasks, one row after another.
+	 */
+	private final long[] myMasks;
+
+	/**
+	 * The bonus ball of every draw, 0 where there is none.
+	 */
+	private final int[] myBonusBalls;
+
+	/**
+	 * The payout of every draw.
+	 */
+	private final long[] myPayouts;
+
+	/**
+	 * One bit per draw, set if the draw was a jackpot winner.
+	 */
+	private final long[] myJackpots;
+
+	/**
+	 * The date of every draw as an epoch day.
+	 */
+	private final int[] myDates;
+
+	/**
+	 * The number range of every draw.
+	 */
+	private final int[] myNumberRanges;
+
+	/**
+	 * The bonus ball range of every draw, 0 where there is none.
+	 */
+	private final int[] myBonusBallRanges;
+
+	/**
+	 * Creates a table of the given draws.
+	 *
+	 * @param theGame
+	 *            the game the draws belong to
+	 * @param theDraws
+	 *            the draws, most recent first
+	 */
+	public DrawTable(final Lottery theGame, final List<Draw> theDraws) {
+		this(theDraws.size(), theGame.getNumberOfBalls(), NumberMask
+				.words(highestNumber(theGame, theDraws)));
+		for (int row = 0; row < mySize; row++) {
+			final Draw draw = theDraws.get(row);
+			final int[] numbers = draw.numbers();
+			System.arraycopy(numbers, 0, myNumbers, row * myNumberOfBalls,
+					myNumberOfBalls);
+			for (final int number : numbers) {
+				NumberMask.set(myMasks, row * myMaskWords, number);
+			}
+			myBonusBalls[row] = draw.bonusBall();
+			myPayouts[row] = draw.payout();
+			if (draw.jackpotWinner()) {
+				myJackpots[row >>> 6] |= 1L << row;
+			}
+			myDates[row] = draw.epochDay();
+			myNumberRanges[row] = draw.numberRange();
+			myBonusBallRanges[row] = draw.bonusBallRange();
+		}
+	}
+
+	/**
+	 * Creates an empty table with room for the given number of rows.
+	 *
+	 * @param theSize
+	 *            the number of rows
+	 * @param theNumberOfBalls
+	 *            the number of number balls in each draw
+	 * @param theMaskWords
+	 *            the number of longs in each draw's bitmask
+	 */
+	private DrawTable(final int theSize, final int theNumberOfBalls,
+			final int theMaskWords) {
+		mySize = theSize;
+		myNumberOfBalls = theNumberOfBalls;
+		myNumbers = new int[theSize * theNumberOfBalls];
+		myMaskWords = theMaskWords;
+		myMasks = new long[theSize * theMaskWords];
+		myBonusBalls = new int[theSize];
+		myPayouts = new long[theSize];
+		myJackpots = new long[(theSize + 63) >>> 6];
+		myDates = new int[theSize];
+		myNumberRanges = new int[theSize];
+		myBonusBallRanges = new int[theSize];
+	}
+
+	/**
+	 * Returns a new table of the most recent draws of this, keeping only those
+	 * that match the given filters. This is the selection GetDraws makes.
+	 *
+	 * @param theCount
+	 *            how many of the most recent draws to look at
+	 * @param theJackpotOnly
+	 *            if only jackpot winners are kept
+	 * @param thePayout
+	 *            the minimum payout of the draws kept
+	 * @return a table of the matching draws
+	 */
+	public DrawTable select(final int theCount, final boolean theJackpotOnly,
+			final long thePayout) {
+		final int count = Math.min(theCount, mySize);
+		final int[] rows = new int[count];
+		int kept = 0;
+		for (int row = 0; row < count; row++) {
+			boolean keep = !theJackpotOnly || jackpotWinner(row);
+			keep = keep && myPayouts[row] >= thePayout;
+			if (keep) {
+				rows[kept] = row;
+				kept++;
+			}
+		}
+		return select(rows, kept);
+	}
+
+	/**
+	 * Returns a new table of the given rows of this, in the order given.
+	 *
+	 * @param theRows
+	 *            the rows to keep
+	 * @param theCount
+	 *            how many of the given rows to keep
+	 * @return a table of those draws
+	 */
+	public DrawTable select(final int[] theRows, final int theCount) {
+		final DrawTable result = new DrawTable(theCount, myNumberOfBalls,
+				myMaskWords);
+		for (int i = 0; i < theCount; i++) {
+			result.copyRow(this, theRows[i], i);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of draws in this.
+	 *
+	 * @return the number of rows
+	 */
+	public int size() {
+		return mySize;
+	}
+
+	/**
+	 * Returns the number of number balls in each draw.
+	 *
+	 * @return the number of balls
+	 */
+	public int numberOfBalls() {
+		return myNumberOfBalls;
+	}
+
+	/**
+	 * Returns one number ball of a draw.
+	 *
+	 * @param theRow
+	 *            the draw
+	 * @param theBall
+	 *            which ball, starting at 0
+	 * @return the number drawn
+	 */
+	public int number(final int theRow, final int theBall) {
+		return myNumbers[theRow * myNumberOfBalls + theBall];
+	}
+
+	/**
+	 * Returns true if the given number was drawn in the given draw.
+	 *
+	 * @param theRow
+	 *            the draw
+	 * @param theNumber
+	 *            the number to look for
+	 * @return if the number was drawn
+	 */
+	public boolean contains(final int theRow, final int theNumber) {
+		return NumberMask.contains(myMasks, theRow * myMaskWords, theNumber);
+	}
+
+	/**
+	 * Counts how many numbers of the given ticket were drawn in a draw.
+	 *
+	 * @param theRow
+	 *            the draw
+	 * @param theTicket
+	 *            the ticket's numbers as a bitmask
+	 * @return the number of matching numbers
+	 */
+	public int matches(final int theRow, final long[] theTicket) {
+		return NumberMask.matches(myMasks, theRow * myMaskWords, theTicket, 0,
+				Math.min(myMaskWords, theTicket.length));
+	}
+
+	/**
+	 * Returns the number of longs in each draw's bitmask.
+	 *
+	 * @return the number of mask words
+	 */
+	public int maskWords() {
+		return myMaskWords;
+	}
+
+	/**
+	 * Returns one word of a draw's bitmask, bit n set if n was drawn.
+	 *
+	 * @param theRow
+	 *            the draw
+	 * @param theWord
+	 *            which word of the mask
+	 * @return the word
+	 */
+	public long maskWord(final int theRow, final int theWord) {
+		return myMasks[theRow * myMaskWords + theWord];
+	}
+
+	/**
+	 * Returns the bonus ball of a draw.
+	 *
+	 * @param theRow
+	 *            the draw
+	 * @return the bonus ball, 0 if there is none
+	 */
+	public int bonusBall(final int theRow) {
+		return myBonusBalls[theRow];
+	}
+
+	/**
+	 * Returns true if a draw was a jackpot winner.
+	 *
+	 * @param theRow
+	 *            the draw
+	 * @return the jackpot status
+	 */
+	public boolean jackpotWinner(final int theRow) {
+		return (myJackpots[theRow >>> 6] & 1L << theRow) != 0;
+	}
+
+	/**
+	 * Returns the payout of a draw.
+	 *
+	 * @param theRow
+	 *            the draw
+	 * @return the total payout
+	 */
+	public long payout(final int theRow) {
+		return myPayouts[theRow];
+	}
+
+	/**
+	 * Returns the date of a draw.
+	 *
+	 * @param theRow
+	 *            the draw
+	 * @return the epoch day of the draw
+	 */
+	public int epochDay(final int theRow) {
+		return myDates[theRow];
+	}
+
+	/**
+	 * Finds the first row drawn on or before the given day. Rows are most
+	 * recent first, so this is a binary search on the dates, and the draws
+	 * between two days are the rows from firstRowOnOrBefore(last) up to
+	 * firstRowOnOrBefore(first - 1).
+	 *
+	 * @param theEpochDay
+	 *            the day to search for
+	 * @return the first row on or before the day, or size() if there is none
+	 */
+	public int firstRowOnOrBefore(final int theEpochDay) {
+		int low = 0;
+		int high = mySize;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (myDates[middle] > theEpochDay) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the number range of a draw.
+	 *
+	 * @param theRow
+	 *            the draw
+	 * @return the number range
+	 */
+	public int numberRange(final int theRow) {
+		return myNumberRanges[theRow];
+	}
+
+	/**
+	 * Returns the bonus ball range of a draw.
+	 *
+	 * @param theRow
+	 *            the draw
+	 * @return the bonus ball range, 0 if there is none
+	 */
+	public int bonusBallRange(final int theRow) {
+		return myBonusBallRanges[theRow];
+	}
+
+	/**
+	 * Copies one row of another table into this one while it is being built.
+	 *
+	 * @param theSource
+	 *            the table to copy from
+	 * @param theFrom
+	 *            the row to copy
+	 * @param theTo
+	 *            the row of this to fill
+	 */
+	private void copyRow(final DrawTable theSource, final int theFrom,
+			final int theTo) {
+		System.arraycopy(theSource.myNumbers, theFrom * myNumberOfBalls,
+				myNumbers, theTo * myNumberOfBalls, myNumberOfBalls);
+		System.arraycopy(theSource.myMasks, theFrom * myMaskWords, myMasks,
+				theTo * myMaskWords, myMaskWords);
+		myBonusBalls[theTo] = theSource.myBonusBalls[theFrom];
+		myPayouts[theTo] = theSource.myPayouts[theFrom];
+		if (theSource.jackpotWinner(theFrom)) {
+			myJackpots[theTo >>> 6] |= 1L << theTo;
+		}
+		myDates[theTo] = theSource.myDates[theFrom];
+		myNumberRanges[theTo] = theSource.myNumberRanges[theFrom];
+		myBonusBallRanges[theTo] = theSource.myBonusBallRanges[theFrom];
+	}
+
+	/**
+	 * Returns the highest number the masks of the given draws must hold.
+	 *
+	 * @param theGame
+	 *            the game of the draws
+	 * @param theDraws
+	 *            the draws
+	 * @return the highest range or number found
+	 */
+	private static int highestNumber(final Lottery theGame,
+			final List<Draw> theDraws) {
+		int highest = theGame.getRange();
+		for (final Draw draw : theDraws) {
+			highest = Math.max(highest, draw.numberRange());
+			for (final int number : draw.numbers()) {
+				highest = Math.max(highest, number);
+			}
+		}
+		return highest;
+	}
+}
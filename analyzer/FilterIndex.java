@@ -0,0 +1,282 @@
+package analyzer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Bitmap indexes over the filters GetDraws can apply to a game's history.
+ * The jackpot winners are kept as one bit per draw, and the draws are kept in
+ * order of payout, highest first, so the draws paid over any amount are the
+ * first few of that order and are found with a binary search. A selection is
+ * a bitset of the rows of the history: the window of recent draws, the
+ * jackpot bits and the payout bits are combined a word at a time, and
+ * whoever counts the selection only visits the set bits. When more draws
+ * were paid over the amount than the window holds, the payouts of the window
+ * are checked directly instead, as that touches fewer rows.
+ *
+ * @author Robert
+ */
+public final class FilterIndex {
+
+	/**
+	 * The number of draws indexed.
+	 */
+	private final int mySize;
+
+	/**
+	 * One bit per row, set if the draw was a jackpot winner.
+	 */
+	private final long[] myJackpots;
+
+	/**
+	 * Every row, in order of payout, highest first.
+	 */
+	private final int[] myByPayout;
+
+	/**
+	 * The payout of each row of myByPayout.
+	 */
+	private final long[] myPayouts;
+
+	/**
+	 * The payout of each row, in row order.
+	 */
+	private final long[] myRowPayouts;
+
+	/**
+	 * Indexes every draw of a history.
+	 *
+	 * @param theHistory
+	 *            the draws, most recent first
+	 */
+	public FilterIndex(final DrawTable theHistory) {
+		this(payouts(theHistory), jackpotRows(theHistory),
+				payoutOrder(theHistory));
+	}
+
+	/**
+	 * Makes the index from the parts worked out of a history.
+	 *
+	 * @param theRowPayouts
+	 *            the payout of each row, in row order
+	 * @param theJackpotRows
+	 *            the rows of the jackpot winners
+	 * @param theByPayout
+	 *            every row, in order of payout, highest first
+	 */
+	private FilterIndex(final long[] theRowPayouts, final int[] theJackpotRows,
+			final int[] theByPayout) {
+		mySize = theRowPayouts.length;
+		myRowPayouts = theRowPayouts;
+		myByPayout = theByPayout;
+		myJackpots = new long[words(mySize)];
+		for (final int row : theJackpotRows) {
+			myJackpots[row >>> 6] |= 1L << row;
+		}
+		myPayouts = new long[mySize];
+		for (int i = 0; i < mySize; i++) {
+			myPayouts[i] = theRowPayouts[theByPayout[i]];
+		}
+	}
+
+	/**
+	 * Returns the number of draws indexed.
+	 *
+	 * @return the size of the history
+	 */
+	public int size() {
+		return mySize;
+	}
+
+	/**
+	 * Selects the rows of a window of the history that pass the given
+	 * filters.
+	 *
+	 * @param theFirst
+	 *            the first row of the window, most recent first
+	 * @param theEnd
+	 *            the row after the last
+	 * @param theJackpotOnly
+	 *            if only jackpot winners are kept
+	 * @param thePayout
+	 *            the minimum payout of the draws kept
+	 * @return one bit per row of the history, set if the row is selected
+	 */
+	public long[] select(final int theFirst, final int theEnd,
+			final boolean theJackpotOnly, final long thePayout) {
+		final long[] result = new long[words(mySize)];
+		if (theFirst >= theEnd) {
+			return result;
+		}
+		final int firstWord = theFirst >>> 6;
+		final int lastWord = (theEnd - 1) >>> 6;
+		Arrays.fill(result, firstWord, lastWord + 1, -1L);
+		result[firstWord] &= -1L << theFirst;
+		result[lastWord] &= -1L >>> -theEnd;
+		if (theJackpotOnly) {
+			for (int w = firstWord; w <= lastWord; w++) {
+				result[w] &= myJackpots[w];
+			}
+		}
+		if (thePayout > 0) {
+			final int paidCount = paidOverCount(thePayout);
+			if (paidCount > theEnd - theFirst) {
+				for (int row = theFirst; row < theEnd; row++) {
+					if (myRowPayouts[row] < thePayout) {
+						result[row >>> 6] &= ~(1L << row);
+					}
+				}
+			} else {
+				final long[] paid = paidOver(paidCount);
+				for (int w = firstWord; w <= lastWord; w++) {
+					result[w] &= paid[w];
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Selects the rows of a window of the history that pass the given
+	 * filters, as a list of rows.
+	 *
+	 * @param theFirst
+	 *            the first row of the window, most recent first
+	 * @param theEnd
+	 *            the row after the last
+	 * @param theJackpotOnly
+	 *            if only jackpot winners are kept
+	 * @param thePayout
+	 *            the minimum payout of the draws kept
+	 * @return the selected rows in increasing order
+	 */
+	public int[] rows(final int theFirst, final int theEnd,
+			final boolean theJackpotOnly, final long thePayout) {
+		final int end = Math.min(theEnd, mySize);
+		final long[] selection = select(theFirst, end, theJackpotOnly,
+				thePayout);
+		int count = 0;
+		for (final long word : selection) {
+			count += Long.bitCount(word);
+		}
+		final int[] rows = new int[count];
+		int next = 0;
+		for (int w = 0; w < selection.length; w++) {
+			long word = selection[w];
+			while (word != 0) {
+				rows[next++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Returns how many draws were paid at least the given amount, which is
+	 * where the first lower payout sits in the payout order.
+	 *
+	 * @param thePayout
+	 *            the minimum payout
+	 * @return the number of draws paid that much
+	 */
+	private int paidOverCount(final long thePayout) {
+		int low = 0;
+		int high = mySize;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (myPayouts[middle] >= thePayout) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the best paid draws as a bitset, marking the first rows of the
+	 * payout order.
+	 *
+	 * @param theCount
+	 *            how many of the best paid draws to mark
+	 * @return one bit per row, set if the draw is among them
+	 */
+	private long[] paidOver(final int theCount) {
+		final long[] result = new long[words(mySize)];
+		for (int i = 0; i < theCount; i++) {
+			final int row = myByPayout[i];
+			result[row >>> 6] |= 1L << row;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the payout of each row of a history.
+	 *
+	 * @param theHistory
+	 *            the draws, most recent first
+	 * @return the payouts in row order
+	 */
+	private static long[] payouts(final DrawTable theHistory) {
+		final long[] payouts = new long[theHistory.size()];
+		for (int row = 0; row < payouts.length; row++) {
+			payouts[row] = theHistory.payout(row);
+		}
+		return payouts;
+	}
+
+	/**
+	 * Returns the rows of the jackpot winners of a history.
+	 *
+	 * @param theHistory
+	 *            the draws, most recent first
+	 * @return the rows in increasing order
+	 */
+	private static int[] jackpotRows(final DrawTable theHistory) {
+		final int[] rows = new int[theHistory.size()];
+		int count = 0;
+		for (int row = 0; row < rows.length; row++) {
+			if (theHistory.jackpotWinner(row)) {
+				rows[count++] = row;
+			}
+		}
+		return Arrays.copyOf(rows, count);
+	}
+
+	/**
+	 * Returns every row of a history in order of payout, highest first.
+	 *
+	 * @param theHistory
+	 *            the draws, most recent first
+	 * @return the rows in payout order
+	 */
+	private static int[] payoutOrder(final DrawTable theHistory) {
+		final Integer[] rows = new Integer[theHistory.size()];
+		for (int row = 0; row < rows.length; row++) {
+			rows[row] = row;
+		}
+		// stable, so rows of equal payout stay most recent first
+		Arrays.sort(rows, new Comparator<Integer>() {
+			public int compare(final Integer theFirst, final Integer theSecond) {
+				return Long.compare(theHistory.payout(theSecond),
+						theHistory.payout(theFirst));
+			}
+		});
+		final int[] result = new int[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			result[i] = rows[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of longs holding one bit per row.
+	 *
+	 * @param theSize
+	 *            the number of rows
+	 * @return the number of words
+	 */
+	private static int words(final int theSize) {
+		return (theSize + 63) >>> 6;
+	}
+}
@@ -0,0 +1,225 @@
+package analyzer;
+
+/**
+ * How often each number came up in a set of draws, kept as plain int counts.
+ * Each draw adds one to the count of each ball it drew and one to the number
+ * of draws seen at its range, so filling a histogram touches only the drawn
+ * balls and allocates nothing. A number can only be drawn in draws whose range
+ * reaches it, so the denominator of its frequency is the number of draws with
+ * a range of at least that number, which is a suffix sum over the draws seen
+ * at each range.
+ *
+ * @author Robert
+ */
+public final class FrequencyHistogram {
+
+	/**
+	 * The number of times each number was drawn, indexed by number.
+	 */
+	private final int[] myCounts;
+
+	/**
+	 * The number of draws seen at each range, indexed by range.
+	 */
+	private final int[] myDrawsAtRange;
+
+	/**
+	 * The number of draws whose range reaches each number, indexed by number.
+	 * Filled in from myDrawsAtRange once the histogram is complete.
+	 */
+	private final int[] myDraws;
+
+	/**
+	 * The highest range of any draw added.
+	 */
+	private int myHighest;
+
+	/**
+	 * Creates an empty histogram for numbers up to the given range. Draws are
+	 * added with addNumbers() or addBonusBall(), and finish() is called once
+	 * they all are.
+	 *
+	 * @param theRange
+	 *            the highest range any draw will have
+	 */
+	FrequencyHistogram(final int theRange) {
+		myCounts = new int[theRange + 1];
+		myDrawsAtRange = new int[theRange + 1];
+		myDraws = new int[theRange + 1];
+	}
+
+	/**
+	 * Counts the number balls of every draw in the given table.
+	 *
+	 * @param theDraws
+	 *            the draws to count
+	 * @return the histogram of their number balls
+	 */
+	public static FrequencyHistogram ofNumbers(final DrawTable theDraws) {
+		return HistogramCounter.count(theDraws, null, true, false)[0];
+	}
+
+	/**
+	 * Counts the bonus ball of every draw in the given table.
+	 *
+	 * @param theDraws
+	 *            the draws to count
+	 * @return the histogram of their bonus balls
+	 */
+	public static FrequencyHistogram ofBonusBalls(final DrawTable theDraws) {
+		return HistogramCounter.count(theDraws, null, false, true)[1];
+	}
+
+	/**
+	 * Returns the highest number counted, which is the highest range of any
+	 * draw. Numbers from 1 up to this have a frequency.
+	 *
+	 * @return the highest number
+	 */
+	public int highestNumber() {
+		return myHighest;
+	}
+
+	/**
+	 * Returns the number of times the given number was drawn.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return the number of occurrences
+	 */
+	public int count(final int theNumber) {
+		return myCounts[theNumber];
+	}
+
+	/**
+	 * Returns the number of draws in which the given number could have been
+	 * drawn.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return the number of draws whose range reaches it
+	 */
+	public int draws(final int theNumber) {
+		return myDraws[theNumber];
+	}
+
+	/**
+	 * Returns the frequency of the given number.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return occurrences over draws whose range reaches it
+	 */
+	public Percentage percentage(final int theNumber) {
+		return new Percentage(myCounts[theNumber], myDraws[theNumber]);
+	}
+
+	/**
+	 * Counts the number balls of one draw, walking the set bits of its mask.
+	 *
+	 * @param theDraws
+	 *            the table holding the draw
+	 * @param theRow
+	 *            the draw
+	 */
+	void addNumbers(final DrawTable theDraws, final int theRow) {
+		final int range = theDraws.numberRange(theRow);
+		for (int w = 0; w < theDraws.maskWords(); w++) {
+			long word = theDraws.maskWord(theRow, w);
+			while (word != 0) {
+				final int number = (w << 6) + Long.numberOfTrailingZeros(word);
+				if (number >= 1 && number <= range) {
+					myCounts[number]++;
+				}
+				word &= word - 1;
+			}
+		}
+		addDraw(range);
+	}
+
+	/**
+	 * Counts the bonus ball of one draw.
+	 *
+	 * @param theDraws
+	 *            the table holding the draw
+	 * @param theRow
+	 *            the draw
+	 */
+	void addBonusBall(final DrawTable theDraws, final int theRow) {
+		final int range = theDraws.bonusBallRange(theRow);
+		final int bonusBall = theDraws.bonusBall(theRow);
+		if (bonusBall >= 1 && bonusBall <= range) {
+			myCounts[bonusBall]++;
+		}
+		addDraw(range);
+	}
+
+	/**
+	 * Sets the counts of one number in place of adding draws, for a histogram
+	 * worked out from a FrequencyIndex.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @param theCount
+	 *            the number of times it was drawn
+	 * @param theDrawsAtRange
+	 *            the number of draws whose range was this number
+	 */
+	void set(final int theNumber, final int theCount,
+			final int theDrawsAtRange) {
+		myCounts[theNumber] = theCount;
+		myDrawsAtRange[theNumber] = theDrawsAtRange;
+		if (theDrawsAtRange > 0) {
+			myHighest = Math.max(myHighest, theNumber);
+		}
+	}
+
+	/**
+	 * Adds two unfinished histograms together. The counts of the smaller are
+	 * added into the larger, which is returned.
+	 *
+	 * @param theFirst
+	 *            a histogram
+	 * @param theSecond
+	 *            another histogram
+	 * @return the histogram of the draws of both
+	 */
+	static FrequencyHistogram merge(final FrequencyHistogram theFirst,
+			final FrequencyHistogram theSecond) {
+		FrequencyHistogram result = theFirst;
+		FrequencyHistogram other = theSecond;
+		if (theSecond.myCounts.length > theFirst.myCounts.length) {
+			result = theSecond;
+			other = theFirst;
+		}
+		for (int number = 0; number < other.myCounts.length; number++) {
+			result.myCounts[number] += other.myCounts[number];
+			result.myDrawsAtRange[number] += other.myDrawsAtRange[number];
+		}
+		result.myHighest = Math.max(result.myHighest, other.myHighest);
+		return result;
+	}
+
+	/**
+	 * Turns the draws seen at each range into the draws reaching each number.
+	 * Called once every draw has been added.
+	 */
+	void finish() {
+		int draws = 0;
+		for (int number = myHighest; number >= 1; number--) {
+			draws += myDrawsAtRange[number];
+			myDraws[number] = draws;
+		}
+	}
+
+	/**
+	 * Records one draw with the given range.
+	 *
+	 * @param theRange
+	 *            the range of the draw
+	 */
+	private void addDraw(final int theRange) {
+		myDrawsAtRange[theRange]++;
+		myHighest = Math.max(myHighest, theRange);
+	}
+}
@@ -0,0 +1,305 @@
+package analyzer;
+
+import java.util.Arrays;
+
+/**
+ * Running totals of how often each number came up in a game's history, so
+ * the frequencies over any run of consecutive draws are the difference of two
+ * rows. The totals are kept from the oldest draw forward: row p holds the
+ * counts over the p oldest draws, for the number balls and the bonus balls,
+ * along with how many of those draws were made at each range. Counting the
+ * most recent n draws is then O(range) however long the history is.
+ *
+ * New draws only ever add rows at the end, so an index is extended in place
+ * of being rebuilt when the updater puts new draws on top of the history. The
+ * rows an index holds never change, and an extended index shares them with
+ * the index it was extended from.
+ *
+ * @author Robert
+ */
+public final class FrequencyIndex {
+
+	/**
+	 * The number of draws indexed.
+	 */
+	private final int mySize;
+
+	/**
+	 * The running totals of the number balls.
+	 */
+	private final Totals myNumbers;
+
+	/**
+	 * The running totals of the bonus balls.
+	 */
+	private final Totals myBonusBalls;
+
+	/**
+	 * Creates an index of the given size over the given totals.
+	 *
+	 * @param theSize
+	 *            the number of draws indexed
+	 * @param theNumbers
+	 *            the totals of the number balls
+	 * @param theBonusBalls
+	 *            the totals of the bonus balls
+	 */
+	private FrequencyIndex(final int theSize, final Totals theNumbers,
+			final Totals theBonusBalls) {
+		mySize = theSize;
+		myNumbers = theNumbers;
+		myBonusBalls = theBonusBalls;
+	}
+
+	/**
+	 * Indexes every draw of a history.
+	 *
+	 * @param theHistory
+	 *            the draws, most recent first
+	 * @return the index
+	 */
+	public static FrequencyIndex of(final DrawTable theHistory) {
+		int highest = 0;
+		int highestBonus = 0;
+		for (int row = 0; row < theHistory.size(); row++) {
+			highest = Math.max(highest, theHistory.numberRange(row));
+			highestBonus = Math.max(highestBonus,
+					theHistory.bonusBallRange(row));
+		}
+		final Totals numbers = new Totals(highest, theHistory.size(), false);
+		final Totals bonusBalls = new Totals(highestBonus, theHistory.size(),
+				true);
+		for (int position = 1; position <= theHistory.size(); position++) {
+			final int row = theHistory.size() - position;
+			numbers.add(theHistory, row, position);
+			bonusBalls.add(theHistory, row, position);
+		}
+		return new FrequencyIndex(theHistory.size(), numbers, bonusBalls);
+	}
+
+	/**
+	 * Returns an index of the given history, which must be the history of
+	 * this with newer draws on top. Only the new draws are counted, unless
+	 * their ranges are higher than any this has room for, in which case the
+	 * history is indexed again. Only the newest index of a history may be
+	 * extended, as the rows past its end are shared.
+	 *
+	 * @param theHistory
+	 *            the draws, most recent first
+	 * @return the index of the whole history
+	 */
+	public FrequencyIndex extend(final DrawTable theHistory) {
+		final int added = theHistory.size() - mySize;
+		for (int row = 0; row < added; row++) {
+			if (!myNumbers.fits(theHistory.numberRange(row))
+					|| !myBonusBalls.fits(theHistory.bonusBallRange(row))) {
+				return of(theHistory);
+			}
+		}
+		final Totals numbers = myNumbers.reserve(theHistory.size());
+		final Totals bonusBalls = myBonusBalls.reserve(theHistory.size());
+		for (int position = mySize + 1; position <= theHistory.size(); position++) {
+			final int row = theHistory.size() - position;
+			numbers.add(theHistory, row, position);
+			bonusBalls.add(theHistory, row, position);
+		}
+		return new FrequencyIndex(theHistory.size(), numbers, bonusBalls);
+	}
+
+	/**
+	 * Returns the number of draws indexed.
+	 *
+	 * @return the size of the history
+	 */
+	public int size() {
+		return mySize;
+	}
+
+	/**
+	 * Counts the number balls of a run of rows of the history.
+	 *
+	 * @param theFirst
+	 *            the first row, most recent first
+	 * @param theEnd
+	 *            the row after the last
+	 * @return the histogram of their number balls
+	 */
+	public FrequencyHistogram numbers(final int theFirst, final int theEnd) {
+		return myNumbers.window(mySize - theEnd, mySize - theFirst);
+	}
+
+	/**
+	 * Counts the bonus balls of a run of rows of the history.
+	 *
+	 * @param theFirst
+	 *            the first row, most recent first
+	 * @param theEnd
+	 *            the row after the last
+	 * @return the histogram of their bonus balls
+	 */
+	public FrequencyHistogram bonusBalls(final int theFirst, final int theEnd) {
+		return myBonusBalls.window(mySize - theEnd, mySize - theFirst);
+	}
+
+	/**
+	 * The running totals of one kind of ball, a row of counts by number and a
+	 * row of draws by range for each position, packed one after another.
+	 *
+	 * @author Robert
+	 */
+	private static final class Totals {
+
+		/**
+		 * The length of each row, one more than the highest range.
+		 */
+		private final int myWidth;
+
+		/**
+		 * If these are totals of the bonus balls.
+		 */
+		private final boolean myBonus;
+
+		/**
+		 * The running count of each number, row after row.
+		 */
+		private final int[] myCounts;
+
+		/**
+		 * The running count of draws at each range, row after row.
+		 */
+		private final int[] myRanges;
+
+		/**
+		 * Creates totals with room for the given number of draws, row 0 being
+		 * all zeros.
+		 *
+		 * @param theRange
+		 *            the highest range of any draw
+		 * @param theCapacity
+		 *            the number of draws there is room for
+		 * @param theBonus
+		 *            if bonus balls are counted
+		 */
+		private Totals(final int theRange, final int theCapacity,
+				final boolean theBonus) {
+			this(theRange + 1, theBonus, new int[(theCapacity + 1)
+					* (theRange + 1)], new int[(theCapacity + 1)
+					* (theRange + 1)]);
+		}
+
+		/**
+		 * Creates totals over the given rows.
+		 *
+		 * @param theWidth
+		 *            the length of each row
+		 * @param theBonus
+		 *            if bonus balls are counted
+		 * @param theCounts
+		 *            the running counts of each number
+		 * @param theRanges
+		 *            the running counts of draws at each range
+		 */
+		private Totals(final int theWidth, final boolean theBonus,
+				final int[] theCounts, final int[] theRanges) {
+			myWidth = theWidth;
+			myBonus = theBonus;
+			myCounts = theCounts;
+			myRanges = theRanges;
+		}
+
+		/**
+		 * Returns true if a draw of the given range can be counted.
+		 *
+		 * @param theRange
+		 *            the range of the draw
+		 * @return if the range fits in a row
+		 */
+		private boolean fits(final int theRange) {
+			return theRange < myWidth;
+		}
+
+		/**
+		 * Returns totals sharing the rows of these with room for the given
+		 * number of draws, growing the arrays by at least half if they are too
+		 * small.
+		 *
+		 * @param theCapacity
+		 *            the number of draws there must be room for
+		 * @return totals with enough room
+		 */
+		private Totals reserve(final int theCapacity) {
+			final int length = (theCapacity + 1) * myWidth;
+			if (length <= myCounts.length) {
+				return this;
+			}
+			final int grown = Math.max(length, myCounts.length
+					+ (myCounts.length >> 1));
+			return new Totals(myWidth, myBonus,
+					Arrays.copyOf(myCounts, grown), Arrays.copyOf(myRanges,
+							grown));
+		}
+
+		/**
+		 * Fills the row at the given position from the row before it and one
+		 * more draw.
+		 *
+		 * @param theHistory
+		 *            the table holding the draw
+		 * @param theRow
+		 *            the draw
+		 * @param thePosition
+		 *            the row of totals to fill, at least 1
+		 */
+		private void add(final DrawTable theHistory, final int theRow,
+				final int thePosition) {
+			final int to = thePosition * myWidth;
+			System.arraycopy(myCounts, to - myWidth, myCounts, to, myWidth);
+			System.arraycopy(myRanges, to - myWidth, myRanges, to, myWidth);
+			if (myBonus) {
+				final int range = theHistory.bonusBallRange(theRow);
+				final int bonusBall = theHistory.bonusBall(theRow);
+				if (bonusBall >= 1 && bonusBall <= range) {
+					myCounts[to + bonusBall]++;
+				}
+				myRanges[to + range]++;
+				return;
+			}
+			final int range = theHistory.numberRange(theRow);
+			for (int w = 0; w < theHistory.maskWords(); w++) {
+				long word = theHistory.maskWord(theRow, w);
+				while (word != 0) {
+					final int number = (w << 6) + Long.numberOfTrailingZeros(word);
+					if (number >= 1 && number <= range) {
+						myCounts[to + number]++;
+					}
+					word &= word - 1;
+				}
+			}
+			myRanges[to + range]++;
+		}
+
+		/**
+		 * Subtracts two rows into a histogram.
+		 *
+		 * @param theOlder
+		 *            the position before the oldest draw of the window
+		 * @param theNewer
+		 *            the position of the newest draw of the window
+		 * @return the histogram of the draws in between
+		 */
+		private FrequencyHistogram window(final int theOlder,
+				final int theNewer) {
+			final FrequencyHistogram result = new FrequencyHistogram(
+					myWidth - 1);
+			final int older = theOlder * myWidth;
+			final int newer = theNewer * myWidth;
+			for (int number = 1; number < myWidth; number++) {
+				result.set(number, myCounts[newer + number]
+						- myCounts[older + number], myRanges[newer + number]
+						- myRanges[older + number]);
+			}
+			result.finish();
+			return result;
+		}
+	}
+}
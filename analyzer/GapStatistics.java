@@ -0,0 +1,494 @@
+package analyzer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The gaps between the draws each number came up in over a game's history.
+ * For the number balls and the bonus balls it holds the last draw each number
+ * was seen in, how many gaps it has had, their total and a histogram of their
+ * lengths, where a gap is the number of draws from one time a number is drawn
+ * to the next. The current gap of a number is the number of draws since it
+ * was last seen, and a number is overdue by its current gap over its mean
+ * gap. Adding a draw costs O(balls), so gaps are kept up to date by adding
+ * the new draws rather than by going over the history again, and every
+ * question is answered in O(range). Gaps cannot be changed once made;
+ * extend() makes new ones, which share the gap histograms of the numbers the
+ * new draws do not change.
+ *
+ * @author Robert
+ */
+public final class GapStatistics {
+
+	/**
+	 * The number of draws added.
+	 */
+	private final int mySize;
+
+	/**
+	 * The gaps of the number balls.
+	 */
+	private final Gaps myNumbers;
+
+	/**
+	 * The gaps of the bonus balls.
+	 */
+	private final Gaps myBonusBalls;
+
+	/**
+	 * Creates gaps from their parts.
+	 *
+	 * @param theSize
+	 *            the number of draws added
+	 * @param theNumbers
+	 *            the gaps of the number balls
+	 * @param theBonusBalls
+	 *            the gaps of the bonus balls
+	 */
+	private GapStatistics(final int theSize, final Gaps theNumbers,
+			final Gaps theBonusBalls) {
+		mySize = theSize;
+		myNumbers = theNumbers;
+		myBonusBalls = theBonusBalls;
+	}
+
+	/**
+	 * Works out the gaps of every draw of a table.
+	 *
+	 * @param theDraws
+	 *            the draws, most recent first
+	 * @return the gaps
+	 */
+	public static GapStatistics of(final DrawTable theDraws) {
+		return of(theDraws, 0);
+	}
+
+	/**
+	 * Works out the gaps of the draws of a table from the given row on, as
+	 * they stood before any of the draws above it were drawn.
+	 *
+	 * @param theDraws
+	 *            the draws, most recent first
+	 * @param theFirst
+	 *            the most recent row to add
+	 * @return the gaps
+	 */
+	static GapStatistics of(final DrawTable theDraws, final int theFirst) {
+		return new GapStatistics(0, new Gaps(), new Gaps()).add(theDraws,
+				theFirst, theDraws.size() - theFirst);
+	}
+
+	/**
+	 * Returns the gaps of the given history, which must be the history of
+	 * this with newer draws on top. Only the new draws are added.
+	 *
+	 * @param theHistory
+	 *            the draws, most recent first
+	 * @return the gaps of the whole history
+	 */
+	public GapStatistics extend(final DrawTable theHistory) {
+		return extend(theHistory, 0);
+	}
+
+	/**
+	 * Returns the gaps of the given history from the given row on, which
+	 * must be the draws of this with newer draws on top. Only the new draws
+	 * are added.
+	 *
+	 * @param theHistory
+	 *            the draws, most recent first
+	 * @param theFirst
+	 *            the most recent row to add
+	 * @return the gaps of the history from that row on
+	 */
+	GapStatistics extend(final DrawTable theHistory, final int theFirst) {
+		return new GapStatistics(mySize, myNumbers.copy(), myBonusBalls.copy())
+				.add(theHistory, theFirst,
+						theHistory.size() - theFirst - mySize);
+	}
+
+	/**
+	 * Returns the number of draws added.
+	 *
+	 * @return the number of draws
+	 */
+	public int size() {
+		return mySize;
+	}
+
+	/**
+	 * Returns the last draw a number ball was seen in.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return how many draws had been added when it was last drawn, 0 if it
+	 *         never was
+	 */
+	public int lastSeen(final int theNumber) {
+		return myNumbers.lastSeen(theNumber);
+	}
+
+	/**
+	 * Returns the number of draws since a number ball was last seen.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return 0 if it was in the most recent draw, the number of draws if it
+	 *         was never drawn
+	 */
+	public int currentGap(final int theNumber) {
+		return mySize - myNumbers.lastSeen(theNumber);
+	}
+
+	/**
+	 * Returns the mean gap of a number ball.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return the mean number of draws between its appearances, 0 if it was
+	 *         drawn less than twice
+	 */
+	public double meanGap(final int theNumber) {
+		return myNumbers.meanGap(theNumber);
+	}
+
+	/**
+	 * Returns how often a number ball had each length of gap.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return the number of gaps of each length, indexed by length
+	 */
+	public int[] gapHistogram(final int theNumber) {
+		return myNumbers.histogram(theNumber);
+	}
+
+	/**
+	 * Returns the number of draws since a bonus ball was last seen.
+	 *
+	 * @param theNumber
+	 *            the bonus ball
+	 * @return 0 if it was in the most recent draw, the number of draws if it
+	 *         never was drawn
+	 */
+	public int bonusBallCurrentGap(final int theNumber) {
+		return mySize - myBonusBalls.lastSeen(theNumber);
+	}
+
+	/**
+	 * Returns the mean gap of a bonus ball.
+	 *
+	 * @param theNumber
+	 *            the bonus ball
+	 * @return the mean number of draws between its appearances, 0 if it was
+	 *         drawn less than twice
+	 */
+	public double bonusBallMeanGap(final int theNumber) {
+		return myBonusBalls.meanGap(theNumber);
+	}
+
+	/**
+	 * Returns how often a bonus ball had each length of gap.
+	 *
+	 * @param theNumber
+	 *            the bonus ball
+	 * @return the number of gaps of each length, indexed by length
+	 */
+	public int[] bonusBallGapHistogram(final int theNumber) {
+		return myBonusBalls.histogram(theNumber);
+	}
+
+	/**
+	 * Picks the most overdue number balls, those whose current gap is the
+	 * most mean gaps long. A number drawn less than twice takes the whole
+	 * history as its mean gap, so every number up to the maximum is a
+	 * candidate, even one never drawn. Numbers as overdue as the last one
+	 * picked are picked with it.
+	 *
+	 * @param theSize
+	 *            the minimum number of numbers to pick
+	 * @param theMax
+	 *            the highest number that can be picked
+	 * @return the picked numbers in increasing order
+	 */
+	public int[] overdue(final int theSize, final int theMax) {
+		return myNumbers.overdue(mySize, theSize, theMax);
+	}
+
+	/**
+	 * Picks the most overdue bonus balls, the same way overdue() picks the
+	 * number balls.
+	 *
+	 * @param theSize
+	 *            the minimum number of bonus balls to pick
+	 * @param theMax
+	 *            the highest bonus ball that can be picked
+	 * @return the picked bonus balls in increasing order
+	 */
+	public int[] overdueBonusBalls(final int theSize, final int theMax) {
+		return myBonusBalls.overdue(mySize, theSize, theMax);
+	}
+
+	/**
+	 * Adds the given number of rows of a table from the given row down,
+	 * oldest first, to these gaps while they are being made.
+	 *
+	 * @param theDraws
+	 *            the draws, most recent first
+	 * @param theFirst
+	 *            the most recent row to add
+	 * @param theCount
+	 *            how many rows to add
+	 * @return gaps of the draws of this and the added rows
+	 */
+	private GapStatistics add(final DrawTable theDraws, final int theFirst,
+			final int theCount) {
+		int draw = mySize;
+		for (int row = theFirst + theCount - 1; row >= theFirst; row--) {
+			draw++;
+			final int range = theDraws.numberRange(row);
+			for (int w = 0; w < theDraws.maskWords(); w++) {
+				long word = theDraws.maskWord(row, w);
+				while (word != 0) {
+					final int number = (w << 6) + Long.numberOfTrailingZeros(word);
+					if (number >= 1 && number <= range) {
+						myNumbers.add(number, draw);
+					}
+					word &= word - 1;
+				}
+			}
+			final int bonusBall = theDraws.bonusBall(row);
+			if (bonusBall >= 1 && bonusBall <= theDraws.bonusBallRange(row)) {
+				myBonusBalls.add(bonusBall, draw);
+			}
+		}
+		return new GapStatistics(draw, myNumbers, myBonusBalls);
+	}
+
+	/**
+	 * The gaps of one kind of ball, indexed by number and grown as higher
+	 * numbers are drawn.
+	 *
+	 * @author Robert
+	 */
+	private static final class Gaps {
+
+		/**
+		 * The draw each number was last seen in, 0 for never.
+		 */
+		private int[] myLastSeen;
+
+		/**
+		 * The number of gaps each number has had.
+		 */
+		private int[] myGapCounts;
+
+		/**
+		 * The total length of the gaps of each number.
+		 */
+		private long[] myGapTotals;
+
+		/**
+		 * The number of gaps of each length of each number, indexed by number
+		 * and then by length, grown as longer gaps are seen.
+		 */
+		private int[][] myHistograms;
+
+		/**
+		 * Whether each histogram belongs to these gaps alone, and so can be
+		 * written to, rather than being shared with the gaps copied from.
+		 */
+		private boolean[] myOwned;
+
+		/**
+		 * Creates gaps of no draws.
+		 */
+		private Gaps() {
+			this(new int[1], new int[1], new long[1], new int[1][0],
+					new boolean[1]);
+		}
+
+		/**
+		 * Creates gaps over the given arrays, all of the same length.
+		 *
+		 * @param theLastSeen
+		 *            the last draw of each number
+		 * @param theGapCounts
+		 *            the number of gaps of each number
+		 * @param theGapTotals
+		 *            the total gap of each number
+		 * @param theHistograms
+		 *            the gap lengths of each number
+		 * @param theOwned
+		 *            whether each histogram can be written to
+		 */
+		private Gaps(final int[] theLastSeen, final int[] theGapCounts,
+				final long[] theGapTotals, final int[][] theHistograms,
+				final boolean[] theOwned) {
+			myLastSeen = theLastSeen;
+			myGapCounts = theGapCounts;
+			myGapTotals = theGapTotals;
+			myHistograms = theHistograms;
+			myOwned = theOwned;
+		}
+
+		/**
+		 * Copies these gaps, so draws can be added to the copy. The
+		 * histograms are shared until the copy first changes each one.
+		 *
+		 * @return a copy
+		 */
+		private Gaps copy() {
+			return new Gaps(myLastSeen.clone(), myGapCounts.clone(),
+					myGapTotals.clone(), myHistograms.clone(),
+					new boolean[myHistograms.length]);
+		}
+
+		/**
+		 * Records a number being drawn.
+		 *
+		 * @param theNumber
+		 *            the number
+		 * @param theDraw
+		 *            the number of the draw, counting from 1
+		 */
+		private void add(final int theNumber, final int theDraw) {
+			if (theNumber >= myLastSeen.length) {
+				final int length = theNumber + 1;
+				myLastSeen = Arrays.copyOf(myLastSeen, length);
+				myGapCounts = Arrays.copyOf(myGapCounts, length);
+				myGapTotals = Arrays.copyOf(myGapTotals, length);
+				final int old = myHistograms.length;
+				myHistograms = Arrays.copyOf(myHistograms, length);
+				myOwned = Arrays.copyOf(myOwned, length);
+				for (int number = old; number < length; number++) {
+					myHistograms[number] = new int[0];
+					myOwned[number] = true;
+				}
+			}
+			final int last = myLastSeen[theNumber];
+			if (last == theDraw) {
+				// drawn twice in the same draw
+				return;
+			}
+			if (last > 0) {
+				final int gap = theDraw - last;
+				myGapCounts[theNumber]++;
+				myGapTotals[theNumber] += gap;
+				final int[] histogram = myHistograms[theNumber];
+				if (gap >= histogram.length) {
+					myHistograms[theNumber] = Arrays.copyOf(histogram,
+							Math.max(gap + 1, histogram.length
+									+ (histogram.length >> 1)));
+					myOwned[theNumber] = true;
+				} else if (!myOwned[theNumber]) {
+					myHistograms[theNumber] = histogram.clone();
+					myOwned[theNumber] = true;
+				}
+				myHistograms[theNumber][gap]++;
+			}
+			myLastSeen[theNumber] = theDraw;
+		}
+
+		/**
+		 * Returns the last draw a number was seen in.
+		 *
+		 * @param theNumber
+		 *            the number
+		 * @return the draw, 0 if never or out of range
+		 */
+		private int lastSeen(final int theNumber) {
+			if (theNumber < 0 || theNumber >= myLastSeen.length) {
+				return 0;
+			}
+			return myLastSeen[theNumber];
+		}
+
+		/**
+		 * Returns the mean gap of a number.
+		 *
+		 * @param theNumber
+		 *            the number
+		 * @return the mean gap, 0 if it has had no gap
+		 */
+		private double meanGap(final int theNumber) {
+			if (theNumber < 0 || theNumber >= myGapCounts.length
+					|| myGapCounts[theNumber] == 0) {
+				return 0;
+			}
+			return (double) myGapTotals[theNumber] / myGapCounts[theNumber];
+		}
+
+		/**
+		 * Returns the gap histogram of a number.
+		 *
+		 * @param theNumber
+		 *            the number
+		 * @return a copy of its histogram, empty if out of range
+		 */
+		private int[] histogram(final int theNumber) {
+			if (theNumber < 0 || theNumber >= myHistograms.length) {
+				return new int[0];
+			}
+			int length = myHistograms[theNumber].length;
+			while (length > 0 && myHistograms[theNumber][length - 1] == 0) {
+				length--;
+			}
+			return Arrays.copyOf(myHistograms[theNumber], length);
+		}
+
+		/**
+		 * Picks the most overdue numbers up to the maximum, taking every
+		 * number as overdue as the last one picked. A number never drawn
+		 * has been gone the whole history.
+		 *
+		 * @param theDraws
+		 *            the number of draws added
+		 * @param theSize
+		 *            the minimum number of numbers to pick
+		 * @param theMax
+		 *            the highest number that can be picked
+		 * @return the picked numbers in increasing order
+		 */
+		private int[] overdue(final int theDraws, final int theSize,
+				final int theMax) {
+			final int top = Math.max(0, theMax);
+			final long[] gaps = new long[top + 1];
+			final long[] means = new long[top + 1];
+			final int[] counts = new int[top + 1];
+			final Integer[] numbers = new Integer[top];
+			for (int number = 1; number <= top; number++) {
+				gaps[number] = theDraws - lastSeen(number);
+				if (number >= myGapCounts.length || myGapCounts[number] == 0) {
+					means[number] = Math.max(1, theDraws);
+					counts[number] = 1;
+				} else {
+					means[number] = myGapTotals[number];
+					counts[number] = myGapCounts[number];
+				}
+				numbers[number - 1] = number;
+			}
+			// most overdue first, by current gap over mean gap
+			final Comparator<Integer> order = new Comparator<Integer>() {
+				public int compare(final Integer theFirst,
+						final Integer theSecond) {
+					return Long.compare(gaps[theSecond] * counts[theSecond]
+							* means[theFirst], gaps[theFirst]
+							* counts[theFirst] * means[theSecond]);
+				}
+			};
+			Arrays.sort(numbers, order);
+			int count = Math.min(theSize, top);
+			while (count > 0 && count < top
+					&& order.compare(numbers[count], numbers[count - 1]) == 0) {
+				count++;
+			}
+			final int[] result = new int[count];
+			for (int i = 0; i < count; i++) {
+				result[i] = numbers[i];
+			}
+			Arrays.sort(result);
+			return result;
+		}
+	}
+}
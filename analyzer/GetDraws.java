@@ -1,16 +1,23 @@
 package analyzer;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
 
 import lotto.Lottery;
+import database.DrawHistory;
+import database.DrawRepository;
+import database.DrawStore;
 
 /**
- * Using the Lottery game field class, this class takes in everything from the
- * associated input file and returns a List of Draw objects.
+ * Using the Lottery game field class, this class takes the draw history of the
+ * game from the DrawRepository and returns a List of the Draw objects matching
+ * the given filters. The history is loaded once and shared, so any number of
+ * GetDraws objects can be made without reading the database again. Which rows
+ * of the history match is asked of the repository's DrawStore, whose indexes
+ * answer the filters without scanning every draw. Each answer is worked out
+ * from one DrawHistory, so its rows and its draws are of the same version of
+ * the database.
  * 
  * @author Robert
  */
@@ -19,19 +26,10 @@ public final class GetDraws {
 	 * The minimum number of draws to count. Anything below is rounded up
 	 */
 	public static final int MIN_DRAWS_TO_COUNT = 15;
-	/**
-	 * A space character to put inbetween date numerals.
-	 */
-	private static final char SPACE = ' ';
-	/**
-	 * The expected String in the file for a jackpot winner, upper or lower
-	 * case.
-	 */
-	private static final String IF_JACKPOT_WINNER = "TRUE";
 	/**
 	 * The number of draws to count. 0 = all, minimum is set above
 	 */
-	private int myNumberOfDrawsToCount;
+	private final int myNumberOfDrawsToCount;
 	/**
 	 * If true, count only draws that were jackpot winners.
 	 */
@@ -44,9 +42,18 @@ public final class GetDraws {
 	 * Which game to calculate for.
 	 */
 	private final Lottery myGame;
+	/**
+	 * The earliest draw date to count, as an epoch day.
+	 */
+	private final int myFirstDay;
+	/**
+	 * The latest draw date to count, as an epoch day.
+	 */
+	private final int myLastDay;
 
 	/**
-	 * Sole Constructor Sets this fields to passed arguments.
+	 * Constructor that counts draws of any date. Sets this fields to passed
+	 * arguments.
 	 * 
 	 * @param theGame
 	 *            which game to analyze
@@ -59,108 +66,203 @@ public final class GetDraws {
 	 */
 	public GetDraws(final Lottery theGame, final int theDrawsToCount,
 			final boolean theJackpotStatus, final long thePayout) {
+		this(theGame, theDrawsToCount, theJackpotStatus, thePayout,
+				Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Constructor that counts only draws between two dates. The number of
+	 * draws to count is taken from the most recent draw in that range.
+	 * 
+	 * @param theGame
+	 *            which game to analyze
+	 * @param theDrawsToCount
+	 *            how many draws to count
+	 * @param theJackpotStatus
+	 *            jackpot winner
+	 * @param thePayout
+	 *            payout above
+	 * @param theFirstDay
+	 *            the earliest date to count as an epoch day, inclusive
+	 * @param theLastDay
+	 *            the latest date to count as an epoch day, inclusive
+	 */
+	public GetDraws(final Lottery theGame, final int theDrawsToCount,
+			final boolean theJackpotStatus, final long thePayout,
+			final int theFirstDay, final int theLastDay) {
 		myNumberOfDrawsToCount = theDrawsToCount;
 		myJackpotStatus = theJackpotStatus;
 		myPayout = thePayout;
 		myGame = theGame;
+		myFirstDay = theFirstDay;
+		myLastDay = theLastDay;
 	}
 
 	/**
-	 * A helper method that routes to appropriate method based on whether the
-	 * game has a bonus ball.
+	 * Filters the game's history down to the draws matching the params of
+	 * this, keeping the most recent first.
 	 * 
 	 * @return a List of Draw objects of all draws matching the params of this
 	 * @throws FileNotFoundException
 	 *             if the database file is not found
 	 */
 	public List<Draw> getDraws() throws FileNotFoundException {
-		List<Draw> result;
-		if (myGame.hasBonusBall()) {
-			result = getDrawsWithBonusBall();
-		} else {
-			result = getDrawsNoBonusBall();
+		final DrawHistory history = DrawRepository.getHistory(myGame);
+		final int[] rows = findRows(history);
+		final List<Draw> draws = new ArrayList<Draw>(rows.length);
+		for (final int row : rows) {
+			draws.add(history.draws().get(row));
 		}
-		return result;
+		return draws;
 	}
 
 	/**
-	 * Gets the draws for games without a bonus ball.
+	 * Selects the draws matching the params of this out of the game's history
+	 * as a columnar table, keeping the most recent first.
 	 * 
-	 * @return a List of Draw objects
+	 * @return a table of all draws matching the params of this
 	 * @throws FileNotFoundException
 	 *             if the database file is not found
 	 */
-	private List<Draw> getDrawsNoBonusBall() throws FileNotFoundException {
-		final List<Draw> draws = new ArrayList<Draw>();
-		final Scanner in = new Scanner(new File(myGame.dataFile()));
-		// if n is greater than zero but less than the minimum, round up
-		if (myNumberOfDrawsToCount > 0
-				&& myNumberOfDrawsToCount < MIN_DRAWS_TO_COUNT) {
-			myNumberOfDrawsToCount = MIN_DRAWS_TO_COUNT;
-		} else if (myNumberOfDrawsToCount == 0
-				|| myNumberOfDrawsToCount > myGame.dataFileLength()) {
-			myNumberOfDrawsToCount = myGame.dataFileLength();
+	public DrawTable getTable() throws FileNotFoundException {
+		return getTable(DrawRepository.getHistory(myGame));
+	}
+
+	/**
+	 * Selects the draws matching the params of this out of the given history
+	 * of the game as a columnar table, keeping the most recent first.
+	 * 
+	 * @param theHistory
+	 *            the history of the game
+	 * @return a table of all draws matching the params of this
+	 */
+	DrawTable getTable(final DrawHistory theHistory) {
+		final int[] rows = findRows(theHistory);
+		return theHistory.table().select(rows, rows.length);
+	}
+
+	/**
+	 * Asks the DrawStore for the rows of the given history matching the
+	 * params of this, applying the jackpot and payout filters to the rows of
+	 * its window.
+	 * 
+	 * @param theHistory
+	 *            the history of the game
+	 * @return the matching rows, most recent first
+	 */
+	private int[] findRows(final DrawHistory theHistory) {
+		final int[] window = getWindow(theHistory);
+		return DrawRepository.getStore().query(theHistory, window[0],
+				window[1], myJackpotStatus, myPayout);
+	}
+
+	/**
+	 * Returns true if the jackpot or payout filters of this can drop any of
+	 * the draws in its window.
+	 * 
+	 * @return if the draws are filtered
+	 */
+	boolean isFiltered() {
+		return myJackpotStatus || myPayout > 0;
+	}
+
+	/**
+	 * Returns true if the jackpot and payout filters of this and another keep
+	 * the same draws, so the same window of both selects the same rows.
+	 * 
+	 * @param theOther
+	 *            the draws to count of another query of the same game
+	 * @return if the filters are the same
+	 */
+	boolean hasSameFilters(final GetDraws theOther) {
+		return myJackpotStatus == theOther.myJackpotStatus
+				&& Math.max(0, myPayout) == Math.max(0, theOther.myPayout);
+	}
+
+	/**
+	 * Selects the rows of the given history matching the params of this out
+	 * of its FilterIndex, without going through the DrawStore.
+	 * 
+	 * @param theHistory
+	 *            the history of the game
+	 * @return one bit per row of the history, set if the row is selected
+	 */
+	long[] getSelection(final DrawHistory theHistory) {
+		return select(theHistory.filters(), getWindow(theHistory));
+	}
+
+	/**
+	 * Selects the rows of a window of the game's history matching the jackpot
+	 * and payout filters of this out of the given FilterIndex.
+	 * 
+	 * @param theFilters
+	 *            the FilterIndex of the game's history
+	 * @param theWindow
+	 *            the first row and the row after the last
+	 * @return one bit per row of the history, set if the row is selected
+	 */
+	long[] select(final FilterIndex theFilters, final int[] theWindow) {
+		return theFilters.select(theWindow[0], theWindow[1], myJackpotStatus,
+				myPayout);
+	}
+
+	/**
+	 * Works out the run of rows of the given history this looks at before any
+	 * filter is applied. The date range narrows the history to a run of rows,
+	 * and the draws to count are taken from the top of that run.
+	 * 
+	 * @param theHistory
+	 *            the history of the game
+	 * @return the first row and the row after the last, most recent first
+	 */
+	int[] getWindow(final DrawHistory theHistory) {
+		final DrawStore store = DrawRepository.getStore();
+		int first = 0;
+		if (myLastDay != Integer.MAX_VALUE) {
+			first = store.firstRowOnOrBefore(theHistory, myLastDay);
 		}
-		for (int i = 0; i < myNumberOfDrawsToCount; i++) {
-			final String date = in.next() + SPACE + in.next() + SPACE
-					+ in.next();
-			final int[] numbers = new int[myGame.getNumberOfBalls()];
-			for (int j = 0; j < numbers.length; j++) {
-				numbers[j] = in.nextInt();
-			}
-			final boolean winner = in.next()
-					.equalsIgnoreCase(IF_JACKPOT_WINNER);
-			final long payout = Long.parseLong(in.next());
-			final int range = in.nextInt();
-			boolean addThisDraw = !myJackpotStatus || winner;
-			addThisDraw = addThisDraw && payout >= myPayout;
-			if (addThisDraw) {
-				draws.add(new Draw(date, numbers, winner, payout, range));
-			}
+		final int end;
+		if (myFirstDay == Integer.MIN_VALUE) {
+			end = store.size(theHistory);
+		} else {
+			end = store.firstRowOnOrBefore(theHistory, myFirstDay - 1);
 		}
-		in.close();
-		return draws;
+		return new int[] {first, first + roundDrawsToCount(end - first)};
 	}
 
 	/**
-	 * Gets a List of Draw objects for games with a bonus ball.
+	 * Works out the run of rows of a history of the given size this would
+	 * have looked at if the draw at the given row had been the most recent,
+	 * as when the history is replayed. The date range is not applied.
 	 * 
-	 * @return a List of Draw objects matching this params.
-	 * @throws FileNotFoundException
-	 *             if the database file is not found
+	 * @param theFirst
+	 *            the row of the draw taken as the most recent
+	 * @param theSize
+	 *            the number of draws in the history
+	 * @return the first row and the row after the last, most recent first
 	 */
-	private List<Draw> getDrawsWithBonusBall() throws FileNotFoundException {
-		final List<Draw> draws = new ArrayList<Draw>();
-		final Scanner in = new Scanner(new File(myGame.dataFile()));
-		if (myNumberOfDrawsToCount > 0
-				&& myNumberOfDrawsToCount < MIN_DRAWS_TO_COUNT) {
-			myNumberOfDrawsToCount = MIN_DRAWS_TO_COUNT;
-		} else if (myNumberOfDrawsToCount == 0
-				|| myNumberOfDrawsToCount > myGame.dataFileLength()) {
-			myNumberOfDrawsToCount = myGame.dataFileLength();
+	int[] getWindow(final int theFirst, final int theSize) {
+		return new int[] {theFirst,
+				theFirst + roundDrawsToCount(theSize - theFirst)};
+	}
+
+	/**
+	 * Bounds the number of draws to count by the minimum and by the number of
+	 * draws in the database, or in the date range of this.
+	 * 
+	 * @param theDatabaseLength
+	 *            the number of draws that can be counted
+	 * @return the number of draws to count
+	 */
+	private int roundDrawsToCount(final int theDatabaseLength) {
+		int count = myNumberOfDrawsToCount;
+		// if n is greater than zero but less than the minimum, round up
+		if (count > 0 && count < MIN_DRAWS_TO_COUNT) {
+			count = MIN_DRAWS_TO_COUNT;
 		}
-		for (int i = 0; i < myNumberOfDrawsToCount; i++) {
-			final String date = in.next() + SPACE + in.next() + SPACE
-					+ in.next();
-			final int[] numbers = new int[myGame.getNumberOfBalls()];
-			for (int j = 0; j < numbers.length; j++) {
-				numbers[j] = in.nextInt();
-			}
-			final int bonusBall = in.nextInt();
-			final boolean winner = in.next()
-					.equalsIgnoreCase(IF_JACKPOT_WINNER);
-			final long payout = Long.parseLong(in.next());
-			final int numberRange = in.nextInt();
-			final int bonusBallRange = in.nextInt();
-			boolean addThisDraw = !myJackpotStatus || winner;
-			addThisDraw = addThisDraw && payout >= myPayout;
-			if (addThisDraw) {
-				draws.add(new Draw(date, numbers, bonusBall, winner, payout,
-						numberRange, bonusBallRange));
-			}
+		if (count == 0 || count > theDatabaseLength) {
+			count = theDatabaseLength;
 		}
-
-		in.close();
-		return draws;
+		return count;
 	}
 }
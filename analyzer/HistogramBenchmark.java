@@ -0,0 +1,185 @@
+package analyzer;
+
+import java.io.FileNotFoundException;
+import java.util.concurrent.ForkJoinPool;
+
+import lotto.Lottery;
+import lotto.MegaMillions;
+import lotto.PowerBall;
+import lotto.WALotto;
+import database.DrawRepository;
+
+/**
+ * This is a module class that times HistogramCounter on a table large enough
+ * to be counted in parallel, at each parallelism level from 1 up to the
+ * number of processors, so its scaling can be measured on the machine it is
+ * run on. The table is the game's history repeated until it has the given
+ * number of rows. It is run from the directory holding the databases:
+ *
+ * <pre>
+ * java analyzer.HistogramBenchmark [rows] [runs]
+ * </pre>
+ *
+ * The rows default to 2^20 and the runs to 10. Each level reports the best
+ * of its runs after as many warm up runs, and its speedup over a parallelism
+ * of 1. Speedups are only meaningful up to the number of processors the JVM
+ * really has.
+ *
+ * @author Robert
+ */
+final class HistogramBenchmark {
+
+	/**
+	 * The number of rows counted if none are given.
+	 */
+	private static final int DEFAULT_ROWS = 1 << 20;
+
+	/**
+	 * The number of timed runs of each level if none are given.
+	 */
+	private static final int DEFAULT_RUNS = 10;
+
+	/**
+	 * The number of nanoseconds in a millisecond.
+	 */
+	private static final double NANOS_PER_MILLI = 1e6;
+
+	/**
+	 * Private constructor to prevent making a HistogramBenchmark object.
+	 */
+	private HistogramBenchmark() {
+
+	}
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args
+	 *            the number of rows and the number of runs, both optional
+	 * @throws FileNotFoundException
+	 *             if a database file cannot be found
+	 */
+	public static void main(final String[] args)
+			throws FileNotFoundException {
+		int rows = DEFAULT_ROWS;
+		int runs = DEFAULT_RUNS;
+		if (args.length > 0) {
+			rows = Integer.parseInt(args[0]);
+		}
+		if (args.length > 1) {
+			runs = Integer.parseInt(args[1]);
+		}
+		final Lottery[] games = {new WALotto(), new MegaMillions(),
+				new PowerBall()};
+		System.out.println("Parallel threshold: "
+				+ HistogramCounter.PARALLEL_THRESHOLD + " rows");
+		for (final Lottery game : games) {
+			System.out.println(game + " history: "
+					+ DrawRepository.getTable(game).size() + " rows");
+		}
+		final DrawTable table = repeat(DrawRepository.getTable(games[0]),
+				rows);
+		final int processors = Runtime.getRuntime().availableProcessors();
+		System.out.println("Counting " + table.size() + " rows of "
+				+ games[0] + " on " + processors + " processors");
+		// warm up once before the first level, so it is not timed cold
+		time(table, ForkJoinPool.commonPool(), runs);
+		FrequencyHistogram[] expected = null;
+		double single = 0;
+		int parallelism = 1;
+		while (parallelism <= processors) {
+			final ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				final FrequencyHistogram[] counted = HistogramCounter.count(
+						table, null, true, false, pool);
+				if (expected == null) {
+					expected = counted;
+				} else if (!same(expected[0], counted[0])) {
+					throw new IllegalStateException("Parallelism "
+							+ parallelism + " counted differently");
+				}
+				final double best = time(table, pool, runs);
+				if (parallelism == 1) {
+					single = best;
+				}
+				System.out.printf("parallelism %2d: %8.2f ms, speedup %.2f%n",
+						parallelism, best, single / best);
+			} finally {
+				pool.shutdown();
+			}
+			// double up to the number of processors, ending on it
+			if (parallelism < processors) {
+				parallelism = Math.min(parallelism * 2, processors);
+			} else {
+				parallelism++;
+			}
+		}
+	}
+
+	/**
+	 * Returns a table of the rows of another repeated until it has the given
+	 * number of rows.
+	 *
+	 * @param theDraws
+	 *            the table to repeat
+	 * @param theRows
+	 *            the number of rows
+	 * @return the repeated table
+	 */
+	private static DrawTable repeat(final DrawTable theDraws,
+			final int theRows) {
+		final int[] rows = new int[theRows];
+		for (int i = 0; i < theRows; i++) {
+			rows[i] = i % theDraws.size();
+		}
+		return theDraws.select(rows, theRows);
+	}
+
+	/**
+	 * Times counting the number balls of a table on a pool.
+	 *
+	 * @param theDraws
+	 *            the table
+	 * @param thePool
+	 *            the pool to count on
+	 * @param theRuns
+	 *            the number of warm up runs and of timed runs
+	 * @return the fastest timed run in milliseconds
+	 */
+	private static double time(final DrawTable theDraws,
+			final ForkJoinPool thePool, final int theRuns) {
+		for (int i = 0; i < theRuns; i++) {
+			HistogramCounter.count(theDraws, null, true, false, thePool);
+		}
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < theRuns; i++) {
+			final long start = System.nanoTime();
+			HistogramCounter.count(theDraws, null, true, false, thePool);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * Returns true if two histograms hold the same counts.
+	 *
+	 * @param theFirst
+	 *            one histogram
+	 * @param theSecond
+	 *            the other
+	 * @return if every count and draw count is the same
+	 */
+	private static boolean same(final FrequencyHistogram theFirst,
+			final FrequencyHistogram theSecond) {
+		if (theFirst.highestNumber() != theSecond.highestNumber()) {
+			return false;
+		}
+		for (int number = 1; number <= theFirst.highestNumber(); number++) {
+			if (theFirst.count(number) != theSecond.count(number)
+					|| theFirst.draws(number) != theSecond.draws(number)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
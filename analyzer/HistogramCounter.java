@@ -0,0 +1,289 @@
+package analyzer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This is a module class that counts the number balls and bonus balls of the
+ * rows of a DrawTable into FrequencyHistograms. Small tables are counted on
+ * the calling thread. Tables of at least PARALLEL_THRESHOLD rows are split in
+ * halves on the common ForkJoinPool until the pieces are small enough, each
+ * piece is counted into histograms of its own, and the histograms are added
+ * together on the way back up, so no counts are shared between threads.
+ *
+ * The shipped histories are a few thousand draws long, well under
+ * PARALLEL_THRESHOLD, so they are always counted on the calling thread and
+ * the parallel path is only reached by much larger tables. HistogramBenchmark
+ * times it on such a table at each parallelism level.
+ *
+ * @author Robert
+ */
+final class HistogramCounter {
+
+	/**
+	 * The number of rows from which counting is done in parallel.
+	 */
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * The number of rows below which a piece is counted without splitting.
+	 * A multiple of 64, so pieces split on whole words of a selection.
+	 */
+	private static final int PIECE_SIZE = 1 << 14;
+
+	/**
+	 * Private constructor to prevent making a HistogramCounter object.
+	 */
+	private HistogramCounter() {
+
+	}
+
+	/**
+	 * Counts the rows of a table.
+	 *
+	 * @param theDraws
+	 *            the table
+	 * @param theSelection
+	 *            one bit per row, set if the row is counted, or null to count
+	 *            every row
+	 * @param theNumbers
+	 *            if the number balls are counted
+	 * @param theBonusBalls
+	 *            if the bonus balls are counted
+	 * @return the histogram of the number balls and of the bonus balls, each
+	 *         null if not counted
+	 */
+	static FrequencyHistogram[] count(final DrawTable theDraws,
+			final long[] theSelection, final boolean theNumbers,
+			final boolean theBonusBalls) {
+		return count(theDraws, theSelection, theNumbers, theBonusBalls,
+				ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Counts the rows of a table, splitting large tables on the given pool.
+	 *
+	 * @param theDraws
+	 *            the table
+	 * @param theSelection
+	 *            one bit per row, set if the row is counted, or null to count
+	 *            every row
+	 * @param theNumbers
+	 *            if the number balls are counted
+	 * @param theBonusBalls
+	 *            if the bonus balls are counted
+	 * @param thePool
+	 *            the pool large tables are counted on
+	 * @return the histogram of the number balls and of the bonus balls, each
+	 *         null if not counted
+	 */
+	static FrequencyHistogram[] count(final DrawTable theDraws,
+			final long[] theSelection, final boolean theNumbers,
+			final boolean theBonusBalls, final ForkJoinPool thePool) {
+		final FrequencyHistogram[] result;
+		if (theDraws.size() >= PARALLEL_THRESHOLD) {
+			result = thePool.invoke(
+					new Piece(theDraws, theSelection, theNumbers,
+							theBonusBalls, 0, theDraws.size()));
+		} else {
+			result = countPiece(theDraws, theSelection, theNumbers,
+					theBonusBalls, 0, theDraws.size());
+		}
+		for (final FrequencyHistogram histogram : result) {
+			if (histogram != null) {
+				histogram.finish();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Counts a run of rows of a table into new histograms. The histograms are
+	 * made just big enough for the highest range in the run.
+	 *
+	 * @param theDraws
+	 *            the table
+	 * @param theSelection
+	 *            the rows counted, or null for every row
+	 * @param theNumbers
+	 *            if the number balls are counted
+	 * @param theBonusBalls
+	 *            if the bonus balls are counted
+	 * @param theFrom
+	 *            the first row of the run
+	 * @param theTo
+	 *            the row after the last
+	 * @return the unfinished histograms of the number balls and bonus balls
+	 */
+	private static FrequencyHistogram[] countPiece(final DrawTable theDraws,
+			final long[] theSelection, final boolean theNumbers,
+			final boolean theBonusBalls, final int theFrom, final int theTo) {
+		int highest = 0;
+		int highestBonus = 0;
+		int row = next(theSelection, theFrom, theTo);
+		while (row < theTo) {
+			highest = Math.max(highest, theDraws.numberRange(row));
+			highestBonus = Math.max(highestBonus,
+					theDraws.bonusBallRange(row));
+			row = next(theSelection, row + 1, theTo);
+		}
+		FrequencyHistogram numbers = null;
+		FrequencyHistogram bonusBalls = null;
+		if (theNumbers) {
+			numbers = new FrequencyHistogram(highest);
+		}
+		if (theBonusBalls) {
+			bonusBalls = new FrequencyHistogram(highestBonus);
+		}
+		row = next(theSelection, theFrom, theTo);
+		while (row < theTo) {
+			if (theNumbers) {
+				numbers.addNumbers(theDraws, row);
+			}
+			if (theBonusBalls) {
+				bonusBalls.addBonusBall(theDraws, row);
+			}
+			row = next(theSelection, row + 1, theTo);
+		}
+		return new FrequencyHistogram[] {numbers, bonusBalls};
+	}
+
+	/**
+	 * Finds the next selected row.
+	 *
+	 * @param theSelection
+	 *            the rows counted, or null for every row
+	 * @param theRow
+	 *            the row to start looking from
+	 * @param theTo
+	 *            the row to stop looking at
+	 * @return the first selected row from theRow on, or theTo if none
+	 */
+	private static int next(final long[] theSelection, final int theRow,
+			final int theTo) {
+		if (theSelection == null || theRow >= theTo) {
+			return theRow;
+		}
+		int w = theRow >>> 6;
+		long word = theSelection[w] & -1L << theRow;
+		while (word == 0) {
+			w++;
+			if (w << 6 >= theTo) {
+				return theTo;
+			}
+			word = theSelection[w];
+		}
+		return Math.min(theTo, (w << 6) + Long.numberOfTrailingZeros(word));
+	}
+
+	/**
+	 * Adds two pairs of histograms together.
+	 *
+	 * @param theFirst
+	 *            the histograms of one piece
+	 * @param theSecond
+	 *            the histograms of another piece
+	 * @return the histograms of both
+	 */
+	private static FrequencyHistogram[] merge(
+			final FrequencyHistogram[] theFirst,
+			final FrequencyHistogram[] theSecond) {
+		final FrequencyHistogram[] result =
+				new FrequencyHistogram[theFirst.length];
+		for (int i = 0; i < result.length; i++) {
+			if (theFirst[i] != null) {
+				result[i] = FrequencyHistogram.merge(theFirst[i], theSecond[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A run of rows to count, split in halves until it is small enough.
+	 *
+	 * @author Robert
+	 */
+	private static final class Piece extends
+			RecursiveTask<FrequencyHistogram[]> {
+
+		/**
+		 * Serial version, as tasks are Serializable.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The table counted.
+		 */
+		private final DrawTable myDraws;
+
+		/**
+		 * The rows counted, or null for every row.
+		 */
+		private final long[] mySelection;
+
+		/**
+		 * If the number balls are counted.
+		 */
+		private final boolean myNumbers;
+
+		/**
+		 * If the bonus balls are counted.
+		 */
+		private final boolean myBonusBalls;
+
+		/**
+		 * The first row of the run.
+		 */
+		private final int myFrom;
+
+		/**
+		 * The row after the last.
+		 */
+		private final int myTo;
+
+		/**
+		 * Creates a piece of counting.
+		 *
+		 * @param theDraws
+		 *            the table
+		 * @param theSelection
+		 *            the rows counted, or null for every row
+		 * @param theNumbers
+		 *            if the number balls are counted
+		 * @param theBonusBalls
+		 *            if the bonus balls are counted
+		 * @param theFrom
+		 *            the first row of the run
+		 * @param theTo
+		 *            the row after the last
+		 */
+		private Piece(final DrawTable theDraws, final long[] theSelection,
+				final boolean theNumbers, final boolean theBonusBalls,
+				final int theFrom, final int theTo) {
+			myDraws = theDraws;
+			mySelection = theSelection;
+			myNumbers = theNumbers;
+			myBonusBalls = theBonusBalls;
+			myFrom = theFrom;
+			myTo = theTo;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected FrequencyHistogram[] compute() {
+			if (myTo - myFrom <= PIECE_SIZE) {
+				return countPiece(myDraws, mySelection, myNumbers,
+						myBonusBalls, myFrom, myTo);
+			}
+			// split on a whole word of the selection
+			final int middle = (myFrom + (myTo - myFrom) / 2) & ~63;
+			final Piece second = new Piece(myDraws, mySelection, myNumbers,
+					myBonusBalls, middle, myTo);
+			second.fork();
+			final FrequencyHistogram[] first = new Piece(myDraws,
+					mySelection, myNumbers, myBonusBalls, myFrom, middle)
+					.compute();
+			return merge(first, second.join());
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package analyzer;
+
+/**
+ * This is a module class for holding a set of drawn numbers as a bitmask,
+ * where bit n is set if number n was drawn. A mask is a run of longs, one long
+ * for games whose numbers stop below 64 such as WA Lotto and PowerBall, and
+ * two for Mega Millions. Masks of many draws can be packed into one long[],
+ * so every method takes the offset of the mask in its array. Membership is a
+ * single bit test, and the numbers two draws share is a bit count of their
+ * intersection.
+ *
+ * @author Robert
+ */
+public final class NumberMask {
+
+	/**
+	 * The number of bits in each word of a mask.
+	 */
+	private static final int WORD_BITS = 64;
+
+	/**
+	 * Private constructor to prevent making a NumberMask object.
+	 */
+	private NumberMask() {
+
+	}
+
+	/**
+	 * Returns the number of longs in a mask of numbers up to the given range.
+	 *
+	 * @param theRange
+	 *            the highest number, inclusive
+	 * @return the number of words in each mask
+	 */
+	public static int words(final int theRange) {
+		return theRange / WORD_BITS + 1;
+	}
+
+	/**
+	 * Sets the bit of the given number.
+	 *
+	 * @param theMasks
+	 *            the array holding the mask
+	 * @param theOffset
+	 *            the index of the mask's first word
+	 * @param theNumber
+	 *            the number to set
+	 */
+	public static void set(final long[] theMasks, final int theOffset,
+			final int theNumber) {
+		theMasks[theOffset + theNumber / WORD_BITS] |= 1L << theNumber;
+	}
+
+	/**
+	 * Clears the bit of the given number.
+	 *
+	 * @param theMasks
+	 *            the array holding the mask
+	 * @param theOffset
+	 *            the index of the mask's first word
+	 * @param theNumber
+	 *            the number to clear
+	 */
+	public static void clear(final long[] theMasks, final int theOffset,
+			final int theNumber) {
+		theMasks[theOffset + theNumber / WORD_BITS] &= ~(1L << theNumber);
+	}
+
+	/**
+	 * Returns true if the given number is in the mask.
+	 *
+	 * @param theMasks
+	 *            the array holding the mask
+	 * @param theOffset
+	 *            the index of the mask's first word
+	 * @param theNumber
+	 *            the number to test
+	 * @return if the number is set
+	 */
+	public static boolean contains(final long[] theMasks, final int theOffset,
+			final int theNumber) {
+		return (theMasks[theOffset + theNumber / WORD_BITS] & 1L << theNumber) != 0;
+	}
+
+	/**
+	 * Counts the numbers two masks have in common.
+	 *
+	 * @param theFirst
+	 *            the array holding the first mask
+	 * @param theFirstOffset
+	 *            the index of the first mask's first word
+	 * @param theSecond
+	 *            the array holding the second mask
+	 * @param theSecondOffset
+	 *            the index of the second mask's first word
+	 * @param theWords
+	 *            the number of words to compare
+	 * @return the number of shared numbers
+	 */
+	public static int matches(final long[] theFirst, final int theFirstOffset,
+			final long[] theSecond, final int theSecondOffset,
+			final int theWords) {
+		int count = 0;
+		for (int i = 0; i < theWords; i++) {
+			count += Long.bitCount(theFirst[theFirstOffset + i]
+					& theSecond[theSecondOffset + i]);
+		}
+		return count;
+	}
+}
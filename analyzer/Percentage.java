@@ -3,59 +3,148 @@ package analyzer;
 import java.math.BigDecimal;
 import java.math.MathContext;
 
+/**
+ * A frequency held as an exact fraction of two ints, the number of
+ * occurrences over the number of draws. Two Percentages are compared by
+ * cross-multiplying in longs and hashed from a single double division; a
+ * BigDecimal is only made when one is displayed. A fraction over 0 draws is
+ * worth 0.
+ *
+ * @author Robert
+ */
 public final class Percentage implements Comparable<Percentage> {
 
+	/**
+	 * No occurrences in no draws.
+	 */
 	public static final Percentage ZERO = new Percentage(0, 0);
 
+	/**
+	 * The number of occurrences.
+	 */
 	private final int myNumerator;
 
+	/**
+	 * The number of draws.
+	 */
 	private final int myDenominator;
 
+	/**
+	 * Creates the fraction of the given occurrences over the given draws.
+	 *
+	 * @param theNum
+	 *            the number of occurrences
+	 * @param theDem
+	 *            the number of draws
+	 */
 	public Percentage(final int theNum, final int theDem) {
 		myNumerator = theNum;
 		myDenominator = theDem;
 	}
 
+	/**
+	 * Two Percentages are equal if they are worth the same, so 1/2 equals 2/4.
+	 *
+	 * @param theOther
+	 *            the object to compare to
+	 * @return true if theOther is a Percentage of the same value
+	 */
 	@Override
 	public boolean equals(final Object theOther) {
 		boolean result = false;
-		if (theOther.getClass().equals(this.getClass()) && theOther != null) {
-			final Percentage other = (Percentage) theOther;
-			result = myNumerator == other.myNumerator;
-			result = result && myDenominator == other.myDenominator;
+		if (theOther != null && theOther.getClass().equals(this.getClass())) {
+			result = compareTo((Percentage) theOther) == 0;
 		}
 		return result;
 	}
 
+	/**
+	 * Hashes the value of the fraction. Division is correctly rounded, so
+	 * equal fractions such as 1/2 and 2/4 give the same double and hash
+	 * alike.
+	 *
+	 * @return the hash code
+	 */
 	@Override
 	public int hashCode() {
-		final String temp = "" + myNumerator + myDenominator;
-		return temp.hashCode() + 1;
+		return Double.hashCode((double) numerator() / denominator());
 	}
 
+	/**
+	 * Returns this with one more draw in which the number came up.
+	 *
+	 * @return a new Percentage
+	 */
 	public Percentage addOccurance() {
 		return new Percentage(myNumerator + 1, myDenominator + 1);
 	}
 
+	/**
+	 * Returns this with one more draw in which the number did not come up.
+	 *
+	 * @return a new Percentage
+	 */
 	public Percentage addNonOccurance() {
 		return new Percentage(myNumerator, myDenominator + 1);
 	}
 
+	/**
+	 * Divides out the fraction for display.
+	 *
+	 * @return the value of this to 34 digits
+	 */
 	public BigDecimal doubleValue() {
+		if (myDenominator == 0) {
+			return BigDecimal.ZERO;
+		}
 		final BigDecimal num = new BigDecimal(myNumerator);
 		final BigDecimal dem = new BigDecimal(myDenominator);
 		final BigDecimal divided = num.divide(dem, MathContext.DECIMAL128);
 		return divided;
 	}
 
+	/**
+	 * Compares the values of two fractions by cross-multiplication. Draw
+	 * counts are never negative, so the products keep the order of the
+	 * values.
+	 *
+	 * @param theOther
+	 *            the Percentage to compare to
+	 * @return negative, zero or positive as this is worth less, the same or
+	 *         more
+	 */
 	@Override
 	public int compareTo(final Percentage theOther) {
-		return this.doubleValue().compareTo(theOther.doubleValue());
+		final long left = (long) numerator() * theOther.denominator();
+		final long right = (long) theOther.numerator() * denominator();
+		return Long.compare(left, right);
 	}
 
+	/**
+	 * Displays the value of this.
+	 *
+	 * @return the value as a decimal
+	 */
 	@Override
 	public String toString() {
 		return doubleValue().toString();
 	}
 
+	/**
+	 * Returns the numerator to compare with, 0 over no draws.
+	 *
+	 * @return the numerator
+	 */
+	private int numerator() {
+		return myDenominator == 0 ? 0 : myNumerator;
+	}
+
+	/**
+	 * Returns the denominator to compare with, 1 for no draws.
+	 *
+	 * @return the denominator
+	 */
+	private int denominator() {
+		return myDenominator == 0 ? 1 : myDenominator;
+	}
 }
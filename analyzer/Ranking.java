@@ -0,0 +1,283 @@
+package analyzer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The numbers of a FrequencyHistogram ordered from coldest to hottest and
+ * split into groups of equal frequency. When every number was counted over
+ * the same draws, which is the case unless the game's range changed within
+ * them, frequencies order like the counts themselves, so the numbers are
+ * ranked by a counting sort in time linear in the range and the number of
+ * draws. Otherwise the frequencies are compared as fractions with a merge
+ * sort. Within a group numbers are in increasing order.
+ *
+ * @author Robert
+ */
+public final class Ranking {
+
+	/**
+	 * The histogram ranked.
+	 */
+	private final FrequencyHistogram myHistogram;
+
+	/**
+	 * Every number from 1 up to the histogram's highest, coldest first.
+	 */
+	private final int[] myOrder;
+
+	/**
+	 * Where each group starts in myOrder, followed by the length of myOrder.
+	 */
+	private final int[] myGroupStarts;
+
+	/**
+	 * The number of groups.
+	 */
+	private final int myGroupCount;
+
+	/**
+	 * Ranks the numbers of the given histogram.
+	 *
+	 * @param theHistogram
+	 *            the counted numbers
+	 */
+	public Ranking(final FrequencyHistogram theHistogram) {
+		myHistogram = theHistogram;
+		final int highest = theHistogram.highestNumber();
+		myOrder = new int[highest];
+		if (sharesDenominator(theHistogram)) {
+			countingSort(theHistogram, myOrder);
+		} else {
+			fractionSort(theHistogram, myOrder);
+		}
+		myGroupStarts = new int[highest + 1];
+		int groups = 0;
+		for (int i = 0; i < highest; i++) {
+			if (i == 0 || !sameFrequency(myOrder[i - 1], myOrder[i])) {
+				myGroupStarts[groups] = i;
+				groups++;
+			}
+		}
+		myGroupStarts[groups] = highest;
+		myGroupCount = groups;
+	}
+
+	/**
+	 * Returns the histogram ranked.
+	 *
+	 * @return the histogram
+	 */
+	public FrequencyHistogram histogram() {
+		return myHistogram;
+	}
+
+	/**
+	 * Returns the number of groups of equal frequency.
+	 *
+	 * @return the number of groups
+	 */
+	public int groupCount() {
+		return myGroupCount;
+	}
+
+	/**
+	 * Returns the frequency shared by a group.
+	 *
+	 * @param theGroup
+	 *            the group, 0 being the coldest
+	 * @return the frequency of its numbers
+	 */
+	public Percentage frequency(final int theGroup) {
+		return myHistogram.percentage(myOrder[myGroupStarts[theGroup]]);
+	}
+
+	/**
+	 * Returns the numbers of a group.
+	 *
+	 * @param theGroup
+	 *            the group, 0 being the coldest
+	 * @return its numbers in increasing order
+	 */
+	public int[] group(final int theGroup) {
+		return Arrays.copyOfRange(myOrder, myGroupStarts[theGroup],
+				myGroupStarts[theGroup + 1]);
+	}
+
+	/**
+	 * Picks the most frequent numbers. Whole groups are taken, hottest first,
+	 * until at least the given number of numbers have been picked, so ties
+	 * with the last number picked are included. Numbers outside 1 to the
+	 * given maximum are skipped and do not count towards the size.
+	 *
+	 * @param theSize
+	 *            the minimum number of numbers to pick
+	 * @param theMax
+	 *            the highest number that can be picked
+	 * @return the picked numbers in increasing order
+	 */
+	public int[] hottest(final int theSize, final int theMax) {
+		return pick(theSize, theMax, true);
+	}
+
+	/**
+	 * Picks the least frequent numbers, the same way hottest() picks the most
+	 * frequent.
+	 *
+	 * @param theSize
+	 *            the minimum number of numbers to pick
+	 * @param theMax
+	 *            the highest number that can be picked
+	 * @return the picked numbers in increasing order
+	 */
+	public int[] coldest(final int theSize, final int theMax) {
+		return pick(theSize, theMax, false);
+	}
+
+	/**
+	 * Takes whole groups from one end of the ranking until enough numbers
+	 * are picked, then puts them in increasing order by marking them in a
+	 * table of the range.
+	 *
+	 * @param theSize
+	 *            the minimum number of numbers to pick
+	 * @param theMax
+	 *            the highest number that can be picked
+	 * @param theHottest
+	 *            if groups are taken from the hot end
+	 * @return the picked numbers in increasing order
+	 */
+	private int[] pick(final int theSize, final int theMax,
+			final boolean theHottest) {
+		final int top = Math.max(0, Math.min(theMax, myOrder.length));
+		final boolean[] picked = new boolean[top + 1];
+		int count = 0;
+		for (int g = 0; g < myGroupCount && count < theSize; g++) {
+			final int group = theHottest ? myGroupCount - 1 - g : g;
+			for (int i = myGroupStarts[group]; i < myGroupStarts[group + 1]; i++) {
+				final int number = myOrder[i];
+				if (number <= top) {
+					picked[number] = true;
+					count++;
+				}
+			}
+		}
+		final int[] result = new int[count];
+		int next = 0;
+		for (int number = 1; number <= top; number++) {
+			if (picked[number]) {
+				result[next] = number;
+				next++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns true if two numbers were drawn equally often.
+	 *
+	 * @param theFirst
+	 *            a number
+	 * @param theSecond
+	 *            another number
+	 * @return if their frequencies are equal
+	 */
+	private boolean sameFrequency(final int theFirst, final int theSecond) {
+		return compareFrequencies(myHistogram, theFirst, theSecond) == 0;
+	}
+
+	/**
+	 * Returns true if every number of the histogram was counted over the same
+	 * number of draws.
+	 *
+	 * @param theHistogram
+	 *            the histogram
+	 * @return if the denominators are all equal
+	 */
+	private static boolean sharesDenominator(
+			final FrequencyHistogram theHistogram) {
+		for (int number = 2; number <= theHistogram.highestNumber(); number++) {
+			if (theHistogram.draws(number) != theHistogram.draws(1)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Orders the numbers by their counts, least first, with one bucket per
+	 * count. Walking the numbers in increasing order keeps each bucket in
+	 * increasing order.
+	 *
+	 * @param theHistogram
+	 *            the histogram
+	 * @param theOrder
+	 *            filled with the ordered numbers
+	 */
+	private static void countingSort(final FrequencyHistogram theHistogram,
+			final int[] theOrder) {
+		final int highest = theHistogram.highestNumber();
+		int maxCount = 0;
+		for (int number = 1; number <= highest; number++) {
+			maxCount = Math.max(maxCount, theHistogram.count(number));
+		}
+		final int[] starts = new int[maxCount + 2];
+		for (int number = 1; number <= highest; number++) {
+			starts[theHistogram.count(number) + 1]++;
+		}
+		for (int count = 1; count < starts.length; count++) {
+			starts[count] += starts[count - 1];
+		}
+		for (int number = 1; number <= highest; number++) {
+			final int count = theHistogram.count(number);
+			theOrder[starts[count]] = number;
+			starts[count]++;
+		}
+	}
+
+	/**
+	 * Orders the numbers by their frequencies as fractions, least first. The
+	 * sort is stable, so numbers of equal frequency stay in increasing order.
+	 *
+	 * @param theHistogram
+	 *            the histogram
+	 * @param theOrder
+	 *            filled with the ordered numbers
+	 */
+	private static void fractionSort(final FrequencyHistogram theHistogram,
+			final int[] theOrder) {
+		final Integer[] numbers = new Integer[theOrder.length];
+		for (int i = 0; i < numbers.length; i++) {
+			numbers[i] = i + 1;
+		}
+		Arrays.sort(numbers, new Comparator<Integer>() {
+			public int compare(final Integer theFirst, final Integer theSecond) {
+				return compareFrequencies(theHistogram, theFirst, theSecond);
+			}
+		});
+		for (int i = 0; i < numbers.length; i++) {
+			theOrder[i] = numbers[i];
+		}
+	}
+
+	/**
+	 * Compares the frequencies of two numbers by cross-multiplication.
+	 *
+	 * @param theHistogram
+	 *            the histogram
+	 * @param theFirst
+	 *            a number
+	 * @param theSecond
+	 *            another number
+	 * @return negative, zero or positive as the first is colder, the same or
+	 *         hotter
+	 */
+	private static int compareFrequencies(
+			final FrequencyHistogram theHistogram, final int theFirst,
+			final int theSecond) {
+		return Long.compare((long) theHistogram.count(theFirst)
+				* theHistogram.draws(theSecond),
+				(long) theHistogram.count(theSecond)
+						* theHistogram.draws(theFirst));
+	}
+}
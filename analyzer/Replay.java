@@ -0,0 +1,322 @@
+package analyzer;
+
+import java.io.FileNotFoundException;
+
+import lotto.Lottery;
+import database.DrawHistory;
+import database.DrawRepository;
+
+/**
+ * Replays a game's history one draw at a time, giving the statistics the
+ * algorithms would have been run on just before each draw, worked out from
+ * only the draws before it. The draw about to be replayed is the target, and
+ * the draws older than it are taken as the whole history, with the window and
+ * filters of a GetDraws applied as if the draw just before the target were the
+ * most recent. Frequencies of an unfiltered window are counted out of the
+ * game's FrequencyIndex in O(range), and a filtered window is selected out of
+ * its FilterIndex. Gaps, and decayed frequencies and pair counts while the
+ * window runs back to the oldest draw, are extended by the one draw added each
+ * time the replay moves on rather than worked out again. Everything is read
+ * from the history already in memory, so once made a replay does not touch the
+ * DrawRepository, and any number of replays of the same game can run on
+ * different threads.
+ *
+ * @author Robert
+ */
+public final class Replay {
+
+	/**
+	 * The game's history, most recent first.
+	 */
+	private final DrawTable myHistory;
+
+	/**
+	 * The game's history along with its indexes.
+	 */
+	private final DrawHistory mySnapshot;
+
+	/**
+	 * The draws to count before each target.
+	 */
+	private final GetDraws myDraws;
+
+	/**
+	 * If the game has a bonus ball.
+	 */
+	private final boolean myBonusBall;
+
+	/**
+	 * If the hot, cold or raw data algorithms will be run.
+	 */
+	private final boolean myFrequencies;
+
+	/**
+	 * How many draws before the target the periodic draw is, 0 if the
+	 * periodic algorithm will not be run.
+	 */
+	private final int myLookBack;
+
+	/**
+	 * The half life of the decayed algorithm, 0 if it will not be run.
+	 */
+	private final int myHalfLife;
+
+	/**
+	 * If the hot or cold pairs algorithms will be run.
+	 */
+	private final boolean myPairs;
+
+	/**
+	 * If the pairs algorithms pick from triples.
+	 */
+	private final boolean myTriples;
+
+	/**
+	 * If the overdue algorithm will be run.
+	 */
+	private final boolean myGaps;
+
+	/**
+	 * The row of the target.
+	 */
+	private int myTarget;
+
+	/**
+	 * The gaps of every draw before the target, null if not needed.
+	 */
+	private GapStatistics myGapStatistics;
+
+	/**
+	 * The decayed frequencies of every draw before the target, null if not
+	 * needed or not yet worked out.
+	 */
+	private DecayedFrequency myDecayed;
+
+	/**
+	 * The pair counts of every draw before the target, null if not needed or
+	 * not yet worked out.
+	 */
+	private CoOccurrence myPairCounts;
+
+	/**
+	 * Creates a replay of the oldest draw of a game with at least the given
+	 * number of draws before it. Statistics that are not asked for are left
+	 * null, as DrawStatistics.compute() leaves them.
+	 *
+	 * @param theGame
+	 *            the game to replay
+	 * @param theDraws
+	 *            the draws to count before each target
+	 * @param theMinimum
+	 *            the fewest draws before the first target, at least 1
+	 * @param theFrequencies
+	 *            if the hot, cold or raw data algorithms will be run
+	 * @param theLookBack
+	 *            how many draws before the target the periodic draw is, 0 if
+	 *            the periodic algorithm will not be run
+	 * @param theHalfLife
+	 *            the half life of the decayed algorithm in draws, 0 if it
+	 *            will not be run
+	 * @param thePairs
+	 *            if the hot or cold pairs algorithms will be run
+	 * @param theTriples
+	 *            if the pairs algorithms pick from triples
+	 * @param theGaps
+	 *            if the overdue algorithm will be run
+	 * @throws FileNotFoundException
+	 *             if the database file cannot be found
+	 */
+	public Replay(final Lottery theGame, final GetDraws theDraws,
+			final int theMinimum, final boolean theFrequencies,
+			final int theLookBack, final int theHalfLife,
+			final boolean thePairs, final boolean theTriples,
+			final boolean theGaps) throws FileNotFoundException {
+		mySnapshot = DrawRepository.getHistory(theGame);
+		myHistory = mySnapshot.table();
+		myDraws = theDraws;
+		myBonusBall = theGame.hasBonusBall();
+		myFrequencies = theFrequencies;
+		myLookBack = theLookBack;
+		myHalfLife = theHalfLife;
+		myPairs = thePairs;
+		myTriples = theTriples;
+		myGaps = theGaps;
+		moveTo(myHistory.size() - Math.max(1, theMinimum) - 1);
+	}
+
+	/**
+	 * Creates a replay of the same game and statistics as another, at the
+	 * given target.
+	 *
+	 * @param theReplay
+	 *            the replay to copy
+	 * @param theTarget
+	 *            the row of the target
+	 */
+	private Replay(final Replay theReplay, final int theTarget) {
+		myHistory = theReplay.myHistory;
+		mySnapshot = theReplay.mySnapshot;
+		myDraws = theReplay.myDraws;
+		myBonusBall = theReplay.myBonusBall;
+		myFrequencies = theReplay.myFrequencies;
+		myLookBack = theReplay.myLookBack;
+		myHalfLife = theReplay.myHalfLife;
+		myPairs = theReplay.myPairs;
+		myTriples = theReplay.myTriples;
+		myGaps = theReplay.myGaps;
+		moveTo(theTarget);
+	}
+
+	/**
+	 * Returns a replay of the same game and statistics as this, at the given
+	 * target, which can be moved on separately from this.
+	 *
+	 * @param theTarget
+	 *            the row of the target, at most the row this started at
+	 * @return the replay
+	 */
+	public Replay at(final int theTarget) {
+		return new Replay(this, theTarget);
+	}
+
+	/**
+	 * Returns the game's history, which the rows of the targets are rows of.
+	 *
+	 * @return the history, most recent first
+	 */
+	public DrawTable history() {
+		return myHistory;
+	}
+
+	/**
+	 * Returns the row of the target, the draw the statistics lead up to.
+	 *
+	 * @return the row, most recent first
+	 */
+	public int target() {
+		return myTarget;
+	}
+
+	/**
+	 * Returns true if there is a more recent draw to move on to.
+	 *
+	 * @return if next() can be called
+	 */
+	public boolean hasNext() {
+		return myTarget > 0;
+	}
+
+	/**
+	 * Moves on to the next more recent draw, adding the target to the draws
+	 * before it.
+	 */
+	public void next() {
+		if (!hasNext()) {
+			throw new IllegalStateException();
+		}
+		if (myGapStatistics != null) {
+			myGapStatistics = myGapStatistics.extend(myHistory, myTarget);
+		}
+		if (myDecayed != null) {
+			myDecayed = myDecayed.extend(myHistory, myTarget);
+		}
+		if (myPairCounts != null) {
+			myPairCounts = myPairCounts.extend(myHistory, myTarget,
+					myTarget + 1);
+		}
+		myTarget--;
+	}
+
+	/**
+	 * Works out the statistics of the draws before the target.
+	 *
+	 * @return the statistics
+	 */
+	public DrawStatistics statistics() {
+		final int first = myTarget + 1;
+		final int[] window = myDraws.getWindow(first, myHistory.size());
+		final boolean filtered = myDraws.isFiltered();
+		final boolean whole = !filtered && window[1] == myHistory.size();
+		if (!whole) {
+			// the window no longer reaches the oldest draw, and never will
+			myDecayed = null;
+			myPairCounts = null;
+		}
+		long[] selection = null;
+		if (filtered || myPairs) {
+			selection = myDraws.select(mySnapshot.filters(), window);
+		}
+		Ranking[] frequencies = null;
+		if (myFrequencies) {
+			// the window starts after the target, so is never the whole
+			// history, and is read out of the FrequencyIndex
+			frequencies = DrawStatistics.rank(mySnapshot, filtered, window);
+			if (frequencies == null) {
+				frequencies = DrawStatistics.rank(HistogramCounter.count(
+						myHistory, selection, true, myBonusBall));
+			}
+		}
+		DecayedFrequency decayed = null;
+		if (myHalfLife > 0 && whole) {
+			if (myDecayed == null) {
+				myDecayed = DecayedFrequency.of(myHistory, first, myHalfLife);
+			}
+			decayed = myDecayed;
+		} else if (myHalfLife > 0) {
+			decayed = DecayedFrequency.of(select(window), myHalfLife);
+		}
+		CoOccurrence pairs = null;
+		if (myPairs && whole) {
+			if (myPairCounts == null) {
+				myPairCounts = CoOccurrence.of(myHistory, selection,
+						myBonusBall, myTriples);
+			}
+			pairs = myPairCounts;
+		} else if (myPairs) {
+			pairs = CoOccurrence.of(myHistory, selection, myBonusBall,
+					myTriples);
+		}
+		return new DrawStatistics(frequencies, decayed, pairs,
+				myGapStatistics, myHistory, first, myLookBack);
+	}
+
+	/**
+	 * Sets the target, working out the gaps of the draws before it if they
+	 * are needed. Decayed frequencies are worked out when first asked for.
+	 *
+	 * @param theTarget
+	 *            the row of the target
+	 */
+	private void moveTo(final int theTarget) {
+		if (theTarget < 0 || theTarget >= myHistory.size() - 1) {
+			throw new IllegalArgumentException();
+		}
+		myTarget = theTarget;
+		if (myGaps) {
+			myGapStatistics = GapStatistics.of(myHistory, theTarget + 1);
+		}
+	}
+
+	/**
+	 * Selects the rows of a window of the history matching the filters of
+	 * the draws to count, as a table of their own.
+	 *
+	 * @param theWindow
+	 *            the first row and the row after the last
+	 * @return the matching draws, most recent first
+	 */
+	private DrawTable select(final int[] theWindow) {
+		final long[] selection = myDraws.select(mySnapshot.filters(),
+				theWindow);
+		final int[] rows = new int[theWindow[1] - theWindow[0]];
+		int count = 0;
+		for (int w = theWindow[0] >>> 6; w < selection.length; w++) {
+			long word = selection[w];
+			while (word != 0) {
+				rows[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return myHistory.select(rows, count);
+	}
+}
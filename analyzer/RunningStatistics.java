@@ -0,0 +1,344 @@
+package analyzer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Frequency statistics over the whole history of a game, kept up to date by
+ * adding draws one at a time, oldest first. For the number balls and the
+ * bonus balls it holds how often each number was drawn, how many draws were
+ * made at each range and the last draw each number was seen in, along with
+ * the number of draws added and the date of the newest. Adding a draw costs
+ * O(balls), so the updater can bring a saved copy up to date without reading
+ * the history again.
+ *
+ * A RunningStatistics handed out by DrawRepository is shared and must not
+ * have draws added to it.
+ *
+ * @author Robert
+ */
+public final class RunningStatistics {
+
+	/**
+	 * The number of draws added.
+	 */
+	private int myDrawCount;
+
+	/**
+	 * The date of the newest draw added as an epoch day.
+	 */
+	private int myNewestDay;
+
+	/**
+	 * The statistics of the number balls.
+	 */
+	private final Tally myNumbers;
+
+	/**
+	 * The statistics of the bonus balls.
+	 */
+	private final Tally myBonusBalls;
+
+	/**
+	 * Creates statistics of no draws.
+	 */
+	public RunningStatistics() {
+		this(0, 0, new Tally(), new Tally());
+	}
+
+	/**
+	 * Creates statistics from their parts.
+	 *
+	 * @param theDrawCount
+	 *            the number of draws added
+	 * @param theNewestDay
+	 *            the date of the newest draw
+	 * @param theNumbers
+	 *            the statistics of the number balls
+	 * @param theBonusBalls
+	 *            the statistics of the bonus balls
+	 */
+	private RunningStatistics(final int theDrawCount, final int theNewestDay,
+			final Tally theNumbers, final Tally theBonusBalls) {
+		myDrawCount = theDrawCount;
+		myNewestDay = theNewestDay;
+		myNumbers = theNumbers;
+		myBonusBalls = theBonusBalls;
+	}
+
+	/**
+	 * Works out the statistics of a whole history.
+	 *
+	 * @param theDraws
+	 *            every draw of a game, most recent first
+	 * @return the statistics of the history
+	 */
+	public static RunningStatistics of(final List<Draw> theDraws) {
+		final RunningStatistics result = new RunningStatistics();
+		for (int i = theDraws.size() - 1; i >= 0; i--) {
+			result.add(theDraws.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Reads statistics written by writeTo().
+	 *
+	 * @param theIn
+	 *            the input to read from
+	 * @return the statistics read
+	 * @throws IOException
+	 *             if the input cannot be read
+	 */
+	public static RunningStatistics readFrom(final DataInput theIn)
+			throws IOException {
+		final int drawCount = theIn.readInt();
+		final int newestDay = theIn.readInt();
+		final Tally numbers = Tally.readFrom(theIn);
+		final Tally bonusBalls = Tally.readFrom(theIn);
+		return new RunningStatistics(drawCount, newestDay, numbers,
+				bonusBalls);
+	}
+
+	/**
+	 * Writes these statistics out.
+	 *
+	 * @param theOut
+	 *            the output to write to
+	 * @throws IOException
+	 *             if the output cannot be written
+	 */
+	public void writeTo(final DataOutput theOut) throws IOException {
+		theOut.writeInt(myDrawCount);
+		theOut.writeInt(myNewestDay);
+		myNumbers.writeTo(theOut);
+		myBonusBalls.writeTo(theOut);
+	}
+
+	/**
+	 * Adds a draw newer than every draw added so far.
+	 *
+	 * @param theDraw
+	 *            the draw
+	 */
+	public void add(final Draw theDraw) {
+		myDrawCount++;
+		myNewestDay = theDraw.epochDay();
+		myNumbers.add(theDraw.numbers(), theDraw.numberRange(), myDrawCount);
+		if (theDraw.bonusBallRange() > 0) {
+			myBonusBalls.add(new int[] {theDraw.bonusBall()},
+					theDraw.bonusBallRange(), myDrawCount);
+		}
+	}
+
+	/**
+	 * Returns the number of draws added.
+	 *
+	 * @return the number of draws
+	 */
+	public int drawCount() {
+		return myDrawCount;
+	}
+
+	/**
+	 * Returns the date of the newest draw added.
+	 *
+	 * @return its epoch day, 0 if there is none
+	 */
+	public int newestDay() {
+		return myNewestDay;
+	}
+
+	/**
+	 * Returns the frequencies of the number balls.
+	 *
+	 * @return a histogram of every draw added
+	 */
+	public FrequencyHistogram numbers() {
+		return myNumbers.histogram();
+	}
+
+	/**
+	 * Returns the frequencies of the bonus balls.
+	 *
+	 * @return a histogram of every draw added
+	 */
+	public FrequencyHistogram bonusBalls() {
+		return myBonusBalls.histogram();
+	}
+
+	/**
+	 * Returns the last draw a number ball was seen in.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return how many draws had been added when it was last drawn, 0 if it
+	 *         never was
+	 */
+	public int lastSeen(final int theNumber) {
+		return myNumbers.lastSeen(theNumber);
+	}
+
+	/**
+	 * Returns the last draw a bonus ball was seen in.
+	 *
+	 * @param theNumber
+	 *            the bonus ball
+	 * @return how many draws had been added when it was last drawn, 0 if it
+	 *         never was
+	 */
+	public int bonusBallLastSeen(final int theNumber) {
+		return myBonusBalls.lastSeen(theNumber);
+	}
+
+	/**
+	 * The statistics of one kind of ball, indexed by number and grown as
+	 * higher ranges are added.
+	 *
+	 * @author Robert
+	 */
+	private static final class Tally {
+
+		/**
+		 * The number of times each number was drawn.
+		 */
+		private int[] myCounts;
+
+		/**
+		 * The number of draws made at each range.
+		 */
+		private int[] myDrawsAtRange;
+
+		/**
+		 * The draw each number was last seen in, 0 for never.
+		 */
+		private int[] myLastSeen;
+
+		/**
+		 * Creates an empty tally.
+		 */
+		private Tally() {
+			this(new int[1], new int[1], new int[1]);
+		}
+
+		/**
+		 * Creates a tally over the given arrays, all of the same length.
+		 *
+		 * @param theCounts
+		 *            the count of each number
+		 * @param theDrawsAtRange
+		 *            the draws at each range
+		 * @param theLastSeen
+		 *            the last draw of each number
+		 */
+		private Tally(final int[] theCounts, final int[] theDrawsAtRange,
+				final int[] theLastSeen) {
+			myCounts = theCounts;
+			myDrawsAtRange = theDrawsAtRange;
+			myLastSeen = theLastSeen;
+		}
+
+		/**
+		 * Reads a tally written by writeTo().
+		 *
+		 * @param theIn
+		 *            the input to read from
+		 * @return the tally read
+		 * @throws IOException
+		 *             if the input cannot be read
+		 */
+		private static Tally readFrom(final DataInput theIn)
+				throws IOException {
+			final int width = theIn.readUnsignedShort();
+			if (width == 0) {
+				throw new IOException("Empty statistics");
+			}
+			final int[] counts = new int[width];
+			final int[] drawsAtRange = new int[width];
+			final int[] lastSeen = new int[width];
+			for (int number = 0; number < width; number++) {
+				counts[number] = theIn.readInt();
+				drawsAtRange[number] = theIn.readInt();
+				lastSeen[number] = theIn.readInt();
+			}
+			return new Tally(counts, drawsAtRange, lastSeen);
+		}
+
+		/**
+		 * Writes this tally out.
+		 *
+		 * @param theOut
+		 *            the output to write to
+		 * @throws IOException
+		 *             if the output cannot be written
+		 */
+		private void writeTo(final DataOutput theOut) throws IOException {
+			theOut.writeShort(myCounts.length);
+			for (int number = 0; number < myCounts.length; number++) {
+				theOut.writeInt(myCounts[number]);
+				theOut.writeInt(myDrawsAtRange[number]);
+				theOut.writeInt(myLastSeen[number]);
+			}
+		}
+
+		/**
+		 * Adds the balls of one draw. A number drawn twice in the same draw
+		 * is counted once, as the draw's bitmask would.
+		 *
+		 * @param theNumbers
+		 *            the balls drawn
+		 * @param theRange
+		 *            the range of the draw
+		 * @param theDraw
+		 *            the number of the draw, counting from 1
+		 */
+		private void add(final int[] theNumbers, final int theRange,
+				final int theDraw) {
+			if (theRange >= myCounts.length) {
+				myCounts = Arrays.copyOf(myCounts, theRange + 1);
+				myDrawsAtRange = Arrays.copyOf(myDrawsAtRange, theRange + 1);
+				myLastSeen = Arrays.copyOf(myLastSeen, theRange + 1);
+			}
+			for (final int number : theNumbers) {
+				if (number >= 1 && number <= theRange
+						&& myLastSeen[number] != theDraw) {
+					myCounts[number]++;
+					myLastSeen[number] = theDraw;
+				}
+			}
+			myDrawsAtRange[theRange]++;
+		}
+
+		/**
+		 * Returns the last draw a number was seen in.
+		 *
+		 * @param theNumber
+		 *            the number
+		 * @return the draw, 0 if never or out of range
+		 */
+		private int lastSeen(final int theNumber) {
+			if (theNumber < 0 || theNumber >= myLastSeen.length) {
+				return 0;
+			}
+			return myLastSeen[theNumber];
+		}
+
+		/**
+		 * Makes a histogram of the counts.
+		 *
+		 * @return the histogram
+		 */
+		private FrequencyHistogram histogram() {
+			final FrequencyHistogram result = new FrequencyHistogram(
+					myCounts.length - 1);
+			for (int number = 1; number < myCounts.length; number++) {
+				result.set(number, myCounts[number], myDrawsAtRange[number]);
+			}
+			result.finish();
+			return result;
+		}
+	}
+}
@@ -0,0 +1,592 @@
+package analyzer;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Empirical p-values of the frequencies in a FrequencyHistogram, found by
+ * simulating random histories with the same number of draws at each range.
+ * In a random draw of b balls out of a range of r, each number comes up with
+ * probability b / r, so the count of a number over the draws at one range is
+ * binomial, and its count over every draw is the sum of the binomials of the
+ * ranges reaching it. That distribution is worked out once per number as a
+ * cumulative table, and a simulated history draws the count of each number
+ * with one uniform, so a history costs O(range) rather than O(draws). Only
+ * the counts of each number are simulated, each on its own, which is all a
+ * p-value of one number needs.
+ *
+ * For each number the fraction of histories in which it was at least as
+ * frequent as it really was, or at most as frequent, is its hot or cold
+ * p-value. The fraction in which the hottest or coldest number of the
+ * history went that far is the p-value of the number against picking the
+ * hottest or coldest of the whole range. That one is an approximation: the
+ * balls of a real draw are distinct, so the counts of the numbers are
+ * slightly negatively correlated, and counts simulated on their own spread
+ * a little further apart than real ones. Simulating whole draws would cost
+ * O(draws * balls) per history instead. Histories are simulated in pieces
+ * on the common ForkJoinPool, each with a SplittableRandom split off from
+ * one seeded by the caller, so the same seed gives the same p-values however
+ * the pieces are run.
+ *
+ * @author Robert
+ */
+public final class Significance {
+
+	/**
+	 * The number of histories simulated by a piece without splitting.
+	 */
+	private static final int PIECE_SIZE = 1 << 13;
+
+	/**
+	 * The relative probability below which the tails of a binomial are left
+	 * out of its table.
+	 */
+	private static final double TAIL = 1e-17;
+
+	/**
+	 * The number of histories simulated.
+	 */
+	private final int mySimulations;
+
+	/**
+	 * The number of histories in which each number was at least as frequent
+	 * as observed, indexed by number.
+	 */
+	private final long[] myHot;
+
+	/**
+	 * The number of histories in which each number was at most as frequent
+	 * as observed, indexed by number.
+	 */
+	private final long[] myCold;
+
+	/**
+	 * The number of histories whose hottest number was at least as frequent
+	 * as each number was observed to be, indexed by number.
+	 */
+	private final long[] myHottest;
+
+	/**
+	 * The number of histories whose coldest number was at most as frequent
+	 * as each number was observed to be, indexed by number.
+	 */
+	private final long[] myColdest;
+
+	/**
+	 * Creates p-values from the tallies of the simulated histories.
+	 *
+	 * @param theSimulations
+	 *            the number of histories simulated
+	 * @param theTallies
+	 *            the hot, cold, hottest and coldest tallies
+	 */
+	private Significance(final int theSimulations, final long[][] theTallies) {
+		mySimulations = theSimulations;
+		myHot = theTallies[0];
+		myCold = theTallies[1];
+		myHottest = theTallies[2];
+		myColdest = theTallies[3];
+	}
+
+	/**
+	 * Simulates random histories against a histogram of real draws.
+	 *
+	 * @param theObserved
+	 *            the counts of the real draws
+	 * @param theBalls
+	 *            the number of balls of each draw, 1 for bonus balls
+	 * @param theSimulations
+	 *            the number of histories to simulate
+	 * @param theSeed
+	 *            the seed of the random numbers
+	 * @return the p-values of every number of the histogram
+	 */
+	public static Significance of(final FrequencyHistogram theObserved,
+			final int theBalls, final int theSimulations, final long theSeed) {
+		final Model model = new Model(theObserved, theBalls);
+		final long[][] tallies;
+		if (theSimulations > PIECE_SIZE) {
+			tallies = ForkJoinPool.commonPool().invoke(
+					new Piece(model, new SplittableRandom(theSeed),
+							theSimulations));
+		} else {
+			tallies = model.simulate(new SplittableRandom(theSeed),
+					theSimulations);
+		}
+		return new Significance(theSimulations, tallies);
+	}
+
+	/**
+	 * Returns the number of histories simulated.
+	 *
+	 * @return the number of histories
+	 */
+	public int simulations() {
+		return mySimulations;
+	}
+
+	/**
+	 * Returns the chance of a number being at least as frequent as it was by
+	 * luck alone.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return the fraction of histories in which it was at least as frequent
+	 */
+	public double hotPValue(final int theNumber) {
+		return fraction(myHot, theNumber);
+	}
+
+	/**
+	 * Returns the chance of a number being at most as frequent as it was by
+	 * luck alone.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return the fraction of histories in which it was at most as frequent
+	 */
+	public double coldPValue(final int theNumber) {
+		return fraction(myCold, theNumber);
+	}
+
+	/**
+	 * Returns the chance of the hottest number of a random history being at
+	 * least as frequent as the given number was, approximated with the counts
+	 * of the numbers simulated on their own.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return the fraction of histories whose hottest number was as frequent
+	 */
+	public double hottestPValue(final int theNumber) {
+		return fraction(myHottest, theNumber);
+	}
+
+	/**
+	 * Returns the chance of the coldest number of a random history being at
+	 * most as frequent as the given number was, approximated with the counts
+	 * of the numbers simulated on their own.
+	 *
+	 * @param theNumber
+	 *            the number
+	 * @return the fraction of histories whose coldest number was as rare
+	 */
+	public double coldestPValue(final int theNumber) {
+		return fraction(myColdest, theNumber);
+	}
+
+	/**
+	 * Turns a tally into a fraction of the histories.
+	 *
+	 * @param theTally
+	 *            the tally
+	 * @param theNumber
+	 *            the number
+	 * @return its fraction, 1 for a number that was not simulated
+	 */
+	private double fraction(final long[] theTally, final int theNumber) {
+		if (theNumber < 1 || theNumber >= theTally.length
+				|| mySimulations == 0) {
+			return 1;
+		}
+		return (double) theTally[theNumber] / mySimulations;
+	}
+
+	/**
+	 * What is simulated: the cumulative table of the null distribution of
+	 * each number's count, and the observed counts they are compared to. It
+	 * is only read once made, so every piece shares it.
+	 *
+	 * @author Robert
+	 */
+	private static final class Model {
+
+		/**
+		 * The highest number simulated.
+		 */
+		private final int myHighest;
+
+		/**
+		 * The cumulative probabilities of each number's count from its lowest
+		 * count kept, indexed by number. Numbers reached by the same ranges
+		 * share a table.
+		 */
+		private final double[][] myTables;
+
+		/**
+		 * For each number, where in its table to start looking for a uniform
+		 * in each of as many equal slices of [0, 1) as the table is long, so
+		 * a count is found in about two steps rather than by bisection.
+		 */
+		private final int[][] myGuides;
+
+		/**
+		 * The lowest count kept in each number's table, indexed by number.
+		 */
+		private final int[] myLows;
+
+		/**
+		 * The observed count of each number, indexed by number.
+		 */
+		private final int[] myCounts;
+
+		/**
+		 * The number of draws reaching each number, indexed by number.
+		 */
+		private final int[] myDraws;
+
+		/**
+		 * Makes the tables of the numbers of a histogram. The count of a
+		 * number is the sum of the binomials of every range reaching it, so
+		 * walking down from the highest number each range met is added to
+		 * the distribution of the numbers above it.
+		 *
+		 * @param theObserved
+		 *            the counts of the real draws
+		 * @param theBalls
+		 *            the number of balls of each draw
+		 */
+		private Model(final FrequencyHistogram theObserved,
+				final int theBalls) {
+			myHighest = theObserved.highestNumber();
+			myCounts = new int[myHighest + 1];
+			myDraws = new int[myHighest + 2];
+			myTables = new double[myHighest + 1][];
+			myGuides = new int[myHighest + 1][];
+			myLows = new int[myHighest + 1];
+			int low = 0;
+			double[] probabilities = {1};
+			double[] table = {1};
+			int[] guide = {0};
+			for (int number = myHighest; number >= 1; number--) {
+				myCounts[number] = theObserved.count(number);
+				myDraws[number] = theObserved.draws(number);
+				final int draws = myDraws[number] - myDraws[number + 1];
+				if (draws > 0) {
+					final int[] binomialLow = new int[1];
+					final double[] binomial = binomial(draws,
+							Math.min(1.0, (double) theBalls / number),
+							binomialLow);
+					probabilities = trim(convolve(probabilities, binomial),
+							binomialLow);
+					low += binomialLow[0];
+					table = cumulate(probabilities);
+					guide = guide(table);
+				}
+				myTables[number] = table;
+				myGuides[number] = guide;
+				myLows[number] = low;
+			}
+		}
+
+		/**
+		 * Works out the probabilities of a binomial around its mode, down to
+		 * a relative probability of TAIL.
+		 *
+		 * @param theTrials
+		 *            the number of draws
+		 * @param theChance
+		 *            the chance of a number in one draw
+		 * @param theLow
+		 *            where the lowest count kept is put
+		 * @return the probabilities from the lowest count kept
+		 */
+		private static double[] binomial(final int theTrials,
+				final double theChance, final int[] theLow) {
+			if (theChance >= 1) {
+				theLow[0] = theTrials;
+				return new double[] {1};
+			}
+			final int mode = (int) Math.min(theTrials,
+					Math.floor((theTrials + 1) * theChance));
+			final double odds = theChance / (1 - theChance);
+			// walk out from the mode both ways until the tails are negligible
+			int low = mode;
+			double weight = 1;
+			while (low > 0 && weight > TAIL) {
+				weight *= low / ((theTrials - low + 1) * odds);
+				low--;
+			}
+			int high = mode;
+			weight = 1;
+			while (high < theTrials && weight > TAIL) {
+				weight *= (theTrials - high) * odds / (high + 1);
+				high++;
+			}
+			final double[] result = new double[high - low + 1];
+			result[mode - low] = 1;
+			for (int k = mode - 1; k >= low; k--) {
+				result[k - low] = result[k + 1 - low] * (k + 1)
+						/ ((theTrials - k) * odds);
+			}
+			for (int k = mode + 1; k <= high; k++) {
+				result[k - low] = result[k - 1 - low] * (theTrials - k + 1)
+						* odds / k;
+			}
+			double total = 0;
+			for (final double p : result) {
+				total += p;
+			}
+			for (int k = 0; k < result.length; k++) {
+				result[k] /= total;
+			}
+			theLow[0] = low;
+			return result;
+		}
+
+		/**
+		 * Works out the distribution of the sum of two counts.
+		 *
+		 * @param theFirst
+		 *            the probabilities of one count
+		 * @param theSecond
+		 *            the probabilities of the other
+		 * @return the probabilities of their sum
+		 */
+		private static double[] convolve(final double[] theFirst,
+				final double[] theSecond) {
+			final double[] result = new double[theFirst.length
+					+ theSecond.length - 1];
+			for (int i = 0; i < theFirst.length; i++) {
+				for (int j = 0; j < theSecond.length; j++) {
+					result[i + j] += theFirst[i] * theSecond[j];
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Drops the tails of a distribution below a relative probability of
+		 * TAIL.
+		 *
+		 * @param theProbabilities
+		 *            the probabilities
+		 * @param theLow
+		 *            the lowest count, moved up by what is dropped
+		 * @return the probabilities kept
+		 */
+		private static double[] trim(final double[] theProbabilities,
+				final int[] theLow) {
+			double most = 0;
+			for (final double p : theProbabilities) {
+				most = Math.max(most, p);
+			}
+			int first = 0;
+			while (theProbabilities[first] < most * TAIL) {
+				first++;
+			}
+			int last = theProbabilities.length - 1;
+			while (theProbabilities[last] < most * TAIL) {
+				last--;
+			}
+			theLow[0] += first;
+			return Arrays.copyOfRange(theProbabilities, first, last + 1);
+		}
+
+		/**
+		 * Turns probabilities into a cumulative table ending at exactly 1.
+		 *
+		 * @param theProbabilities
+		 *            the probabilities
+		 * @return the cumulative probabilities
+		 */
+		private static double[] cumulate(final double[] theProbabilities) {
+			final double[] result = new double[theProbabilities.length];
+			double total = 0;
+			for (final double p : theProbabilities) {
+				total += p;
+			}
+			double sum = 0;
+			for (int k = 0; k < result.length; k++) {
+				sum += theProbabilities[k];
+				result[k] = sum / total;
+			}
+			result[result.length - 1] = 1;
+			return result;
+		}
+
+		/**
+		 * Makes the guide of a cumulative table, the first entry above the
+		 * start of each slice.
+		 *
+		 * @param theTable
+		 *            the cumulative probabilities
+		 * @return the guide
+		 */
+		private static int[] guide(final double[] theTable) {
+			final int[] result = new int[theTable.length];
+			int k = 0;
+			for (int slice = 0; slice < result.length; slice++) {
+				final double start = (double) slice / result.length;
+				while (theTable[k] <= start) {
+					k++;
+				}
+				result[slice] = k;
+			}
+			return result;
+		}
+
+		/**
+		 * Simulates histories and tallies them against the observed counts.
+		 *
+		 * @param theRandom
+		 *            the random numbers of this run
+		 * @param theSimulations
+		 *            the number of histories
+		 * @return the hot, cold, hottest and coldest tallies
+		 */
+		private long[][] simulate(final SplittableRandom theRandom,
+				final int theSimulations) {
+			final long[][] tallies = new long[4][myHighest + 1];
+			final int[] counts = new int[myHighest + 1];
+			for (int s = 0; s < theSimulations; s++) {
+				// the counts of the history, with its hottest and coldest
+				int hottest = 0;
+				int coldest = 0;
+				for (int number = 1; number <= myHighest; number++) {
+					if (myDraws[number] == 0) {
+						continue;
+					}
+					counts[number] = sample(theRandom, number);
+					if (hottest == 0
+							|| compare(counts, number, counts, hottest) > 0) {
+						hottest = number;
+					}
+					if (coldest == 0
+							|| compare(counts, number, counts, coldest) < 0) {
+						coldest = number;
+					}
+				}
+				for (int number = 1; number <= myHighest; number++) {
+					if (myDraws[number] == 0) {
+						continue;
+					}
+					if (counts[number] >= myCounts[number]) {
+						tallies[0][number]++;
+					}
+					if (counts[number] <= myCounts[number]) {
+						tallies[1][number]++;
+					}
+					if (compare(counts, hottest, myCounts, number) >= 0) {
+						tallies[2][number]++;
+					}
+					if (compare(counts, coldest, myCounts, number) <= 0) {
+						tallies[3][number]++;
+					}
+				}
+			}
+			return tallies;
+		}
+
+		/**
+		 * Draws the count of a number out of its table.
+		 *
+		 * @param theRandom
+		 *            the random numbers
+		 * @param theNumber
+		 *            the number
+		 * @return the count
+		 */
+		private int sample(final SplittableRandom theRandom,
+				final int theNumber) {
+			final double[] table = myTables[theNumber];
+			final double u = theRandom.nextDouble();
+			int k = myGuides[theNumber][(int) (u * table.length)];
+			while (table[k] <= u) {
+				k++;
+			}
+			return myLows[theNumber] + k;
+		}
+
+		/**
+		 * Compares the frequencies of two numbers by cross-multiplication.
+		 *
+		 * @param theFirstCounts
+		 *            the counts of the first number
+		 * @param theFirst
+		 *            a number
+		 * @param theSecondCounts
+		 *            the counts of the second number
+		 * @param theSecond
+		 *            another number
+		 * @return negative, zero or positive as the first is colder, the same
+		 *         or hotter
+		 */
+		private int compare(final int[] theFirstCounts, final int theFirst,
+				final int[] theSecondCounts, final int theSecond) {
+			return Long.compare((long) theFirstCounts[theFirst]
+					* myDraws[theSecond], (long) theSecondCounts[theSecond]
+					* myDraws[theFirst]);
+		}
+	}
+
+	/**
+	 * A run of histories to simulate, split in halves until it is small
+	 * enough.
+	 *
+	 * @author Robert
+	 */
+	private static final class Piece extends RecursiveTask<long[][]> {
+
+		/**
+		 * Serial version, as tasks are Serializable.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * What is simulated.
+		 */
+		private final Model myModel;
+
+		/**
+		 * The random numbers of this piece.
+		 */
+		private final SplittableRandom myRandom;
+
+		/**
+		 * The number of histories.
+		 */
+		private final int mySimulations;
+
+		/**
+		 * Creates a piece of simulating.
+		 *
+		 * @param theModel
+		 *            what is simulated
+		 * @param theRandom
+		 *            the random numbers of this piece
+		 * @param theSimulations
+		 *            the number of histories
+		 */
+		private Piece(final Model theModel, final SplittableRandom theRandom,
+				final int theSimulations) {
+			myModel = theModel;
+			myRandom = theRandom;
+			mySimulations = theSimulations;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected long[][] compute() {
+			if (mySimulations <= PIECE_SIZE) {
+				return myModel.simulate(myRandom, mySimulations);
+			}
+			final int half = mySimulations / 2;
+			// split before forking so the streams do not depend on timing
+			final Piece second = new Piece(myModel, myRandom.split(),
+					mySimulations - half);
+			second.fork();
+			final long[][] result = new Piece(myModel, myRandom, half)
+					.compute();
+			final long[][] other = second.join();
+			for (int t = 0; t < result.length; t++) {
+				for (int number = 0; number < result[t].length; number++) {
+					result[t][number] += other[t][number];
+				}
+			}
+			return result;
+		}
+	}
+}
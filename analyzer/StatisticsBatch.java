@@ -0,0 +1,551 @@
+package analyzer;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import lotto.Lottery;
+import database.DrawHistory;
+import database.DrawRepository;
+
+/**
+ * The statistics of many queries of one game, worked out together so that a
+ * statistic asked for by several queries is only worked out once. Queries are
+ * grouped by the rows of the history they select, which is their window and
+ * filters, and each group works out the frequencies, the pair counts and the
+ * decayed frequencies of each half life that any of its queries asks for,
+ * which its queries then share. As in DrawStatistics.compute(), frequencies of
+ * an unfiltered window are read out without counting, and decayed frequencies
+ * of the whole history are the ones DrawRepository keeps. The rest are
+ * counted in one pass over the history, oldest draw first, in which each draw
+ * is added to every group that selects it, after a pass over the ranges of
+ * the draws to size the counts. So the cost grows with the number of
+ * groups and half lives, not with the number of queries, and the statistics
+ * of each query are the same as DrawStatistics.compute() works out for it
+ * alone.
+ *
+ * @author Robert
+ */
+public final class StatisticsBatch {
+
+	/**
+	 * The game every query is of.
+	 */
+	private final Lottery myGame;
+
+	/**
+	 * The queries, in the order they were added.
+	 */
+	private final List<Query> myQueries;
+
+	/**
+	 * Creates an empty batch of queries of a game.
+	 *
+	 * @param theGame
+	 *            the game every query is of
+	 */
+	public StatisticsBatch(final Lottery theGame) {
+		myGame = theGame;
+		myQueries = new ArrayList<Query>();
+	}
+
+	/**
+	 * Adds a query, asking for the same statistics as
+	 * DrawStatistics.compute() is given.
+	 *
+	 * @param theDraws
+	 *            the draws of the game to count frequencies over
+	 * @param theFrequencies
+	 *            if the hot, cold or raw data algorithms will be run
+	 * @param theLookBack
+	 *            how many draws ago the periodic draw is, 0 if the periodic
+	 *            algorithm will not be run
+	 * @param theHalfLife
+	 *            the half life of the decayed algorithm in draws, 0 if it
+	 *            will not be run
+	 * @param thePairs
+	 *            if the hot or cold pairs algorithms will be run
+	 * @param theTriples
+	 *            if the pairs algorithms pick from triples
+	 * @param theGaps
+	 *            if the overdue algorithm will be run
+	 */
+	public void add(final GetDraws theDraws, final boolean theFrequencies,
+			final int theLookBack, final int theHalfLife,
+			final boolean thePairs, final boolean theTriples,
+			final boolean theGaps) {
+		myQueries.add(new Query(theDraws, theFrequencies, theLookBack,
+				theHalfLife, thePairs, theTriples, theGaps));
+	}
+
+	/**
+	 * Returns the number of queries added.
+	 *
+	 * @return the number of queries
+	 */
+	public int size() {
+		return myQueries.size();
+	}
+
+	/**
+	 * Works out the statistics of every query.
+	 *
+	 * @return the statistics of each query, in the order they were added
+	 * @throws FileNotFoundException
+	 *             if the database file cannot be found
+	 */
+	public List<DrawStatistics> compute() throws FileNotFoundException {
+		final DrawHistory snapshot = DrawRepository.getHistory(myGame);
+		final DrawTable history = snapshot.table();
+		final int size = snapshot.size();
+		final List<Group> groups = new ArrayList<Group>();
+		final Group[] groupOf = new Group[myQueries.size()];
+		GapStatistics gaps = null;
+		for (int i = 0; i < myQueries.size(); i++) {
+			final Query query = myQueries.get(i);
+			if (query.myGaps && gaps == null) {
+				gaps = DrawRepository.getGaps(snapshot);
+			}
+			if (!query.myFrequencies && query.myHalfLife == 0
+					&& !query.myPairs) {
+				continue;
+			}
+			final int[] window = query.myDraws.getWindow(snapshot);
+			for (final Group group : groups) {
+				if (group.selects(query.myDraws, window)) {
+					groupOf[i] = group;
+					break;
+				}
+			}
+			if (groupOf[i] == null) {
+				groupOf[i] = new Group(query.myDraws, window, size);
+				groups.add(groupOf[i]);
+			}
+			groupOf[i].ask(query);
+		}
+		final List<Group> counted = new ArrayList<Group>();
+		int first = size;
+		int end = 0;
+		for (final Group group : groups) {
+			if (group.start(snapshot)) {
+				counted.add(group);
+				first = Math.min(first, group.myWindow[0]);
+				end = Math.max(end, group.myWindow[1]);
+			}
+		}
+		if (!counted.isEmpty()) {
+			for (int row = first; row < end; row++) {
+				for (final Group group : counted) {
+					if (group.contains(row)) {
+						group.fit(history, row);
+					}
+				}
+			}
+			for (final Group group : counted) {
+				group.allocate(myGame.hasBonusBall());
+			}
+			for (int row = end - 1; row >= first; row--) {
+				for (final Group group : counted) {
+					if (group.contains(row)) {
+						group.add(history, row);
+					}
+				}
+			}
+			for (final Group group : counted) {
+				group.finish();
+			}
+		}
+		final List<DrawStatistics> result = new ArrayList<DrawStatistics>();
+		for (int i = 0; i < myQueries.size(); i++) {
+			final Query query = myQueries.get(i);
+			final Group group = groupOf[i];
+			Ranking[] frequencies = null;
+			if (query.myFrequencies) {
+				frequencies = group.myRankings;
+			}
+			DecayedFrequency decayed = null;
+			if (query.myHalfLife > 0) {
+				decayed = group.decayed(query.myHalfLife);
+			}
+			CoOccurrence pairs = null;
+			if (query.myPairs && query.myTriples) {
+				pairs = group.myPairCounts;
+			} else if (query.myPairs) {
+				pairs = group.myPairCounts.withoutTriples();
+			}
+			result.add(new DrawStatistics(frequencies, decayed, pairs,
+					query.myGaps ? gaps : null, history, 0, query.myLookBack));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * The statistics one query asks for.
+	 *
+	 * @author Robert
+	 */
+	private static final class Query {
+
+		/**
+		 * The draws to count frequencies over.
+		 */
+		private final GetDraws myDraws;
+
+		/**
+		 * If frequencies are asked for.
+		 */
+		private final boolean myFrequencies;
+
+		/**
+		 * How many draws ago the periodic draw is, 0 if not asked for.
+		 */
+		private final int myLookBack;
+
+		/**
+		 * The half life of the decayed frequencies, 0 if not asked for.
+		 */
+		private final int myHalfLife;
+
+		/**
+		 * If pair counts are asked for.
+		 */
+		private final boolean myPairs;
+
+		/**
+		 * If triple counts are asked for.
+		 */
+		private final boolean myTriples;
+
+		/**
+		 * If gaps are asked for.
+		 */
+		private final boolean myGaps;
+
+		/**
+		 * Creates a query.
+		 *
+		 * @param theDraws
+		 *            the draws to count frequencies over
+		 * @param theFrequencies
+		 *            if frequencies are asked for
+		 * @param theLookBack
+		 *            how many draws ago the periodic draw is
+		 * @param theHalfLife
+		 *            the half life of the decayed frequencies
+		 * @param thePairs
+		 *            if pair counts are asked for
+		 * @param theTriples
+		 *            if triple counts are asked for
+		 * @param theGaps
+		 *            if gaps are asked for
+		 */
+		private Query(final GetDraws theDraws, final boolean theFrequencies,
+				final int theLookBack, final int theHalfLife,
+				final boolean thePairs, final boolean theTriples,
+				final boolean theGaps) {
+			myDraws = theDraws;
+			myFrequencies = theFrequencies;
+			myLookBack = theLookBack;
+			myHalfLife = theHalfLife;
+			myPairs = thePairs;
+			myTriples = theTriples;
+			myGaps = theGaps;
+		}
+	}
+
+	/**
+	 * The queries that select the same rows of the history, and the
+	 * statistics any of them asks for.
+	 *
+	 * @author Robert
+	 */
+	private static final class Group {
+
+		/**
+		 * The draws to count of the first query of the group.
+		 */
+		private final GetDraws myDraws;
+
+		/**
+		 * The first row of the window and the row after the last.
+		 */
+		private final int[] myWindow;
+
+		/**
+		 * If the window is the whole history, unfiltered.
+		 */
+		private final boolean myWhole;
+
+		/**
+		 * The half lives asked for, each once.
+		 */
+		private final List<Integer> myHalfLives;
+
+		/**
+		 * The decayed frequencies of each half life asked for.
+		 */
+		private final List<DecayedFrequency> myDecayed;
+
+		/**
+		 * If frequencies are asked for.
+		 */
+		private boolean myFrequencies;
+
+		/**
+		 * If pair counts are asked for.
+		 */
+		private boolean myPairs;
+
+		/**
+		 * If triple counts are asked for by any query.
+		 */
+		private boolean myTriples;
+
+		/**
+		 * The rankings of the number balls and of the bonus balls, once
+		 * worked out.
+		 */
+		private Ranking[] myRankings;
+
+		/**
+		 * The pair counts, once worked out.
+		 */
+		private CoOccurrence myPairCounts;
+
+		/**
+		 * The selected rows of the history while counting.
+		 */
+		private long[] mySelection;
+
+		/**
+		 * The number balls and the bonus balls counted while counting, null
+		 * if not needed.
+		 */
+		private FrequencyHistogram[] myCounts;
+
+		/**
+		 * The decayed frequencies scored while counting, in the order of
+		 * myHalfLives, null for those of the whole history.
+		 */
+		private DecayedFrequency[] myScores;
+
+		/**
+		 * The highest range of the number balls selected.
+		 */
+		private int myHighest;
+
+		/**
+		 * The highest range of the bonus balls selected.
+		 */
+		private int myHighestBonus;
+
+		/**
+		 * The number of rows selected.
+		 */
+		private int myCount;
+
+		/**
+		 * Room for the balls of a draw while counting pairs.
+		 */
+		private int[] myBalls;
+
+		/**
+		 * Creates an empty group of the queries selecting the given rows.
+		 *
+		 * @param theDraws
+		 *            the draws to count of the first query
+		 * @param theWindow
+		 *            its window
+		 * @param theSize
+		 *            the number of draws in the history
+		 */
+		private Group(final GetDraws theDraws, final int[] theWindow,
+				final int theSize) {
+			myDraws = theDraws;
+			myWindow = theWindow;
+			myWhole = !theDraws.isFiltered() && theWindow[0] == 0
+					&& theWindow[1] == theSize;
+			myHalfLives = new ArrayList<Integer>();
+			myDecayed = new ArrayList<DecayedFrequency>();
+		}
+
+		/**
+		 * Returns true if the given draws select the rows of this group.
+		 *
+		 * @param theDraws
+		 *            the draws to count of a query
+		 * @param theWindow
+		 *            their window
+		 * @return if the query belongs to this group
+		 */
+		private boolean selects(final GetDraws theDraws,
+				final int[] theWindow) {
+			return myWindow[0] == theWindow[0] && myWindow[1] == theWindow[1]
+					&& myDraws.hasSameFilters(theDraws);
+		}
+
+		/**
+		 * Adds the statistics a query asks for to those of the group.
+		 *
+		 * @param theQuery
+		 *            the query
+		 */
+		private void ask(final Query theQuery) {
+			myFrequencies |= theQuery.myFrequencies;
+			myPairs |= theQuery.myPairs;
+			myTriples |= theQuery.myPairs && theQuery.myTriples;
+			if (theQuery.myHalfLife > 0
+					&& !myHalfLives.contains(theQuery.myHalfLife)) {
+				myHalfLives.add(theQuery.myHalfLife);
+			}
+		}
+
+		/**
+		 * Works out the statistics that need no counting, and gets ready to
+		 * count the rest.
+		 *
+		 * @param theHistory
+		 *            the history of the game
+		 * @return true if anything is left to count
+		 */
+		private boolean start(final DrawHistory theHistory) {
+			boolean counting = myPairs;
+			if (myFrequencies) {
+				myRankings = DrawStatistics.rank(theHistory,
+						myDraws.isFiltered(), myWindow);
+				counting |= myRankings == null;
+			}
+			myScores = new DecayedFrequency[myHalfLives.size()];
+			for (final int halfLife : myHalfLives) {
+				if (myWhole) {
+					myDecayed.add(DrawRepository.getDecayed(theHistory,
+							halfLife));
+				} else {
+					myDecayed.add(null);
+					counting = true;
+				}
+			}
+			if (counting) {
+				mySelection = myDraws.select(theHistory.filters(), myWindow);
+			}
+			return counting;
+		}
+
+		/**
+		 * Returns true if the given row is selected.
+		 *
+		 * @param theRow
+		 *            the row of the history
+		 * @return if the row is counted
+		 */
+		private boolean contains(final int theRow) {
+			return theRow >= myWindow[0] && theRow < myWindow[1]
+					&& (mySelection[theRow >>> 6] & 1L << theRow) != 0;
+		}
+
+		/**
+		 * Makes room for the ranges of a selected row.
+		 *
+		 * @param theHistory
+		 *            the history
+		 * @param theRow
+		 *            the row
+		 */
+		private void fit(final DrawTable theHistory, final int theRow) {
+			myHighest = Math.max(myHighest, theHistory.numberRange(theRow));
+			myHighestBonus = Math.max(myHighestBonus,
+					theHistory.bonusBallRange(theRow));
+			myCount++;
+		}
+
+		/**
+		 * Makes the empty counts, once every selected row has been fitted.
+		 *
+		 * @param theBonusBall
+		 *            if the game has a bonus ball
+		 */
+		private void allocate(final boolean theBonusBall) {
+			if (myFrequencies && myRankings == null) {
+				myCounts = new FrequencyHistogram[2];
+				myCounts[0] = new FrequencyHistogram(myHighest);
+				if (theBonusBall) {
+					myCounts[1] = new FrequencyHistogram(myHighestBonus);
+				}
+			}
+			if (myPairs) {
+				myPairCounts = new CoOccurrence(myHighest,
+						theBonusBall ? myHighestBonus : 0, myTriples);
+				myBalls = new int[myHighest];
+			}
+			for (int i = 0; i < myScores.length; i++) {
+				if (myDecayed.get(i) == null) {
+					myScores[i] = new DecayedFrequency(myHalfLives.get(i),
+							myCount, myHighest, myHighestBonus);
+				}
+			}
+		}
+
+		/**
+		 * Counts a selected row, oldest first.
+		 *
+		 * @param theHistory
+		 *            the history
+		 * @param theRow
+		 *            the row
+		 */
+		private void add(final DrawTable theHistory, final int theRow) {
+			if (myCounts != null) {
+				myCounts[0].addNumbers(theHistory, theRow);
+				if (myCounts[1] != null) {
+					myCounts[1].addBonusBall(theHistory, theRow);
+				}
+			}
+			if (myPairCounts != null) {
+				myPairCounts.add(theHistory, theRow, myBalls);
+			}
+			for (final DecayedFrequency scores : myScores) {
+				if (scores != null) {
+					scores.addRows(theHistory, theRow, 1);
+				}
+			}
+		}
+
+		/**
+		 * Turns the counts into the statistics, once every row is counted.
+		 */
+		private void finish() {
+			if (myCounts != null) {
+				for (final FrequencyHistogram counts : myCounts) {
+					if (counts != null) {
+						counts.finish();
+					}
+				}
+				myRankings = DrawStatistics.rank(myCounts);
+			}
+			if (myPairCounts != null) {
+				myPairCounts.finish();
+			}
+			for (int i = 0; i < myScores.length; i++) {
+				if (myScores[i] != null) {
+					myDecayed.set(i, myScores[i]);
+				}
+			}
+			mySelection = null;
+			myCounts = null;
+			myScores = null;
+			myBalls = null;
+		}
+
+		/**
+		 * Returns the decayed frequencies of a half life asked for.
+		 *
+		 * @param theHalfLife
+		 *            the half life
+		 * @return the decayed frequencies
+		 */
+		private DecayedFrequency decayed(final int theHalfLife) {
+			return myDecayed.get(myHalfLives.indexOf(theHalfLife));
+		}
+	}
+}
@@ -0,0 +1,436 @@
+package controller;
+
+import java.io.FileNotFoundException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import lotto.Lottery;
+import analyzer.DrawStatistics;
+import analyzer.DrawTable;
+import analyzer.GetDraws;
+import analyzer.NumberMask;
+import analyzer.Replay;
+import database.DrawRepository;
+
+/**
+ * How the selected algorithms would have done had they been run before each
+ * past draw of a game. Every draw with at least MIN_HISTORY draws before it is
+ * replayed: the numbers are picked from statistics of only the draws before
+ * it, the way Calculator picks them for the next draw, and the tickets they
+ * make are scored against what was drawn. When the results are wheeled every
+ * ticket of the wheel is played, otherwise the picks are played as one
+ * ticket, and each ticket is counted under the number of balls it matched and
+ * whether it had the bonus ball. A wheel is not written out; a wheel of p
+ * picks with h of them drawn has C(h, m) C(p - h, k - m) tickets matching m
+ * of its k balls.
+ *
+ * The draws are replayed by Replay, which moves from one draw to the next
+ * adding the one draw in between, so the statistics never go back over the
+ * history. The draws are split into pieces of PIECE_SIZE draws on the common
+ * ForkJoinPool, each piece replaying its own run of draws and counting into
+ * a Backtest of its own, and the counts are added together on the way back
+ * up.
+ *
+ * @author Robert
+ */
+public final class Backtest {
+
+	/**
+	 * The fewest draws before a draw for it to be replayed.
+	 */
+	public static final int MIN_HISTORY = GetDraws.MIN_DRAWS_TO_COUNT;
+
+	/**
+	 * The number of draws below which a piece is replayed without
+	 * splitting.
+	 */
+	private static final int PIECE_SIZE = 128;
+
+	/**
+	 * Newline specific for Windows machines.
+	 */
+	private static final String NEWLINE = "\r\n";
+
+	/**
+	 * The number of balls drawn in the game.
+	 */
+	private final int myBalls;
+
+	/**
+	 * If the game has a bonus ball.
+	 */
+	private final boolean myBonusBall;
+
+	/**
+	 * The number of tickets that matched each number of balls, indexed by
+	 * matches times two plus one if the bonus ball was matched.
+	 */
+	private final long[] myTickets;
+
+	/**
+	 * The number of draws replayed.
+	 */
+	private int myDraws;
+
+	/**
+	 * The number of numbers picked over every draw replayed.
+	 */
+	private long myPicks;
+
+	/**
+	 * The number of picked numbers that were drawn.
+	 */
+	private long myHits;
+
+	/**
+	 * Creates an empty backtest, counted into as draws are replayed.
+	 *
+	 * @param theBalls
+	 *            the number of balls drawn in the game
+	 * @param theBonusBall
+	 *            if the game has a bonus ball
+	 */
+	Backtest(final int theBalls, final boolean theBonusBall) {
+		myBalls = theBalls;
+		myBonusBall = theBonusBall;
+		myTickets = new long[(theBalls + 1) * 2];
+	}
+
+	/**
+	 * Replays every past draw of the selected game with the given settings.
+	 * The raw data setting is ignored, as raw data picks no numbers.
+	 *
+	 * @param settings
+	 *            the settings to replay
+	 * @return how the tickets did
+	 * @throws FileNotFoundException
+	 *             if a database file cannot be opened
+	 */
+	public static Backtest run(final Settings settings)
+			throws FileNotFoundException {
+		final Lottery game = settings.selectedGame();
+		if (DrawRepository.getTable(game).size() <= MIN_HISTORY) {
+			return new Backtest(game.getNumberOfBalls(), game.hasBonusBall());
+		}
+		final Replay replay = Calculator.createReplay(settings, MIN_HISTORY);
+		return ForkJoinPool.commonPool().invoke(
+				new Piece(settings, replay, 0, replay.target() + 1));
+	}
+
+	/**
+	 * Returns the number of draws replayed.
+	 *
+	 * @return the number of draws
+	 */
+	public int draws() {
+		return myDraws;
+	}
+
+	/**
+	 * Returns the number of numbers picked over every draw replayed.
+	 *
+	 * @return the number of picks
+	 */
+	public long picks() {
+		return myPicks;
+	}
+
+	/**
+	 * Returns the number of picked numbers that were drawn.
+	 *
+	 * @return the number of hits
+	 */
+	public long hits() {
+		return myHits;
+	}
+
+	/**
+	 * Returns the share of the picked numbers that were drawn, which by
+	 * chance alone would be about the number of balls over the range.
+	 *
+	 * @return the hit rate, 0 if nothing was picked
+	 */
+	public double hitRate() {
+		return myPicks == 0 ? 0 : (double) myHits / myPicks;
+	}
+
+	/**
+	 * Returns the number of tickets played over every draw replayed.
+	 *
+	 * @return the number of tickets
+	 */
+	public long tickets() {
+		long total = 0;
+		for (final long tickets : myTickets) {
+			total += tickets;
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the number of tickets that matched the given number of balls.
+	 *
+	 * @param theMatches
+	 *            the number of number balls matched
+	 * @param theBonusBall
+	 *            if the bonus ball was matched too
+	 * @return the number of tickets
+	 */
+	public long tickets(final int theMatches, final boolean theBonusBall) {
+		return myTickets[index(theMatches, theBonusBall)];
+	}
+
+	/**
+	 * Returns the report of how the tickets did, one line for each number of
+	 * balls matched from the most down.
+	 *
+	 * @return the report
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("Backtest of ");
+		builder.append(myDraws);
+		builder.append(" past draws, each from only the draws before it:");
+		builder.append(NEWLINE);
+		builder.append(String.format("Picked numbers drawn %d of %d"
+				+ " (%.4f%%)", myHits, myPicks, 100 * hitRate()));
+		builder.append(NEWLINE);
+		final long total = tickets();
+		for (int matches = myBalls; matches >= 0; matches--) {
+			appendTier(builder, "Matched " + matches, tickets(matches, false),
+					total);
+			if (myBonusBall) {
+				appendTier(builder, "Matched " + matches + " + bonus",
+						tickets(matches, true), total);
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Adds a line of the report.
+	 *
+	 * @param theBuilder
+	 *            the report
+	 * @param theLabel
+	 *            the prize tier
+	 * @param theTickets
+	 *            the tickets in the tier
+	 * @param theTotal
+	 *            the tickets played
+	 */
+	private static void appendTier(final StringBuilder theBuilder,
+			final String theLabel, final long theTickets, final long theTotal) {
+		final double share = theTotal == 0 ? 0 : 100.0 * theTickets
+				/ theTotal;
+		theBuilder.append(String.format("%-20s %12d tickets  %8.4f%%",
+				theLabel, theTickets, share));
+		theBuilder.append(NEWLINE);
+	}
+
+	/**
+	 * Replays one draw, picking numbers from the statistics of the draws
+	 * before it and counting the tickets they make.
+	 *
+	 * @param settings
+	 *            the settings to replay
+	 * @param theReplay
+	 *            the replay, at the draw
+	 */
+	private void replay(final Settings settings, final Replay theReplay) {
+		final DrawStatistics statistics = theReplay.statistics();
+		final Set<Integer> numbers = Calculator.processNormalGame(settings,
+				statistics);
+		int bonusBalls = 0;
+		boolean bonusBallHit = false;
+		final DrawTable history = theReplay.history();
+		final int row = theReplay.target();
+		if (myBonusBall) {
+			final Set<Integer> picks = Calculator.processBonusBallGame(
+					settings, statistics);
+			bonusBalls = picks.size();
+			bonusBallHit = picks.contains(history.bonusBall(row));
+		}
+		int highest = 1;
+		for (final int number : numbers) {
+			highest = Math.max(highest, number);
+		}
+		final long[] ticket = new long[NumberMask.words(highest)];
+		for (final int number : numbers) {
+			NumberMask.set(ticket, 0, number);
+		}
+		add(numbers.size(), history.matches(row, ticket), bonusBalls,
+				bonusBallHit, (Boolean) settings.get(Settings.WHEEL_RESULTS));
+	}
+
+	/**
+	 * Counts the tickets of one draw.
+	 *
+	 * @param thePicks
+	 *            the number of numbers picked
+	 * @param theHits
+	 *            how many of them were drawn
+	 * @param theBonusBalls
+	 *            the number of bonus balls picked
+	 * @param theBonusBallHit
+	 *            if the bonus ball drawn was picked
+	 * @param theWheel
+	 *            if the picks are wheeled into tickets
+	 */
+	void add(final int thePicks, final int theHits, final int theBonusBalls,
+			final boolean theBonusBallHit, final boolean theWheel) {
+		myDraws++;
+		myPicks += thePicks;
+		myHits += theHits;
+		if (!theWheel || thePicks < myBalls) {
+			myTickets[index(theHits, theBonusBallHit)]++;
+			return;
+		}
+		final int misses = thePicks - theHits;
+		for (int matches = 0; matches <= Math.min(theHits, myBalls);
+				matches++) {
+			final long combinations = choose(theHits, matches)
+					* choose(misses, myBalls - matches);
+			if (theBonusBalls == 0) {
+				myTickets[index(matches, false)] += combinations;
+			} else if (theBonusBallHit) {
+				myTickets[index(matches, true)] += combinations;
+				myTickets[index(matches, false)] += combinations
+						* (theBonusBalls - 1);
+			} else {
+				myTickets[index(matches, false)] += combinations
+						* theBonusBalls;
+			}
+		}
+	}
+
+	/**
+	 * Adds the counts of another backtest to this one.
+	 *
+	 * @param theOther
+	 *            a backtest of other draws of the same game
+	 */
+	void add(final Backtest theOther) {
+		for (int i = 0; i < myTickets.length; i++) {
+			myTickets[i] += theOther.myTickets[i];
+		}
+		myDraws += theOther.myDraws;
+		myPicks += theOther.myPicks;
+		myHits += theOther.myHits;
+	}
+
+	/**
+	 * Returns where the tickets matching the given balls are counted.
+	 *
+	 * @param theMatches
+	 *            the number of number balls matched
+	 * @param theBonusBall
+	 *            if the bonus ball was matched too
+	 * @return the index into myTickets
+	 */
+	private static int index(final int theMatches, final boolean theBonusBall) {
+		return theMatches * 2 + (theBonusBall ? 1 : 0);
+	}
+
+	/**
+	 * Returns the number of ways to choose some of a number of things.
+	 *
+	 * @param theN
+	 *            the number of things
+	 * @param theK
+	 *            the number to choose
+	 * @return n choose k, 0 if k is out of range
+	 */
+	private static long choose(final int theN, final int theK) {
+		if (theK < 0 || theK > theN) {
+			return 0;
+		}
+		long result = 1;
+		for (int i = 1; i <= theK; i++) {
+			result = result * (theN - theK + i) / i;
+		}
+		return result;
+	}
+
+	/**
+	 * A run of draws to replay, split in halves until small enough to replay
+	 * on one thread.
+	 *
+	 * @author Robert
+	 */
+	private static final class Piece extends RecursiveTask<Backtest> {
+
+		/**
+		 * For serialization, as a ForkJoinTask is Serializable.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The settings to replay.
+		 */
+		private final Settings mySettings;
+
+		/**
+		 * The replay the pieces start their own from.
+		 */
+		private final Replay myReplay;
+
+		/**
+		 * The most recent draw of the piece.
+		 */
+		private final int myFirst;
+
+		/**
+		 * The draw after the oldest of the piece.
+		 */
+		private final int myEnd;
+
+		/**
+		 * Creates a piece of the draws to replay.
+		 *
+		 * @param theSettings
+		 *            the settings to replay
+		 * @param theReplay
+		 *            the replay the piece starts its own from
+		 * @param theFirst
+		 *            the most recent draw of the piece
+		 * @param theEnd
+		 *            the draw after the oldest of the piece
+		 */
+		private Piece(final Settings theSettings, final Replay theReplay,
+				final int theFirst, final int theEnd) {
+			mySettings = theSettings;
+			myReplay = theReplay;
+			myFirst = theFirst;
+			myEnd = theEnd;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected Backtest compute() {
+			if (myEnd - myFirst <= PIECE_SIZE) {
+				final Backtest result = new Backtest(mySettings
+						.selectedGame().getNumberOfBalls(), mySettings
+						.selectedGame().hasBonusBall());
+				final Replay replay = myReplay.at(myEnd - 1);
+				while (true) {
+					result.replay(mySettings, replay);
+					if (replay.target() == myFirst) {
+						return result;
+					}
+					replay.next();
+				}
+			}
+			final int middle = (myFirst + myEnd) >>> 1;
+			final Piece recent = new Piece(mySettings, myReplay, myFirst,
+					middle);
+			recent.fork();
+			final Backtest result = new Piece(mySettings, myReplay, middle,
+					myEnd).compute();
+			result.add(recent.join());
+			return result;
+		}
+	}
+}
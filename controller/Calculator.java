@@ -1,17 +1,24 @@
 package controller;
 
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 import lotto.AbstractBonusBall;
 import lotto.Lottery;
 import analyzer.Algorithims;
+import analyzer.DrawStatistics;
 import analyzer.GetDraws;
+import analyzer.Replay;
+import analyzer.StatisticsBatch;
 
 // TODO bad practice to have an agent class. Fix this.
 /**
@@ -24,6 +31,15 @@ import analyzer.GetDraws;
  */
 public final class Calculator {
 
+	/**
+	 * The Settings keys of the algorithms, in the order their picks are
+	 * added together.
+	 */
+	static final String[] ALGORITHMS = {Settings.HOT_SELECTED,
+			Settings.COLD_SELECTED, Settings.PERIODIC_SELECTED,
+			Settings.DECAYED_SELECTED, Settings.OVERDUE_SELECTED,
+			Settings.HOT_PAIRS_SELECTED, Settings.COLD_PAIRS_SELECTED};
+
 	private Calculator() {
 		// prevent instantiation of this class
 	}
@@ -39,15 +55,86 @@ public final class Calculator {
 	 */
 	public static String getResult(final Settings settings)
 			throws FileNotFoundException {
+		return getResult(settings, computeStatistics(settings),
+				new HashMap<Map<String, Object>, Backtest>(),
+				new HashMap<List<Object>, String>());
+	}
+
+	/**
+	 * The entry point for computing the results of many settings of one game
+	 * at once. The statistics of every settings are worked out together by a
+	 * StatisticsBatch, so settings that count the same draws share them, and
+	 * the draws left to count are only walked once for all of them. Backtests
+	 * and significance reports are shared the same way, each worked out once
+	 * for the settings and statistics it depends on.
+	 * 
+	 * @param batch
+	 *            the settings to compute against, all of the same game
+	 * @return the result of each settings, in the same order
+	 * @throws FileNotFoundException
+	 *             if a database file cannot be opened
+	 */
+	public static List<String> getResults(final List<Settings> batch)
+			throws FileNotFoundException {
+		final List<String> results = new ArrayList<String>();
+		if (batch.isEmpty()) {
+			return results;
+		}
+		final Object game = batch.get(0).get(Settings.SELECTED_GAME);
+		final StatisticsBatch statistics = new StatisticsBatch(batch.get(0)
+				.selectedGame());
+		for (final Settings settings : batch) {
+			if (!game.equals(settings.get(Settings.SELECTED_GAME))) {
+				throw new IllegalArgumentException(
+						"Every settings of a batch must be of the same game");
+			}
+			addStatistics(statistics, settings);
+		}
+		final List<DrawStatistics> computed = statistics.compute();
+		final Map<Map<String, Object>, Backtest> backtests =
+				new HashMap<Map<String, Object>, Backtest>();
+		final Map<List<Object>, String> significances =
+				new HashMap<List<Object>, String>();
+		for (int i = 0; i < batch.size(); i++) {
+			results.add(getResult(batch.get(i), computed.get(i), backtests,
+					significances));
+		}
+		return results;
+	}
+
+	/**
+	 * Computes a result from the statistics already worked out for it,
+	 * reusing the backtests and significance reports already worked out for
+	 * other settings of the same game and adding those it works out.
+	 * 
+	 * @param settings
+	 *            the settings to compute against
+	 * @param statistics
+	 *            the statistics of the settings
+	 * @param backtests
+	 *            the backtests worked out, by the settings they depend on
+	 * @param significances
+	 *            the significance reports worked out, by the rankings and
+	 *            algorithms they depend on
+	 * @return a String result to display to the user
+	 * @throws FileNotFoundException
+	 *             if a database file cannot be opened
+	 */
+	private static String getResult(final Settings settings,
+			final DrawStatistics statistics,
+			final Map<Map<String, Object>, Backtest> backtests,
+			final Map<List<Object>, String> significances)
+			throws FileNotFoundException {
 		String result = "Internal Error in Calculator";
 		if ((Boolean) settings.get(Settings.RAW_DATA)) {
-			result = Algorithims.getRawData(settings.selectedGame(),
-					createGetDraws(settings));
+			result = Algorithims.getRawData(statistics);
 		} else {
-			final Set<Integer> normalBallResults = processNormalGame(settings);
+			final Set<Integer> normalBallResults = processNormalGame(settings,
+					statistics);
 			final int ballsInGame = settings.selectedGame().getNumberOfBalls();
 			if (settings.selectedGame().hasBonusBall()) {
-				final Set<Integer> bonusBallResults = processBonusBallGame(settings);
+				final Set<Integer> bonusBallResults = processBonusBallGame(
+						settings, statistics);
 				result = new Combinations(normalBallResults, bonusBallResults)
 						.getOutput(
 								(Boolean) settings.get(Settings.WHEEL_RESULTS),
@@ -57,6 +144,30 @@ public final class Calculator {
 						(Boolean) settings.get(Settings.WHEEL_RESULTS),
 						ballsInGame);
 			}
+			final boolean hot = (Boolean) settings.get(Settings.HOT_SELECTED);
+			final boolean cold = (Boolean) settings
+					.get(Settings.COLD_SELECTED);
+			if ((hot || cold)
+					&& (Boolean) settings.get(Settings.SIGNIFICANCE)) {
+				// statistics of the same draws share their rankings
+				final List<Object> key = Arrays.<Object> asList(
+						statistics.numbers(), hot, cold);
+				if (!significances.containsKey(key)) {
+					significances.put(key, Algorithims.getSignificance(
+							settings.selectedGame(), statistics, hot, cold));
+				}
+				result = result + "\r\n\r\n" + significances.get(key);
+			}
+			if ((Boolean) settings.get(Settings.BACKTEST)) {
+				// what is reported does not change the picks
+				final Map<String, Object> key = settings.valuesExcept(
+						Settings.RAW_DATA, Settings.SIGNIFICANCE,
+						Settings.BACKTEST);
+				if (!backtests.containsKey(key)) {
+					backtests.put(key, Backtest.run(settings));
+				}
+				result = result + "\r\n\r\n" + backtests.get(key);
+			}
 		}
 		return result;
 	}
@@ -67,28 +178,21 @@ public final class Calculator {
 	 * 
 	 * @param settings
 	 *            the settings to compute with
+	 * @param statistics
+	 *            the statistics the algorithms pick from
 	 * @return a set of integers for outputting
-	 * @throws FileNotFoundException
-	 *             if a database file cannot be opened
 	 */
-	private static Set<Integer> processNormalGame(final Settings settings)
-			throws FileNotFoundException {
+	static Set<Integer> processNormalGame(final Settings settings,
+			final DrawStatistics statistics) {
 		final List<Integer> result = new LinkedList<Integer>(
-				(Set<Integer>) settings.get(Settings.CUSTOM_NUMBERS));
+				settings.customNumbers());
 		// remove too high of numbers from custom input
 		removeNumbersHigherThan(result, settings.selectedGame().getRange());
-		final GetDraws getDraws = createGetDraws(settings);
-		if ((Boolean) settings.get(Settings.HOT_SELECTED)) {
-			result.addAll(Algorithims.getHotNumbers(settings.selectedGame(),
-					getDraws));
-		}
-		if ((Boolean) settings.get(Settings.COLD_SELECTED)) {
-			result.addAll(Algorithims.getColdNumbers(settings.selectedGame(),
-					getDraws));
-		}
-		if ((Boolean) settings.get(Settings.PERIODIC_SELECTED)) {
-			result.addAll(Algorithims.getPeriodicNumbers(settings
-					.selectedGame()));
+		final Lottery game = settings.selectedGame();
+		for (final String algorithm : ALGORITHMS) {
+			if ((Boolean) settings.get(algorithm)) {
+				result.addAll(getNumbers(game, statistics, algorithm));
+			}
 		}
 		if (!(Boolean) settings.get(Settings.INCLUSIVE)) {
 			Collections.sort(result);
@@ -111,28 +215,89 @@ public final class Calculator {
 	 * 
 	 * @param settings
 	 *            the settings to run against
+	 * @param statistics
+	 *            the statistics the algorithms pick from
 	 * @return the set of resulting normal numbers
-	 * @throws FileNotFoundException
-	 *             if a database file cannot be opened
 	 */
-	private static Set<Integer> processBonusBallGame(final Settings settings)
-			throws FileNotFoundException {
+	static Set<Integer> processBonusBallGame(final Settings settings,
+			final DrawStatistics statistics) {
 		final List<Integer> result = new LinkedList<Integer>();
-		final GetDraws getDraws = createGetDraws(settings);
-		if ((Boolean) settings.get(Settings.HOT_SELECTED)) {
-			result.addAll(Algorithims.getHotBonusBalls(
-					(AbstractBonusBall) settings.selectedGame(), getDraws));
+		final AbstractBonusBall game = (AbstractBonusBall) settings
+				.selectedGame();
+		for (final String algorithm : ALGORITHMS) {
+			if ((Boolean) settings.get(algorithm)) {
+				result.addAll(getBonusBalls(game, statistics, algorithm));
+			}
 		}
-		if ((Boolean) settings.get(Settings.COLD_SELECTED)) {
-			result.addAll(Algorithims.getColdBonusBalls(
-					(AbstractBonusBall) settings.selectedGame(), getDraws));
+		return new TreeSet<Integer>(result);
+	}
+
+	/**
+	 * Runs one algorithm on the number balls.
+	 * 
+	 * @param game
+	 *            the game to pick for
+	 * @param statistics
+	 *            the statistics the algorithm picks from
+	 * @param algorithm
+	 *            the Settings key of the algorithm, one of ALGORITHMS
+	 * @return the numbers the algorithm picked
+	 */
+	static Set<Integer> getNumbers(final Lottery game,
+			final DrawStatistics statistics, final String algorithm) {
+		final Set<Integer> result;
+		if (Settings.HOT_SELECTED.equals(algorithm)) {
+			result = Algorithims.getHotNumbers(game, statistics);
+		} else if (Settings.COLD_SELECTED.equals(algorithm)) {
+			result = Algorithims.getColdNumbers(game, statistics);
+		} else if (Settings.PERIODIC_SELECTED.equals(algorithm)) {
+			result = Algorithims.getPeriodicNumbers(statistics);
+		} else if (Settings.DECAYED_SELECTED.equals(algorithm)) {
+			result = Algorithims.getDecayedNumbers(game, statistics);
+		} else if (Settings.OVERDUE_SELECTED.equals(algorithm)) {
+			result = Algorithims.getOverdueNumbers(game, statistics);
+		} else if (Settings.HOT_PAIRS_SELECTED.equals(algorithm)) {
+			result = Algorithims.getHotPairNumbers(game, statistics);
+		} else if (Settings.COLD_PAIRS_SELECTED.equals(algorithm)) {
+			result = Algorithims.getColdPairNumbers(game, statistics);
+		} else {
+			throw new IllegalArgumentException(algorithm);
 		}
-		if ((Boolean) settings.get(Settings.PERIODIC_SELECTED)) {
-			result.addAll(Algorithims
-					.getPeriodicBonusBalls((AbstractBonusBall) settings
-							.selectedGame()));
+		return result;
+	}
+
+	/**
+	 * Runs one algorithm on the bonus balls.
+	 * 
+	 * @param game
+	 *            the game to pick for
+	 * @param statistics
+	 *            the statistics the algorithm picks from
+	 * @param algorithm
+	 *            the Settings key of the algorithm, one of ALGORITHMS
+	 * @return the bonus balls the algorithm picked
+	 */
+	static Set<Integer> getBonusBalls(final AbstractBonusBall game,
+			final DrawStatistics statistics, final String algorithm) {
+		final Set<Integer> result;
+		if (Settings.HOT_SELECTED.equals(algorithm)) {
+			result = Algorithims.getHotBonusBalls(game, statistics);
+		} else if (Settings.COLD_SELECTED.equals(algorithm)) {
+			result = Algorithims.getColdBonusBalls(game, statistics);
+		} else if (Settings.PERIODIC_SELECTED.equals(algorithm)) {
+			result = Algorithims.getPeriodicBonusBalls(statistics);
+		} else if (Settings.DECAYED_SELECTED.equals(algorithm)) {
+			result = Algorithims.getDecayedBonusBalls(game, statistics);
+		} else if (Settings.OVERDUE_SELECTED.equals(algorithm)) {
+			result = Algorithims.getOverdueBonusBalls(game, statistics);
+		} else if (Settings.HOT_PAIRS_SELECTED.equals(algorithm)) {
+			result = Algorithims.getHotPairBonusBalls(game, statistics);
+		} else if (Settings.COLD_PAIRS_SELECTED.equals(algorithm)) {
+			result = Algorithims.getColdPairBonusBalls(game, statistics);
+		} else {
+			throw new IllegalArgumentException(algorithm);
 		}
-		return new TreeSet<Integer>(result);
+		return result;
 	}
 
 	/**
@@ -154,6 +319,154 @@ public final class Calculator {
 		}
 	}
 
+	/**
+	 * Works out which statistics the selected algorithms need and computes
+	 * them all in one pass over the draws.
+	 * 
+	 * @param settings
+	 *            the settings to run against
+	 * @return the statistics for every selected algorithm
+	 * @throws FileNotFoundException
+	 *             if a database file cannot be opened
+	 */
+	private static DrawStatistics computeStatistics(final Settings settings)
+			throws FileNotFoundException {
+		final boolean raw = (Boolean) settings.get(Settings.RAW_DATA);
+		final boolean frequencies = raw || needsFrequencies(settings);
+		int lookBack = 0;
+		int halfLife = 0;
+		boolean pairs = false;
+		boolean triples = false;
+		boolean gaps = false;
+		if (!raw) {
+			lookBack = getLookBack(settings);
+			halfLife = getHalfLife(settings);
+			pairs = needsPairs(settings);
+			triples = needsTriples(settings);
+			gaps = (Boolean) settings.get(Settings.OVERDUE_SELECTED);
+		}
+		return DrawStatistics.compute(settings.selectedGame(),
+				createGetDraws(settings), frequencies, lookBack, halfLife,
+				pairs, triples, gaps);
+	}
+
+	/**
+	 * Adds the statistics the settings need to a batch, the same statistics
+	 * computeStatistics() works out.
+	 * 
+	 * @param batch
+	 *            the batch of the settings' game
+	 * @param settings
+	 *            the settings to run against
+	 */
+	private static void addStatistics(final StatisticsBatch batch,
+			final Settings settings) {
+		final boolean raw = (Boolean) settings.get(Settings.RAW_DATA);
+		if (raw) {
+			batch.add(createGetDraws(settings), true, 0, 0, false, false,
+					false);
+		} else {
+			batch.add(createGetDraws(settings), needsFrequencies(settings),
+					getLookBack(settings), getHalfLife(settings),
+					needsPairs(settings), needsTriples(settings),
+					(Boolean) settings.get(Settings.OVERDUE_SELECTED));
+		}
+	}
+
+	/**
+	 * Creates a replay of the game's history that works out the statistics
+	 * the selected algorithms need before each draw, the same way
+	 * computeStatistics() does for the next draw. Raw data is not replayed.
+	 * 
+	 * @param settings
+	 *            the settings to run against
+	 * @param minimum
+	 *            the fewest draws before the first draw replayed
+	 * @return the replay, at the oldest draw it covers
+	 * @throws FileNotFoundException
+	 *             if a database file cannot be opened
+	 */
+	static Replay createReplay(final Settings settings, final int minimum)
+			throws FileNotFoundException {
+		return new Replay(settings.selectedGame(), createGetDraws(settings),
+				minimum, needsFrequencies(settings), getLookBack(settings),
+				getHalfLife(settings), needsPairs(settings),
+				needsTriples(settings), (Boolean) settings
+						.get(Settings.OVERDUE_SELECTED));
+	}
+
+	/**
+	 * Returns true if the hot or cold algorithms are selected.
+	 * 
+	 * @param settings
+	 *            the settings to run against
+	 * @return if frequencies are needed
+	 */
+	private static boolean needsFrequencies(final Settings settings) {
+		return (Boolean) settings.get(Settings.HOT_SELECTED)
+				|| (Boolean) settings.get(Settings.COLD_SELECTED);
+	}
+
+	/**
+	 * Returns true if the hot or cold pairs algorithms are selected.
+	 * 
+	 * @param settings
+	 *            the settings to run against
+	 * @return if pair counts are needed
+	 */
+	private static boolean needsPairs(final Settings settings) {
+		return (Boolean) settings.get(Settings.HOT_PAIRS_SELECTED)
+				|| (Boolean) settings.get(Settings.COLD_PAIRS_SELECTED);
+	}
+
+	/**
+	 * Returns true if the pairs algorithms are selected and pick from
+	 * triples.
+	 * 
+	 * @param settings
+	 *            the settings to run against
+	 * @return if triple counts are needed
+	 */
+	private static boolean needsTriples(final Settings settings) {
+		return needsPairs(settings)
+				&& (Boolean) settings.get(Settings.PAIRS_FROM_TRIPLES);
+	}
+
+	/**
+	 * Returns how many draws back the periodic draw is, the range divided by
+	 * the number of balls unless a look back is set.
+	 * 
+	 * @param settings
+	 *            the settings to run against
+	 * @return the look back, 0 if the periodic algorithm is not selected
+	 */
+	private static int getLookBack(final Settings settings) {
+		int lookBack = 0;
+		if ((Boolean) settings.get(Settings.PERIODIC_SELECTED)) {
+			final Lottery game = settings.selectedGame();
+			lookBack = (Integer) settings.get(Settings.PERIODIC_LOOK_BACK);
+			if (lookBack < 1) {
+				lookBack = game.getRange() / game.getNumberOfBalls();
+			}
+		}
+		return lookBack;
+	}
+
+	/**
+	 * Returns the half life of the decayed algorithm.
+	 * 
+	 * @param settings
+	 *            the settings to run against
+	 * @return the half life, 0 if the decayed algorithm is not selected
+	 */
+	private static int getHalfLife(final Settings settings) {
+		int halfLife = 0;
+		if ((Boolean) settings.get(Settings.DECAYED_SELECTED)) {
+			halfLife = Math.max(1, (Integer) settings.get(Settings.HALF_LIFE));
+		}
+		return halfLife;
+	}
+
 	private static GetDraws createGetDraws(final Settings settings) {
 		final Lottery game = settings.selectedGame();
 		final int count = (Integer) settings.get(Settings.COUNT);
@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import lotto.Lottery;
 import lotto.MegaMillions;
@@ -18,7 +19,8 @@ import lotto.WALotto;
  * parse through radio button settings where the possible values could be one of
  * many. This class is Serializable and that allows persistence between runs of
  * the application. If the serialized file cannot be deserialized, or doesn't
- * exist, a default settings object is provided as a constant.
+ * exist, a default settings object is provided as a constant. Settings saved
+ * before a key was added take that key's value from the defaults.
  * 
  * @author Robert
  */
@@ -69,6 +71,44 @@ public final class Settings implements Serializable {
 	 */
 	public static final String PERIODIC_SELECTED = "Periodic Numbers";
 
+	/**
+	 * How many draws back Periodic Numbers looks, 0 for the range divided by
+	 * the number of balls. Values are Integers.
+	 */
+	public static final String PERIODIC_LOOK_BACK = "Periodic Look Back";
+
+	/**
+	 * If Overdue Numbers is selected as an algorithm. Values are Booleans.
+	 */
+	public static final String OVERDUE_SELECTED = "Overdue Numbers";
+
+	/**
+	 * If Decayed Numbers is selected as an algorithm. Values are Booleans.
+	 */
+	public static final String DECAYED_SELECTED = "Decayed Numbers";
+
+	/**
+	 * The number of draws after which a draw counts half as much towards
+	 * Decayed Numbers. Values are Integers.
+	 */
+	public static final String HALF_LIFE = "Half Life";
+
+	/**
+	 * If Hot Pairs is selected as an algorithm. Values are Booleans.
+	 */
+	public static final String HOT_PAIRS_SELECTED = "Hot Pairs";
+
+	/**
+	 * If Cold Pairs is selected as an algorithm. Values are Booleans.
+	 */
+	public static final String COLD_PAIRS_SELECTED = "Cold Pairs";
+
+	/**
+	 * If the hot and cold pairs algorithms pick from triples of numbers drawn
+	 * together instead of pairs. Values are Booleans.
+	 */
+	public static final String PAIRS_FROM_TRIPLES = "Pairs From Triples";
+
 	/**
 	 * If only previous draws that paid out a jackpot are to be used, selected
 	 * from the Menu. Values are Booleans.
@@ -86,6 +126,18 @@ public final class Settings implements Serializable {
 	 */
 	public static final String RAW_DATA = "Output Raw Data";
 
+	/**
+	 * If the chance of each hot or cold pick by luck alone is to be reported
+	 * with the results. Values are Booleans.
+	 */
+	public static final String SIGNIFICANCE = "Report Significance";
+
+	/**
+	 * If how the selected algorithms would have done on every past draw is to
+	 * be reported with the results. Values are Booleans.
+	 */
+	public static final String BACKTEST = "Report Backtest";
+
 	/**
 	 * The number of previous draws to use. Values are Integers.
 	 */
@@ -115,6 +167,18 @@ public final class Settings implements Serializable {
 		mySettings = new HashMap<String, Object>();
 	}
 
+	/**
+	 * Returns a copy of these settings, which can be changed without
+	 * changing these. The values themselves are shared.
+	 * 
+	 * @return the copy
+	 */
+	public Settings copy() {
+		final Settings result = new Settings();
+		result.mySettings.putAll(mySettings);
+		return result;
+	}
+
 	/**
 	 * Puts a value into the map for the given static key.
 	 * 
@@ -128,8 +192,9 @@ public final class Settings implements Serializable {
 	}
 
 	/**
-	 * Given a key, return its value. Null is returned if the key doesn't exist
-	 * in the map.
+	 * Given a key, return its value. If the key doesn't exist in the map, as
+	 * happens for settings saved by an older version, the default value is
+	 * returned, and null if there is none.
 	 * 
 	 * @param key
 	 *            the key to get the value for
@@ -137,6 +202,10 @@ public final class Settings implements Serializable {
 	 */
 	public Object get(final String key) {
 		if (!mySettings.containsKey(key)) {
+			// DEFAULT is still null while it is being made
+			if (DEFAULT != null && this != DEFAULT) {
+				return DEFAULT.get(key);
+			}
 			return null;
 		}
 		return mySettings.get(key);
@@ -160,6 +229,40 @@ public final class Settings implements Serializable {
 		return game;
 	}
 
+	/**
+	 * Return the numbers the user always wants included.
+	 *
+	 * @return the set of custom numbers
+	 */
+	@SuppressWarnings("unchecked")
+	public Set<Integer> customNumbers() {
+		// only a Set<Integer> is ever put under CUSTOM_NUMBERS
+		return (Set<Integer>) get(CUSTOM_NUMBERS);
+	}
+
+	/**
+	 * Return the value of every key but the given ones, including the keys
+	 * taken from the defaults. Two settings whose values are equal differ
+	 * only in the given keys.
+	 *
+	 * @param keys
+	 *            the keys to leave out
+	 * @return a map from each key to its value
+	 */
+	Map<String, Object> valuesExcept(final String... keys) {
+		final Map<String, Object> result = new HashMap<String, Object>();
+		for (final String key : DEFAULT.mySettings.keySet()) {
+			result.put(key, get(key));
+		}
+		for (final String key : mySettings.keySet()) {
+			result.put(key, get(key));
+		}
+		for (final String key : keys) {
+			result.remove(key);
+		}
+		return result;
+	}
+
 	/**
 	 * Return true if there is at least one algorithm selected. This must be
 	 * true before results can be computed.
@@ -168,11 +271,19 @@ public final class Settings implements Serializable {
 	 */
 	public boolean anAlgorithmSelected() {
 		boolean result = false;
-		if ((Boolean) mySettings.get(HOT_SELECTED)) {
+		if ((Boolean) get(HOT_SELECTED)) {
+			result = true;
+		} else if ((Boolean) get(COLD_SELECTED)) {
 			result = true;
-		} else if ((Boolean) mySettings.get(COLD_SELECTED)) {
+		} else if ((Boolean) get(PERIODIC_SELECTED)) {
 			result = true;
-		} else if ((Boolean) mySettings.get(PERIODIC_SELECTED)) {
+		} else if ((Boolean) get(DECAYED_SELECTED)) {
+			result = true;
+		} else if ((Boolean) get(OVERDUE_SELECTED)) {
+			result = true;
+		} else if ((Boolean) get(HOT_PAIRS_SELECTED)) {
+			result = true;
+		} else if ((Boolean) get(COLD_PAIRS_SELECTED)) {
 			result = true;
 		}
 		return result;
@@ -205,6 +316,40 @@ public final class Settings implements Serializable {
 			builder.append(NEWLINE);
 			builder.append(TAB);
 			builder.append(PERIODIC_SELECTED);
+			if ((Integer) get(PERIODIC_LOOK_BACK) > 0) {
+				builder.append(", ");
+				builder.append(get(PERIODIC_LOOK_BACK));
+				builder.append(" draws back");
+			}
+		}
+		if ((Boolean) get(DECAYED_SELECTED)) {
+			builder.append(NEWLINE);
+			builder.append(TAB);
+			builder.append(DECAYED_SELECTED);
+			builder.append(", half life of ");
+			builder.append(get(HALF_LIFE));
+			builder.append(" draws");
+		}
+		if ((Boolean) get(OVERDUE_SELECTED)) {
+			builder.append(NEWLINE);
+			builder.append(TAB);
+			builder.append(OVERDUE_SELECTED);
+		}
+		if ((Boolean) get(HOT_PAIRS_SELECTED)) {
+			builder.append(NEWLINE);
+			builder.append(TAB);
+			builder.append(HOT_PAIRS_SELECTED);
+			if ((Boolean) get(PAIRS_FROM_TRIPLES)) {
+				builder.append(", from triples");
+			}
+		}
+		if ((Boolean) get(COLD_PAIRS_SELECTED)) {
+			builder.append(NEWLINE);
+			builder.append(TAB);
+			builder.append(COLD_PAIRS_SELECTED);
+			if ((Boolean) get(PAIRS_FROM_TRIPLES)) {
+				builder.append(", from triples");
+			}
 		}
 		builder.append(NEWLINE);
 		builder.append("Algorithms Should:   ");
@@ -244,9 +389,18 @@ public final class Settings implements Serializable {
 		defaultSettings.put(HOT_SELECTED, false);
 		defaultSettings.put(COLD_SELECTED, false);
 		defaultSettings.put(PERIODIC_SELECTED, false);
+		defaultSettings.put(PERIODIC_LOOK_BACK, 0);
+		defaultSettings.put(OVERDUE_SELECTED, false);
+		defaultSettings.put(DECAYED_SELECTED, false);
+		defaultSettings.put(HALF_LIFE, 52);
+		defaultSettings.put(HOT_PAIRS_SELECTED, false);
+		defaultSettings.put(COLD_PAIRS_SELECTED, false);
+		defaultSettings.put(PAIRS_FROM_TRIPLES, false);
 		defaultSettings.put(JACKPOT_ONLY, false);
 		defaultSettings.put(WHEEL_RESULTS, true);
 		defaultSettings.put(RAW_DATA, false);
+		defaultSettings.put(SIGNIFICANCE, false);
+		defaultSettings.put(BACKTEST, false);
 		defaultSettings.put(COUNT, 0);
 		defaultSettings.put(PAID_OVER_AMOUNT, 0L);
 		defaultSettings.put(CUSTOM_NUMBERS, new HashSet<Integer>());
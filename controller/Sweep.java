@@ -0,0 +1,536 @@
+package controller;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import lotto.AbstractBonusBall;
+import lotto.Lottery;
+import analyzer.DrawStatistics;
+import analyzer.DrawTable;
+import analyzer.GetDraws;
+import analyzer.NumberMask;
+import analyzer.Replay;
+import database.DrawRepository;
+
+/**
+ * A backtest of every point of a grid of settings, ranked by how far above
+ * chance the numbers they picked were drawn, in standard deviations of the
+ * number of picks drawn by chance, so a few lucky picks do not outrank many
+ * steady ones. Chance is taken as the number of balls over the game's current
+ * range. The grid is every number of draws to count from
+ * GetDraws.MIN_DRAWS_TO_COUNT doubling up to the whole history, with and
+ * without only jackpot winners, with no payout filter and with the median and
+ * upper quartile payouts of the game, and for each of those every subset of
+ * the algorithms, inclusive and exclusive. The other settings, such as
+ * wheeling and custom numbers, are taken from the settings the sweep is run
+ * with.
+ *
+ * The algorithms only differ by which statistics they pick from, so the grid
+ * is replayed once per draw window and filter rather than once per point. A
+ * Replay works out the statistics of every algorithm before each draw, each
+ * algorithm picks once, and the picks of every subset are put together as
+ * bitmasks, one subset from another with one algorithm less, so the picks of
+ * all 127 subsets cost about as much as the picks of one. Every window is
+ * replayed on the common ForkJoinPool in pieces of PIECE_SIZE draws, reading
+ * the one copy of the game's history in the DrawRepository.
+ *
+ * @author Robert
+ */
+public final class Sweep {
+
+	/**
+	 * The number of subsets of the algorithms, counting the empty one.
+	 */
+	private static final int SUBSETS = 1 << Calculator.ALGORITHMS.length;
+
+	/**
+	 * The payout quantiles the draws can be filtered on, besides none.
+	 */
+	private static final double[] PAYOUT_QUANTILES = {0.5, 0.75};
+
+	/**
+	 * The number of draws below which a piece is replayed without
+	 * splitting.
+	 */
+	private static final int PIECE_SIZE = 256;
+
+	/**
+	 * Newline specific for Windows machines.
+	 */
+	private static final String NEWLINE = "\r\n";
+
+	/**
+	 * The game swept.
+	 */
+	private final Lottery myGame;
+
+	/**
+	 * The name of the game swept.
+	 */
+	private final String myGameName;
+
+	/**
+	 * The settings of each point, best first.
+	 */
+	private final List<Settings> mySettings;
+
+	/**
+	 * The backtest of each point, best first.
+	 */
+	private final List<Backtest> myResults;
+
+	/**
+	 * Creates a sweep from its ranked points.
+	 *
+	 * @param theGame
+	 *            the game swept
+	 * @param theGameName
+	 *            the name of the game
+	 * @param theSettings
+	 *            the settings of each point, best first
+	 * @param theResults
+	 *            the backtest of each point, best first
+	 */
+	private Sweep(final Lottery theGame, final String theGameName,
+			final List<Settings> theSettings, final List<Backtest> theResults) {
+		myGame = theGame;
+		myGameName = theGameName;
+		mySettings = theSettings;
+		myResults = theResults;
+	}
+
+	/**
+	 * Backtests every point of the grid for the selected game.
+	 *
+	 * @param settings
+	 *            the settings the grid is laid over
+	 * @return the points, ranked
+	 * @throws FileNotFoundException
+	 *             if a database file cannot be opened
+	 */
+	public static Sweep run(final Settings settings)
+			throws FileNotFoundException {
+		final Lottery game = settings.selectedGame();
+		final DrawTable history = DrawRepository.getTable(game);
+		final List<Settings> windows = createWindows(settings, history);
+		final List<Settings> points = new ArrayList<Settings>();
+		final List<Backtest> results = new ArrayList<Backtest>();
+		if (history.size() > Backtest.MIN_HISTORY) {
+			final List<ForkJoinTask<Backtest[]>> tasks =
+					new ArrayList<ForkJoinTask<Backtest[]>>();
+			for (final Settings window : windows) {
+				final Replay replay = Calculator.createReplay(window,
+						Backtest.MIN_HISTORY);
+				tasks.add(ForkJoinPool.commonPool().submit(
+						new Piece(window, replay, 0, replay.target() + 1)));
+			}
+			for (int i = 0; i < windows.size(); i++) {
+				final Backtest[] backtests = tasks.get(i).join();
+				for (int subset = 1; subset < SUBSETS; subset++) {
+					for (int exclusive = 0; exclusive < 2; exclusive++) {
+						points.add(createPoint(windows.get(i), subset,
+								exclusive == 0));
+						results.add(backtests[subset * 2 + exclusive]);
+					}
+				}
+			}
+		}
+		final Integer[] order = new Integer[points.size()];
+		final double[] scores = new double[order.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+			scores[i] = score(game, results.get(i));
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(final Integer theFirst, final Integer theSecond) {
+				return Double.compare(scores[theSecond], scores[theFirst]);
+			}
+		});
+		final List<Settings> rankedPoints = new ArrayList<Settings>();
+		final List<Backtest> rankedResults = new ArrayList<Backtest>();
+		for (final int i : order) {
+			rankedPoints.add(points.get(i));
+			rankedResults.add(results.get(i));
+		}
+		return new Sweep(game, (String) settings.get(Settings.SELECTED_GAME),
+				Collections.unmodifiableList(rankedPoints),
+				Collections.unmodifiableList(rankedResults));
+	}
+
+	/**
+	 * Returns the number of points swept.
+	 *
+	 * @return the number of points
+	 */
+	public int size() {
+		return mySettings.size();
+	}
+
+	/**
+	 * Returns the settings of the point of the given rank.
+	 *
+	 * @param theRank
+	 *            the rank, 0 for the best
+	 * @return the settings, which should not be changed
+	 */
+	public Settings settings(final int theRank) {
+		return mySettings.get(theRank);
+	}
+
+	/**
+	 * Returns the backtest of the point of the given rank.
+	 *
+	 * @param theRank
+	 *            the rank, 0 for the best
+	 * @return the backtest
+	 */
+	public Backtest result(final int theRank) {
+		return myResults.get(theRank);
+	}
+
+	/**
+	 * Returns the report of every point, best first, one line each.
+	 *
+	 * @return the report
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("Sweep of ");
+		builder.append(size());
+		builder.append(" settings over the past draws of ");
+		builder.append(myGameName);
+		builder.append(", best first.");
+		builder.append(NEWLINE);
+		builder.append(String.format("By chance alone about %.4f%% of the"
+				+ " picked numbers would be drawn.", 100.0
+				* myGame.getNumberOfBalls() / myGame.getRange()));
+		builder.append(NEWLINE);
+		builder.append("Rank    Sigma  Drawn      Picks/Draw  Settings");
+		builder.append(NEWLINE);
+		for (int rank = 0; rank < size(); rank++) {
+			final Backtest result = myResults.get(rank);
+			final double picks = result.draws() == 0 ? 0 : (double) result
+					.picks() / result.draws();
+			builder.append(String.format("%4d  %7.2f  %8.4f%%  %10.2f  ",
+					rank + 1, score(myGame, result), 100 * result.hitRate(),
+					picks));
+			builder.append(describe(mySettings.get(rank)));
+			builder.append(NEWLINE);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Works out how far above chance the picked numbers of a backtest were
+	 * drawn.
+	 *
+	 * @param theGame
+	 *            the game backtested
+	 * @param theResult
+	 *            the backtest
+	 * @return the number of standard deviations above chance, 0 if nothing
+	 *         was picked
+	 */
+	private static double score(final Lottery theGame,
+			final Backtest theResult) {
+		final double chance = (double) theGame.getNumberOfBalls()
+				/ theGame.getRange();
+		final double expected = theResult.picks() * chance;
+		if (expected == 0) {
+			return 0;
+		}
+		return (theResult.hits() - expected)
+				/ Math.sqrt(expected * (1 - chance));
+	}
+
+	/**
+	 * Lays out the draw windows and filters of the grid, each with every
+	 * algorithm selected.
+	 *
+	 * @param settings
+	 *            the settings the grid is laid over
+	 * @param theHistory
+	 *            the game's history
+	 * @return the settings of each window
+	 */
+	private static List<Settings> createWindows(final Settings settings,
+			final DrawTable theHistory) {
+		final List<Integer> counts = new ArrayList<Integer>();
+		for (int count = GetDraws.MIN_DRAWS_TO_COUNT; count < theHistory
+				.size(); count *= 2) {
+			counts.add(count);
+		}
+		// 0 counts the whole history
+		counts.add(0);
+		final long[] payouts = new long[theHistory.size()];
+		for (int row = 0; row < payouts.length; row++) {
+			payouts[row] = theHistory.payout(row);
+		}
+		Arrays.sort(payouts);
+		final List<Long> thresholds = new ArrayList<Long>();
+		thresholds.add(0L);
+		for (final double quantile : PAYOUT_QUANTILES) {
+			if (payouts.length > 0) {
+				final long threshold = payouts[(int) (quantile
+						* (payouts.length - 1))];
+				if (threshold > thresholds.get(thresholds.size() - 1)) {
+					thresholds.add(threshold);
+				}
+			}
+		}
+		final List<Settings> result = new ArrayList<Settings>();
+		for (final int count : counts) {
+			for (int jackpot = 0; jackpot < 2; jackpot++) {
+				for (final long threshold : thresholds) {
+					final Settings window = settings.copy();
+					window.put(Settings.COUNT, count);
+					window.put(Settings.JACKPOT_ONLY, jackpot == 1);
+					window.put(Settings.PAID_OVER_AMOUNT, threshold);
+					window.put(Settings.RAW_DATA, false);
+					for (final String algorithm : Calculator.ALGORITHMS) {
+						window.put(algorithm, true);
+					}
+					result.add(window);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Makes the settings of one point of the grid.
+	 *
+	 * @param theWindow
+	 *            the settings of the point's window
+	 * @param theSubset
+	 *            one bit per algorithm, set if it is selected
+	 * @param theInclusive
+	 *            if the algorithms' picks are added together
+	 * @return the settings of the point
+	 */
+	private static Settings createPoint(final Settings theWindow,
+			final int theSubset, final boolean theInclusive) {
+		final Settings result = theWindow.copy();
+		for (int i = 0; i < Calculator.ALGORITHMS.length; i++) {
+			result.put(Calculator.ALGORITHMS[i], (theSubset & 1 << i) != 0);
+		}
+		result.put(Settings.INCLUSIVE, theInclusive);
+		return result;
+	}
+
+	/**
+	 * Describes the settings of a point on one line.
+	 *
+	 * @param settings
+	 *            the settings of the point
+	 * @return the description
+	 */
+	private static String describe(final Settings settings) {
+		final StringBuilder builder = new StringBuilder();
+		final int count = (Integer) settings.get(Settings.COUNT);
+		builder.append(count == 0 ? "All draws" : count + " draws");
+		if ((Boolean) settings.get(Settings.JACKPOT_ONLY)) {
+			builder.append(", jackpot only");
+		}
+		if ((Long) settings.get(Settings.PAID_OVER_AMOUNT) > 0) {
+			builder.append(", paid over $");
+			builder.append(settings.get(Settings.PAID_OVER_AMOUNT));
+		}
+		if ((Boolean) settings.get(Settings.INCLUSIVE)) {
+			builder.append(", add: ");
+		} else {
+			builder.append(", subtract: ");
+		}
+		String separator = "";
+		for (final String algorithm : Calculator.ALGORITHMS) {
+			if ((Boolean) settings.get(algorithm)) {
+				builder.append(separator);
+				builder.append(algorithm);
+				separator = ", ";
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the given numbers as a bitmask.
+	 *
+	 * @param theNumbers
+	 *            the numbers
+	 * @param theMask
+	 *            the mask to fill in, cleared first
+	 */
+	private static void toMask(final Set<Integer> theNumbers,
+			final long[] theMask) {
+		Arrays.fill(theMask, 0);
+		for (final int number : theNumbers) {
+			if (number >= 0 && number < theMask.length << 6) {
+				NumberMask.set(theMask, 0, number);
+			}
+		}
+	}
+
+	/**
+	 * A run of draws to replay for one window of the grid, split in halves
+	 * until small enough to replay on one thread.
+	 *
+	 * @author Robert
+	 */
+	private static final class Piece extends RecursiveTask<Backtest[]> {
+
+		/**
+		 * For serialization, as a ForkJoinTask is Serializable.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The settings of the window, with every algorithm selected.
+		 */
+		private final Settings mySettings;
+
+		/**
+		 * The replay the pieces start their own from.
+		 */
+		private final Replay myReplay;
+
+		/**
+		 * The most recent draw of the piece.
+		 */
+		private final int myFirst;
+
+		/**
+		 * The draw after the oldest of the piece.
+		 */
+		private final int myEnd;
+
+		/**
+		 * Creates a piece of the draws to replay.
+		 *
+		 * @param theSettings
+		 *            the settings of the window
+		 * @param theReplay
+		 *            the replay the piece starts its own from
+		 * @param theFirst
+		 *            the most recent draw of the piece
+		 * @param theEnd
+		 *            the draw after the oldest of the piece
+		 */
+		private Piece(final Settings theSettings, final Replay theReplay,
+				final int theFirst, final int theEnd) {
+			mySettings = theSettings;
+			myReplay = theReplay;
+			myFirst = theFirst;
+			myEnd = theEnd;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected Backtest[] compute() {
+			if (myEnd - myFirst > PIECE_SIZE) {
+				final int middle = (myFirst + myEnd) >>> 1;
+				final Piece recent = new Piece(mySettings, myReplay, myFirst,
+						middle);
+				recent.fork();
+				final Backtest[] result = new Piece(mySettings, myReplay,
+						middle, myEnd).compute();
+				final Backtest[] other = recent.join();
+				for (int i = 0; i < result.length; i++) {
+					result[i].add(other[i]);
+				}
+				return result;
+			}
+			final Lottery game = mySettings.selectedGame();
+			final int balls = game.getNumberOfBalls();
+			final boolean bonus = game.hasBonusBall();
+			final boolean wheel = (Boolean) mySettings
+					.get(Settings.WHEEL_RESULTS);
+			final Backtest[] result = new Backtest[SUBSETS * 2];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = new Backtest(balls, bonus);
+			}
+			int highest = game.getRange();
+			if (bonus) {
+				highest = Math.max(highest,
+						((AbstractBonusBall) game).getBonusBallRange());
+			}
+			final int words = NumberMask.words(highest);
+			final int algorithms = Calculator.ALGORITHMS.length;
+			final long[][] numbers = new long[algorithms][words];
+			final long[][] bonusBalls = new long[algorithms][words];
+			// picked by at least one, by at least two, and bonus balls
+			final long[][] once = new long[SUBSETS][words];
+			final long[][] twice = new long[SUBSETS][words];
+			final long[][] bonusOnce = new long[SUBSETS][words];
+			final long[] custom = new long[words];
+			toMask(mySettings.customNumbers(), custom);
+			for (int number = game.getRange() + 1; number < words << 6;
+					number++) {
+				NumberMask.clear(custom, 0, number);
+			}
+			once[0] = custom;
+			final Replay replay = myReplay.at(myEnd - 1);
+			final DrawTable history = replay.history();
+			while (true) {
+				final DrawStatistics statistics = replay.statistics();
+				for (int i = 0; i < algorithms; i++) {
+					toMask(Calculator.getNumbers(game, statistics,
+							Calculator.ALGORITHMS[i]), numbers[i]);
+					if (bonus) {
+						toMask(Calculator.getBonusBalls(
+								(AbstractBonusBall) game, statistics,
+								Calculator.ALGORITHMS[i]), bonusBalls[i]);
+					}
+				}
+				final int row = replay.target();
+				final int bonusBall = history.bonusBall(row);
+				for (int subset = 1; subset < SUBSETS; subset++) {
+					final int algorithm = Integer
+							.numberOfTrailingZeros(subset);
+					final int rest = subset & subset - 1;
+					int picks = 0;
+					int hits = 0;
+					int exclusivePicks = 0;
+					int exclusiveHits = 0;
+					int bonusPicks = 0;
+					for (int w = 0; w < words; w++) {
+						final long picked = numbers[algorithm][w];
+						once[subset][w] = once[rest][w] | picked;
+						twice[subset][w] = twice[rest][w]
+								| once[rest][w] & picked;
+						bonusOnce[subset][w] = bonusOnce[rest][w]
+								| bonusBalls[algorithm][w];
+						final long drawn = w < history.maskWords() ? history
+								.maskWord(row, w) : 0;
+						picks += Long.bitCount(once[subset][w]);
+						hits += Long.bitCount(once[subset][w] & drawn);
+						exclusivePicks += Long.bitCount(twice[subset][w]);
+						exclusiveHits += Long.bitCount(twice[subset][w]
+								& drawn);
+						bonusPicks += Long.bitCount(bonusOnce[subset][w]);
+					}
+					final boolean bonusHit = bonusBall >= 0
+							&& bonusBall < words << 6
+							&& NumberMask.contains(bonusOnce[subset], 0,
+									bonusBall);
+					result[subset * 2].add(picks, hits, bonusPicks,
+							bonusHit, wheel);
+					result[subset * 2 + 1].add(exclusivePicks,
+							exclusiveHits, bonusPicks, bonusHit, wheel);
+				}
+				if (replay.target() == myFirst) {
+					return result;
+				}
+				replay.next();
+			}
+		}
+	}
+}
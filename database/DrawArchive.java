@@ -0,0 +1,357 @@
+package database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import lotto.Lottery;
+import analyzer.Draw;
+
+/**
+ * This is a module class for the compressed archive of a game's draws. The
+ * archive is a small header followed by one stream of bits, each draw written
+ * as:
+ * <ul>
+ * <li>the days since the draw before it as a varint of 3 bit groups, the
+ * most recent draw counting from its own epoch day, which starts the
+ * stream</li>
+ * <li>one bit set if the number range or bonus ball range changed, followed
+ * by the new ranges in 8 bits each</li>
+ * <li>each number ball and the bonus ball packed into as few bits as the
+ * highest number in the game needs</li>
+ * <li>one bit for the jackpot status</li>
+ * <li>the payout as a varint of 7 bit groups</li>
+ * </ul>
+ * The archive is a copy of the text database that remembers the length and
+ * modification time of its source, and is simply written again when it goes
+ * stale. DrawArchiveReader decodes it one draw at a time.
+ *
+ * Header layout, 30 bytes: magic, version, game id, number of balls, bits per
+ * number ball, bits per bonus ball, draw count, source length and source
+ * modification time.
+ *
+ * @author Robert
+ */
+public final class DrawArchive {
+
+	/**
+	 * The extension that replaces .txt on a game's database file.
+	 */
+	public static final String EXTENSION = ".arc";
+
+	/**
+	 * Marks the start of every archive, "LOTA".
+	 */
+	static final int MAGIC = 0x4C4F5441;
+
+	/**
+	 * The version of the bit layout.
+	 */
+	static final short VERSION = 1;
+
+	/**
+	 * The size of the header in bytes.
+	 */
+	static final int HEADER_SIZE = 30;
+
+	/**
+	 * The payload bits in each group of a date varint.
+	 */
+	static final int DATE_GROUP = 3;
+
+	/**
+	 * The payload bits in each group of a payout varint.
+	 */
+	static final int PAYOUT_GROUP = 7;
+
+	/**
+	 * The bits used to write a changed range.
+	 */
+	static final int RANGE_BITS = 8;
+
+	/**
+	 * Added to the archive name while a new one is written.
+	 */
+	private static final String TEMP_EXTENSION = ".tmp";
+
+	/**
+	 * Private constructor to prevent making a DrawArchive object.
+	 */
+	private DrawArchive() {
+
+	}
+
+	/**
+	 * Opens a reader over the archive of the given game, writing the archive
+	 * first if it is missing or out of date.
+	 *
+	 * @param theGame
+	 *            the game to open
+	 * @return a reader positioned before the most recent draw
+	 * @throws IOException
+	 *             if the archive or the text database cannot be read, or the
+	 *             archive cannot be written
+	 */
+	public static DrawArchiveReader open(final Lottery theGame)
+			throws IOException {
+		if (!isCurrent(theGame)) {
+			convert(theGame);
+		}
+		return new DrawArchiveReader(theGame, new BufferedInputStream(
+				new FileInputStream(archiveFile(theGame))));
+	}
+
+	/**
+	 * Returns the filename of the archive of the given game.
+	 *
+	 * @param theGame
+	 *            the game
+	 * @return the archive file name
+	 */
+	public static String archiveFile(final Lottery theGame) {
+		final String text = theGame.dataFile();
+		final int dot = text.lastIndexOf('.');
+		if (dot < 0) {
+			return text + EXTENSION;
+		}
+		return text.substring(0, dot) + EXTENSION;
+	}
+
+	/**
+	 * Returns true if the archive of the given game exists and was written
+	 * from the current text database.
+	 *
+	 * @param theGame
+	 *            the game to check
+	 * @return true if the archive can be used as is
+	 */
+	public static boolean isCurrent(final Lottery theGame) {
+		final File text = new File(theGame.dataFile());
+		final File archive = new File(archiveFile(theGame));
+		if (!archive.isFile() || archive.length() < HEADER_SIZE) {
+			return false;
+		}
+		try {
+			final DataInputStream in = new DataInputStream(
+					new FileInputStream(archive));
+			try {
+				final boolean valid = in.readInt() == MAGIC
+						&& in.readShort() == VERSION
+						&& in.readUnsignedByte() == theGame.gameId()
+						&& in.readUnsignedByte() == theGame.getNumberOfBalls();
+				in.readUnsignedShort();
+				in.readInt();
+				final long sourceLength = in.readLong();
+				final long sourceModified = in.readLong();
+				return valid && sourceLength == text.length()
+						&& sourceModified == text.lastModified();
+			} finally {
+				in.close();
+			}
+		} catch (final IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the archive of the given game from its text database. The draws
+	 * are read first to find how many bits the highest number needs. The
+	 * archive is written beside the old one and moved over it.
+	 *
+	 * @param theGame
+	 *            the game to convert
+	 * @throws IOException
+	 *             if the text database cannot be read or the archive cannot
+	 *             be written
+	 */
+	public static void convert(final Lottery theGame) throws IOException {
+		// stamp before reading so a concurrent write leaves this stale
+		final File text = new File(theGame.dataFile());
+		final long sourceLength = text.length();
+		final long sourceModified = text.lastModified();
+		final List<Draw> draws = new ArrayList<Draw>();
+		final DrawFileParser in = new DrawFileParser(theGame);
+		try {
+			while (in.next()) {
+				draws.add(in.toDraw());
+			}
+		} finally {
+			in.close();
+		}
+		int highest = 0;
+		int highestBonus = 0;
+		for (final Draw draw : draws) {
+			for (final int number : draw.numbers()) {
+				highest = Math.max(highest, number);
+			}
+			highestBonus = Math.max(highestBonus, draw.bonusBall());
+		}
+		final int ballBits = bitsFor(highest);
+		final int bonusBits = theGame.hasBonusBall() ? bitsFor(highestBonus)
+				: 0;
+		final File temp = new File(archiveFile(theGame) + TEMP_EXTENSION);
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeByte(theGame.gameId());
+			out.writeByte(theGame.getNumberOfBalls());
+			out.writeByte(ballBits);
+			out.writeByte(bonusBits);
+			out.writeInt(draws.size());
+			out.writeLong(sourceLength);
+			out.writeLong(sourceModified);
+			final BitOutput bits = new BitOutput(out);
+			int previousDate = draws.isEmpty() ? 0 : draws.get(0).epochDay();
+			int range = 0;
+			int bonusRange = 0;
+			bits.writeVarint(previousDate, DATE_GROUP);
+			for (final Draw draw : draws) {
+				bits.writeVarint(previousDate - draw.epochDay(), DATE_GROUP);
+				previousDate = draw.epochDay();
+				if (draw.numberRange() != range
+						|| draw.bonusBallRange() != bonusRange) {
+					range = draw.numberRange();
+					bonusRange = draw.bonusBallRange();
+					bits.write(1, 1);
+					bits.write(range, RANGE_BITS);
+					if (theGame.hasBonusBall()) {
+						bits.write(bonusRange, RANGE_BITS);
+					}
+				} else {
+					bits.write(0, 1);
+				}
+				for (final int number : draw.numbers()) {
+					bits.write(number, ballBits);
+				}
+				bits.write(draw.bonusBall(), bonusBits);
+				bits.write(draw.jackpotWinner() ? 1 : 0, 1);
+				bits.writeVarint(draw.payout(), PAYOUT_GROUP);
+			}
+			bits.flush();
+		} finally {
+			out.close();
+		}
+		Files.move(temp.toPath(), new File(archiveFile(theGame)).toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Returns how many bits are needed to write the given number.
+	 *
+	 * @param theValue
+	 *            a non negative number
+	 * @return the number of bits, at least 1
+	 */
+	private static int bitsFor(final int theValue) {
+		return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(theValue));
+	}
+
+	/**
+	 * Writes values of any bit width into a stream, high bits first.
+	 *
+	 * @author Robert
+	 */
+	private static final class BitOutput {
+
+		/**
+		 * The stream written to.
+		 */
+		private final OutputStream myOut;
+
+		/**
+		 * Bits not yet written, in the low bits.
+		 */
+		private long myBits;
+
+		/**
+		 * The number of bits waiting in myBits.
+		 */
+		private int myCount;
+
+		/**
+		 * Creates a bit writer over the given stream.
+		 *
+		 * @param theOut
+		 *            the stream to write to
+		 */
+		private BitOutput(final OutputStream theOut) {
+			myOut = theOut;
+		}
+
+		/**
+		 * Writes the low bits of a value.
+		 *
+		 * @param theValue
+		 *            the value
+		 * @param theWidth
+		 *            how many bits to write, at most 32
+		 * @throws IOException
+		 *             if the stream cannot be written
+		 */
+		private void write(final long theValue, final int theWidth)
+				throws IOException {
+			if (theWidth == 0) {
+				return;
+			}
+			myBits = myBits << theWidth | theValue & (1L << theWidth) - 1;
+			myCount += theWidth;
+			while (myCount >= Byte.SIZE) {
+				myCount -= Byte.SIZE;
+				myOut.write((int) (myBits >>> myCount));
+			}
+		}
+
+		/**
+		 * Writes a non negative value as groups of the given width, lowest
+		 * group first, each behind a bit set if another group follows.
+		 *
+		 * @param theValue
+		 *            the value
+		 * @param theGroup
+		 *            the payload bits in each group
+		 * @throws IOException
+		 *             if the value is negative or the stream cannot be
+		 *             written
+		 */
+		private void writeVarint(final long theValue, final int theGroup)
+				throws IOException {
+			if (theValue < 0) {
+				// only happens if the database is not most recent first
+				throw new IOException("Cannot archive negative value "
+						+ theValue);
+			}
+			long rest = theValue;
+			while (rest >>> theGroup != 0) {
+				write(1, 1);
+				write(rest, theGroup);
+				rest >>>= theGroup;
+			}
+			write(0, 1);
+			write(rest, theGroup);
+		}
+
+		/**
+		 * Pads the last byte with zeros and writes it.
+		 *
+		 * @throws IOException
+		 *             if the stream cannot be written
+		 */
+		private void flush() throws IOException {
+			if (myCount > 0) {
+				write(0, Byte.SIZE - myCount);
+			}
+		}
+	}
+}
@@ -0,0 +1,340 @@
+package database;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import lotto.Lottery;
+import analyzer.Draw;
+
+/**
+ * Decodes the archive of a game, as written by DrawArchive, one draw at a
+ * time straight off the stream, so the archive is never inflated in memory.
+ * Like the DrawFileParser, the fields of the current draw are held as
+ * primitives and are available through the getters until next() is called
+ * again.
+ *
+ * @author Robert
+ */
+public final class DrawArchiveReader implements Closeable {
+
+	/**
+	 * The size of the read buffer.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The game being read.
+	 */
+	private final Lottery myGame;
+
+	/**
+	 * The stream the archive is read from.
+	 */
+	private final DataInputStream myIn;
+
+	/**
+	 * The reusable read buffer.
+	 */
+	private final byte[] myBuffer;
+
+	/**
+	 * The position of the next unread byte in the buffer.
+	 */
+	private int myPosition;
+
+	/**
+	 * The number of valid bytes in the buffer.
+	 */
+	private int myLimit;
+
+	/**
+	 * The number of draws in the archive.
+	 */
+	private final int myCount;
+
+	/**
+	 * The bits used for each number ball.
+	 */
+	private final int myBallBits;
+
+	/**
+	 * The bits used for the bonus ball.
+	 */
+	private final int myBonusBits;
+
+	/**
+	 * The number of draws read so far.
+	 */
+	private int myRead;
+
+	/**
+	 * Bits read from the stream but not yet used, in the low bits.
+	 */
+	private long myBits;
+
+	/**
+	 * The number of bits waiting in myBits.
+	 */
+	private int myBitCount;
+
+	/**
+	 * The date of the current draw as an epoch day.
+	 */
+	private int myDate;
+
+	/**
+	 * The number balls of the current draw.
+	 */
+	private final int[] myNumbers;
+
+	/**
+	 * The bonus ball of the current draw, 0 if the game has none.
+	 */
+	private int myBonusBall;
+
+	/**
+	 * The jackpot status of the current draw.
+	 */
+	private boolean myJackpotStatus;
+
+	/**
+	 * The payout of the current draw.
+	 */
+	private long myPayout;
+
+	/**
+	 * The number range of the current draw.
+	 */
+	private int myNumberRange;
+
+	/**
+	 * The bonus ball range of the current draw, 0 if the game has none.
+	 */
+	private int myBonusBallRange;
+
+	/**
+	 * Creates a reader over the given archive and reads its header.
+	 *
+	 * @param theGame
+	 *            the game the archive belongs to
+	 * @param theIn
+	 *            the archive contents
+	 * @throws IOException
+	 *             if the header cannot be read or is not an archive of the
+	 *             game
+	 */
+	DrawArchiveReader(final Lottery theGame, final InputStream theIn)
+			throws IOException {
+		myGame = theGame;
+		myIn = new DataInputStream(theIn);
+		myBuffer = new byte[BUFFER_SIZE];
+		myNumbers = new int[theGame.getNumberOfBalls()];
+		try {
+			if (myIn.readInt() != DrawArchive.MAGIC
+					|| myIn.readShort() != DrawArchive.VERSION
+					|| myIn.readUnsignedByte() != theGame.gameId()
+					|| myIn.readUnsignedByte() != myNumbers.length) {
+				throw new IOException("Not an archive of " + theGame);
+			}
+			myBallBits = myIn.readUnsignedByte();
+			myBonusBits = myIn.readUnsignedByte();
+			myCount = myIn.readInt();
+			// the source length and modification time are not needed
+			myIn.skipBytes(DrawArchive.HEADER_SIZE - 14);
+			myDate = (int) readVarint(DrawArchive.DATE_GROUP);
+		} catch (final IOException e) {
+			myIn.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the number of draws in the archive.
+	 *
+	 * @return the number of draws
+	 */
+	public int count() {
+		return myCount;
+	}
+
+	/**
+	 * Decodes the next draw. Returns false once every draw has been read.
+	 *
+	 * @return true if a draw was read
+	 * @throws IOException
+	 *             if the archive cannot be read or ends early
+	 */
+	public boolean next() throws IOException {
+		if (myRead == myCount) {
+			return false;
+		}
+		myRead++;
+		myDate -= (int) readVarint(DrawArchive.DATE_GROUP);
+		if (read(1) != 0) {
+			myNumberRange = read(DrawArchive.RANGE_BITS);
+			if (myGame.hasBonusBall()) {
+				myBonusBallRange = read(DrawArchive.RANGE_BITS);
+			}
+		}
+		for (int i = 0; i < myNumbers.length; i++) {
+			myNumbers[i] = read(myBallBits);
+		}
+		myBonusBall = read(myBonusBits);
+		myJackpotStatus = read(1) != 0;
+		myPayout = readVarint(DrawArchive.PAYOUT_GROUP);
+		return true;
+	}
+
+	/**
+	 * Returns the date of the current draw as an epoch day.
+	 *
+	 * @return days since 1970-01-01
+	 */
+	public int epochDay() {
+		return myDate;
+	}
+
+	/**
+	 * Returns one number ball of the current draw.
+	 *
+	 * @param theBall
+	 *            which ball, starting at 0
+	 * @return the number drawn
+	 */
+	public int number(final int theBall) {
+		return myNumbers[theBall];
+	}
+
+	/**
+	 * Returns the bonus ball of the current draw.
+	 *
+	 * @return the bonus ball, 0 if the game has none
+	 */
+	public int bonusBall() {
+		return myBonusBall;
+	}
+
+	/**
+	 * Returns true if the current draw was a jackpot winner.
+	 *
+	 * @return the jackpot status
+	 */
+	public boolean jackpotWinner() {
+		return myJackpotStatus;
+	}
+
+	/**
+	 * Returns the payout of the current draw.
+	 *
+	 * @return the total payout
+	 */
+	public long payout() {
+		return myPayout;
+	}
+
+	/**
+	 * Returns the number range of the current draw.
+	 *
+	 * @return the number range
+	 */
+	public int numberRange() {
+		return myNumberRange;
+	}
+
+	/**
+	 * Returns the bonus ball range of the current draw.
+	 *
+	 * @return the bonus ball range, 0 if the game has none
+	 */
+	public int bonusBallRange() {
+		return myBonusBallRange;
+	}
+
+	/**
+	 * Builds a Draw object out of the current draw.
+	 *
+	 * @return the current draw
+	 */
+	public Draw toDraw() {
+		if (myGame.hasBonusBall()) {
+			return new Draw(myDate, myNumbers, myBonusBall, myJackpotStatus,
+					myPayout, myNumberRange, myBonusBallRange);
+		}
+		return new Draw(myDate, myNumbers, myJackpotStatus, myPayout,
+				myNumberRange);
+	}
+
+	/**
+	 * Closes the underlying stream.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		myIn.close();
+	}
+
+	/**
+	 * Reads a value of the given bit width, high bits first.
+	 *
+	 * @param theWidth
+	 *            how many bits to read, at most 32
+	 * @return the value
+	 * @throws IOException
+	 *             if the archive cannot be read or ends early
+	 */
+	private int read(final int theWidth) throws IOException {
+		while (myBitCount < theWidth) {
+			if (myPosition == myLimit) {
+				fill();
+			}
+			myBits = myBits << Byte.SIZE | myBuffer[myPosition] & 0xFF;
+			myPosition++;
+			myBitCount += Byte.SIZE;
+		}
+		myBitCount -= theWidth;
+		return (int) (myBits >>> myBitCount & (1L << theWidth) - 1);
+	}
+
+	/**
+	 * Reads the next block of the archive into the buffer.
+	 *
+	 * @throws IOException
+	 *             if the archive cannot be read or has ended
+	 */
+	private void fill() throws IOException {
+		myLimit = myIn.read(myBuffer, 0, myBuffer.length);
+		myPosition = 0;
+		if (myLimit <= 0) {
+			myLimit = 0;
+			throw new EOFException("Archive of " + myGame + " ends at draw "
+					+ myRead);
+		}
+	}
+
+	/**
+	 * Reads a varint written in groups of the given width, lowest group
+	 * first.
+	 *
+	 * @param theGroup
+	 *            the payload bits in each group
+	 * @return the value
+	 * @throws IOException
+	 *             if the archive cannot be read or ends early
+	 */
+	private long readVarint(final int theGroup) throws IOException {
+		long result = 0;
+		int shift = 0;
+		boolean more = true;
+		while (more) {
+			more = read(1) != 0;
+			result |= (long) read(theGroup) << shift;
+			shift += theGroup;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,275 @@
+package database;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+import lotto.Lottery;
+
+/**
+ * This is a module class for the index file kept next to each text database.
+ * The index holds the number of draws in the database and the byte offset of
+ * every draw, so the updater knows where each draw starts when it merges new
+ * draws into the database. The header of the index remembers the
+ * length and modification time of the database it describes; a stale index is
+ * rebuilt the next time it is used.
+ *
+ * Layout: magic, version, record count, source length, source modification
+ * time, then one offset per draw, most recent first.
+ *
+ * @author Robert
+ */
+public final class DrawFileIndex {
+
+	/**
+	 * The extension that replaces .txt on a game's database file.
+	 */
+	public static final String EXTENSION = ".idx";
+
+	/**
+	 * Marks the start of every index file, "LOTI".
+	 */
+	private static final int MAGIC = 0x4C4F5449;
+
+	/**
+	 * The version of the index layout.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * The size of the header in bytes.
+	 */
+	private static final int HEADER_SIZE = 28;
+
+	/**
+	 * The size of the read buffer used when building an index.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Private constructor to prevent making a DrawFileIndex object.
+	 */
+	private DrawFileIndex() {
+
+	}
+
+	/**
+	 * Returns the filename of the index of the given game.
+	 *
+	 * @param theGame
+	 *            the game
+	 * @return the index file name
+	 */
+	public static String indexFile(final Lottery theGame) {
+		final String text = theGame.dataFile();
+		final int dot = text.lastIndexOf('.');
+		if (dot < 0) {
+			return text + EXTENSION;
+		}
+		return text.substring(0, dot) + EXTENSION;
+	}
+
+	/**
+	 * Builds the index of the given game from its text database, replacing
+	 * any index already there.
+	 *
+	 * @param theGame
+	 *            the game to index
+	 * @throws IOException
+	 *             if the database cannot be read or the index written
+	 */
+	public static void rebuild(final Lottery theGame) throws IOException {
+		final File text = new File(theGame.dataFile());
+		final long sourceLength = text.length();
+		final long sourceModified = text.lastModified();
+		final long[] offsets = findRecords(new FileInputStream(text));
+		write(theGame, offsets, offsets.length, sourceLength, sourceModified);
+	}
+
+	/**
+	 * Reads every offset out of the index of the given game.
+	 *
+	 * @param theGame
+	 *            the game
+	 * @return the offset of each draw, most recent first
+	 * @throws IOException
+	 *             if the database or its index cannot be read
+	 */
+	public static long[] readOffsets(final Lottery theGame) throws IOException {
+		final RandomAccessFile index = openCurrent(theGame);
+		try {
+			index.seek(8);
+			final long[] offsets = new long[index.readInt()];
+			index.seek(HEADER_SIZE);
+			for (int i = 0; i < offsets.length; i++) {
+				offsets[i] = index.readLong();
+			}
+			return offsets;
+		} finally {
+			index.close();
+		}
+	}
+
+	/**
+	 * Writes the index of the given game from offsets that are already known,
+	 * stamped with the database file as it is now. Used after a write that
+	 * knows where every draw ended up, so the database is not scanned again.
+	 *
+	 * @param theGame
+	 *            the game
+	 * @param theOffsets
+	 *            the offset of each draw, most recent first
+	 * @param theCount
+	 *            how many of the offsets are used
+	 * @throws IOException
+	 *             if the index cannot be written
+	 */
+	public static void write(final Lottery theGame, final long[] theOffsets,
+			final int theCount) throws IOException {
+		final File text = new File(theGame.dataFile());
+		write(theGame, theOffsets, theCount, text.length(),
+				text.lastModified());
+	}
+
+	/**
+	 * Opens the index of the given game, rebuilding it first if it is missing
+	 * or stale.
+	 *
+	 * @param theGame
+	 *            the game
+	 * @return the open index file
+	 * @throws IOException
+	 *             if the database or its index cannot be read
+	 */
+	private static RandomAccessFile openCurrent(final Lottery theGame)
+			throws IOException {
+		final File text = new File(theGame.dataFile());
+		if (!text.isFile()) {
+			throw new FileNotFoundException(theGame.dataFile());
+		}
+		if (!isCurrent(theGame, text)) {
+			rebuild(theGame);
+		}
+		return new RandomAccessFile(indexFile(theGame), "r");
+	}
+
+	/**
+	 * Returns true if the index of the given game describes its database as
+	 * it is now.
+	 *
+	 * @param theGame
+	 *            the game
+	 * @param theText
+	 *            the database file
+	 * @return true if the index can be used as is
+	 */
+	private static boolean isCurrent(final Lottery theGame, final File theText) {
+		final File file = new File(indexFile(theGame));
+		if (!file.isFile() || file.length() < HEADER_SIZE) {
+			return false;
+		}
+		try {
+			final RandomAccessFile index = new RandomAccessFile(file, "r");
+			try {
+				final boolean valid = index.readInt() == MAGIC
+						&& index.readInt() == VERSION;
+				final int count = index.readInt();
+				return valid && index.readLong() == theText.length()
+						&& index.readLong() == theText.lastModified()
+						&& file.length() == HEADER_SIZE + 8L * count;
+			} finally {
+				index.close();
+			}
+		} catch (final IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Writes an index file.
+	 *
+	 * @param theGame
+	 *            the game
+	 * @param theOffsets
+	 *            the offset of each draw
+	 * @param theCount
+	 *            how many of the offsets are used
+	 * @param theSourceLength
+	 *            the length of the database
+	 * @param theSourceModified
+	 *            the modification time of the database
+	 * @throws IOException
+	 *             if the index cannot be written
+	 */
+	private static void write(final Lottery theGame, final long[] theOffsets,
+			final int theCount, final long theSourceLength,
+			final long theSourceModified) throws IOException {
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(
+						indexFile(theGame))));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(theCount);
+			out.writeLong(theSourceLength);
+			out.writeLong(theSourceModified);
+			for (int i = 0; i < theCount; i++) {
+				out.writeLong(theOffsets[i]);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Finds the offset of every non blank line in the given stream.
+	 *
+	 * @param theIn
+	 *            the database contents, closed when done
+	 * @return the offset of each line
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 */
+	private static long[] findRecords(final InputStream theIn)
+			throws IOException {
+		long[] offsets = new long[BUFFER_SIZE / 64];
+		int count = 0;
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		long position = 0;
+		boolean lineStart = true;
+		try {
+			int read = theIn.read(buffer);
+			while (read >= 0) {
+				for (int i = 0; i < read; i++) {
+					final byte next = buffer[i];
+					if (next == '\n') {
+						lineStart = true;
+					} else if (lineStart && next != ' ' && next != '\t'
+							&& next != '\r') {
+						if (count == offsets.length) {
+							final long[] bigger = new long[count * 2];
+							System.arraycopy(offsets, 0, bigger, 0, count);
+							offsets = bigger;
+						}
+						offsets[count] = position + i;
+						count++;
+						lineStart = false;
+					}
+				}
+				position += read;
+				read = theIn.read(buffer);
+			}
+		} finally {
+			theIn.close();
+		}
+		final long[] result = new long[count];
+		System.arraycopy(offsets, 0, result, 0, count);
+		return result;
+	}
+}
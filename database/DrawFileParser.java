@@ -0,0 +1,450 @@
+package database;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import lotto.Lottery;
+import util.DrawDate;
+import analyzer.Draw;
+
+/**
+ * Reads the draws of a text database, as written by Draw.toString(), one at a
+ * time. The file is read in blocks into a single reusable byte buffer and each
+ * field is parsed straight out of those bytes into a primitive, so stepping
+ * through a file allocates nothing per line. The fields of the current draw
+ * are available through the getters until next() is called again.
+ *
+ * @author Robert
+ */
+public final class DrawFileParser implements Closeable {
+
+	/**
+	 * The size of the read buffer.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Upper casing mask for ASCII letters.
+	 */
+	private static final int UPPER_CASE = 0xDF;
+
+	/**
+	 * The three month letters packed into one int, in calendar order.
+	 */
+	private static final int[] MONTH_KEYS = new int[12];
+
+	static {
+		for (int i = 0; i < MONTH_KEYS.length; i++) {
+			final String name = DrawDate.monthName(i + 1);
+			MONTH_KEYS[i] = packMonth(name.charAt(0), name.charAt(1),
+					name.charAt(2));
+		}
+	}
+
+	/**
+	 * The game being read, used to know the number of fields per line.
+	 */
+	private final Lottery myGame;
+
+	/**
+	 * The stream the database is read from.
+	 */
+	private final InputStream myIn;
+
+	/**
+	 * The reusable read buffer.
+	 */
+	private final byte[] myBuffer;
+
+	/**
+	 * The position of the next unread byte in the buffer.
+	 */
+	private int myPosition;
+
+	/**
+	 * The number of valid bytes in the buffer.
+	 */
+	private int myLimit;
+
+	/**
+	 * The number of draws read so far.
+	 */
+	private int myLine;
+
+	/**
+	 * The month of the current draw.
+	 */
+	private int myMonth;
+
+	/**
+	 * The day of the current draw.
+	 */
+	private int myDay;
+
+	/**
+	 * The year of the current draw.
+	 */
+	private int myYear;
+
+	/**
+	 * The number balls of the current draw.
+	 */
+	private final int[] myNumbers;
+
+	/**
+	 * The bonus ball of the current draw, 0 if the game has none.
+	 */
+	private int myBonusBall;
+
+	/**
+	 * The jackpot status of the current draw.
+	 */
+	private boolean myJackpotStatus;
+
+	/**
+	 * The payout of the current draw.
+	 */
+	private long myPayout;
+
+	/**
+	 * The number range of the current draw.
+	 */
+	private int myNumberRange;
+
+	/**
+	 * The bonus ball range of the current draw, 0 if the game has none.
+	 */
+	private int myBonusBallRange;
+
+	/**
+	 * Creates a parser over the given stream.
+	 *
+	 * @param theGame
+	 *            the game the database belongs to
+	 * @param theIn
+	 *            the database contents
+	 */
+	public DrawFileParser(final Lottery theGame, final InputStream theIn) {
+		myGame = theGame;
+		myIn = theIn;
+		myBuffer = new byte[BUFFER_SIZE];
+		myNumbers = new int[theGame.getNumberOfBalls()];
+	}
+
+	/**
+	 * Creates a parser over the database file of the given game.
+	 *
+	 * @param theGame
+	 *            the game to read
+	 * @throws FileNotFoundException
+	 *             if the database file is not found
+	 */
+	public DrawFileParser(final Lottery theGame) throws FileNotFoundException {
+		this(theGame, new FileInputStream(theGame.dataFile()));
+	}
+
+	/**
+	 * Parses the next draw. Returns false once the end of the file is reached.
+	 *
+	 * @return true if a draw was read
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public boolean next() throws IOException {
+		if (skipWhitespace() < 0) {
+			return false;
+		}
+		myLine++;
+		myMonth = nextMonth();
+		myDay = (int) nextLong();
+		myYear = (int) nextLong();
+		for (int i = 0; i < myNumbers.length; i++) {
+			myNumbers[i] = (int) nextLong();
+		}
+		if (myGame.hasBonusBall()) {
+			myBonusBall = (int) nextLong();
+		}
+		myJackpotStatus = nextBoolean();
+		myPayout = nextLong();
+		myNumberRange = (int) nextLong();
+		if (myGame.hasBonusBall()) {
+			myBonusBallRange = (int) nextLong();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the month of the current draw.
+	 *
+	 * @return the month in [1, 12]
+	 */
+	public int month() {
+		return myMonth;
+	}
+
+	/**
+	 * Returns the day of the month of the current draw.
+	 *
+	 * @return the day
+	 */
+	public int day() {
+		return myDay;
+	}
+
+	/**
+	 * Returns the year of the current draw.
+	 *
+	 * @return the year
+	 */
+	public int year() {
+		return myYear;
+	}
+
+	/**
+	 * Returns the date of the current draw as an epoch day.
+	 *
+	 * @return days since 1970-01-01
+	 */
+	public int epochDay() {
+		return DrawDate.toEpochDay(myYear, myMonth, myDay);
+	}
+
+	/**
+	 * Returns one number ball of the current draw.
+	 *
+	 * @param theBall
+	 *            which ball, starting at 0
+	 * @return the number drawn
+	 */
+	public int number(final int theBall) {
+		return myNumbers[theBall];
+	}
+
+	/**
+	 * Returns the bonus ball of the current draw.
+	 *
+	 * @return the bonus ball, 0 if the game has none
+	 */
+	public int bonusBall() {
+		return myBonusBall;
+	}
+
+	/**
+	 * Returns true if the current draw was a jackpot winner.
+	 *
+	 * @return the jackpot status
+	 */
+	public boolean jackpotWinner() {
+		return myJackpotStatus;
+	}
+
+	/**
+	 * Returns the payout of the current draw.
+	 *
+	 * @return the total payout
+	 */
+	public long payout() {
+		return myPayout;
+	}
+
+	/**
+	 * Returns the number range of the current draw.
+	 *
+	 * @return the number range
+	 */
+	public int numberRange() {
+		return myNumberRange;
+	}
+
+	/**
+	 * Returns the bonus ball range of the current draw.
+	 *
+	 * @return the bonus ball range, 0 if the game has none
+	 */
+	public int bonusBallRange() {
+		return myBonusBallRange;
+	}
+
+	/**
+	 * Builds a Draw object out of the current draw.
+	 *
+	 * @return the current draw
+	 */
+	public Draw toDraw() {
+		final int date = epochDay();
+		if (myGame.hasBonusBall()) {
+			return new Draw(date, myNumbers, myBonusBall, myJackpotStatus,
+					myPayout, myNumberRange, myBonusBallRange);
+		}
+		return new Draw(date, myNumbers, myJackpotStatus, myPayout,
+				myNumberRange);
+	}
+
+	/**
+	 * Closes the underlying stream.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		myIn.close();
+	}
+
+	/**
+	 * Skips spaces, tabs and line breaks without consuming the next byte.
+	 *
+	 * @return the next byte, or -1 at the end of the file
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	private int skipWhitespace() throws IOException {
+		while (true) {
+			if (myPosition == myLimit && !fill()) {
+				return -1;
+			}
+			final byte next = myBuffer[myPosition];
+			if (next != ' ' && next != '\t' && next != '\r' && next != '\n') {
+				return next;
+			}
+			myPosition++;
+		}
+	}
+
+	/**
+	 * Consumes the next byte of the current field.
+	 *
+	 * @return the byte, or -1 at the end of the field or file
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	private int fieldByte() throws IOException {
+		if (myPosition == myLimit && !fill()) {
+			return -1;
+		}
+		final byte next = myBuffer[myPosition];
+		if (next == ' ' || next == '\t' || next == '\r' || next == '\n') {
+			return -1;
+		}
+		myPosition++;
+		return next;
+	}
+
+	/**
+	 * Parses the next field as a non negative whole number.
+	 *
+	 * @return the number
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	private long nextLong() throws IOException {
+		skipWhitespace();
+		long result = 0;
+		int digits = 0;
+		int next = fieldByte();
+		while (next >= 0) {
+			if (next < '0' || next > '9') {
+				throw badField("a number");
+			}
+			result = result * 10 + (next - '0');
+			digits++;
+			next = fieldByte();
+		}
+		if (digits == 0) {
+			throw badField("a number");
+		}
+		return result;
+	}
+
+	/**
+	 * Parses the next field as a three letter month.
+	 *
+	 * @return the month in [1, 12]
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	private int nextMonth() throws IOException {
+		skipWhitespace();
+		final int first = fieldByte();
+		final int second = fieldByte();
+		final int third = fieldByte();
+		if (third < 0 || fieldByte() >= 0) {
+			throw badField("a month");
+		}
+		final int key = packMonth(first, second, third);
+		for (int i = 0; i < MONTH_KEYS.length; i++) {
+			if (MONTH_KEYS[i] == key) {
+				return i + 1;
+			}
+		}
+		throw badField("a month");
+	}
+
+	/**
+	 * Parses the next field as TRUE or FALSE, in any case.
+	 *
+	 * @return true for TRUE
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	private boolean nextBoolean() throws IOException {
+		skipWhitespace();
+		final int first = fieldByte() & UPPER_CASE;
+		while (fieldByte() >= 0) {
+			// the first letter is enough to tell them apart
+		}
+		if (first != 'T' && first != 'F') {
+			throw badField("TRUE or FALSE");
+		}
+		return first == 'T';
+	}
+
+	/**
+	 * Reads the next block of the file into the buffer.
+	 *
+	 * @return false if the end of the file was reached
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	private boolean fill() throws IOException {
+		myLimit = myIn.read(myBuffer, 0, myBuffer.length);
+		myPosition = 0;
+		if (myLimit < 0) {
+			myLimit = 0;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Creates the exception thrown for a malformed field.
+	 *
+	 * @param theExpected
+	 *            a description of what was expected
+	 * @return the exception to throw
+	 */
+	private IllegalStateException badField(final String theExpected) {
+		return new IllegalStateException("Expected " + theExpected
+				+ " in draw " + myLine + " of " + myGame.dataFile());
+	}
+
+	/**
+	 * Packs three upper cased letters into one int.
+	 *
+	 * @param theFirst
+	 *            the first letter
+	 * @param theSecond
+	 *            the second letter
+	 * @param theThird
+	 *            the third letter
+	 * @return the packed letters
+	 */
+	private static int packMonth(final int theFirst, final int theSecond,
+			final int theThird) {
+		return (theFirst & UPPER_CASE) << 16 | (theSecond & UPPER_CASE) << 8
+				| theThird & UPPER_CASE;
+	}
+}
@@ -0,0 +1,193 @@
+package database;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lotto.Lottery;
+import analyzer.DecayedFrequency;
+import analyzer.Draw;
+import analyzer.DrawTable;
+import analyzer.FilterIndex;
+import analyzer.FrequencyIndex;
+import analyzer.GapStatistics;
+
+/**
+ * The loaded draws of one game along with the state of the database file
+ * they were read from. A history never changes once loaded; when the database
+ * changes, the DrawRepository loads or extends a new one. So a query that
+ * takes one history and reads its draws, its table, its indexes and its rows
+ * in the DrawStore from it sees one version of the database throughout, even
+ * if the database is updated part way through.
+ *
+ * @author Robert
+ */
+public final class DrawHistory {
+
+	/**
+	 * The game the draws are of.
+	 */
+	private final Lottery myGame;
+
+	/**
+	 * The length of the database file when it was read.
+	 */
+	private final long myLength;
+
+	/**
+	 * The modification time of the database file when it was read.
+	 */
+	private final long myModified;
+
+	/**
+	 * Every draw in the database, most recent first.
+	 */
+	private final List<Draw> myDraws;
+
+	/**
+	 * The same draws held column by column.
+	 */
+	private final DrawTable myTable;
+
+	/**
+	 * The running frequency totals of the draws.
+	 */
+	private final FrequencyIndex myIndex;
+
+	/**
+	 * The bitmap indexes of the draws.
+	 */
+	private final FilterIndex myFilters;
+
+	/**
+	 * The decayed frequencies of the draws for each of the last few half
+	 * lives asked for, oldest first, keyed by half life. Kept by the
+	 * DrawRepository.
+	 */
+	final Map<Integer, DecayedFrequency> myDecayed;
+
+	/**
+	 * The gaps of the draws, null until they are first asked for. Kept by the
+	 * DrawRepository.
+	 */
+	GapStatistics myGaps;
+
+	/**
+	 * Records the given draws as read from a file of the given state.
+	 *
+	 * @param theGame
+	 *            the game the draws are of
+	 * @param theLength
+	 *            the length of the database file
+	 * @param theModified
+	 *            the modification time of the database file
+	 * @param theDraws
+	 *            the draws read from it
+	 * @param theTable
+	 *            the draws as a table
+	 * @param theIndex
+	 *            the frequency index of the table
+	 * @param theFilters
+	 *            the filter index of the table
+	 */
+	DrawHistory(final Lottery theGame, final long theLength,
+			final long theModified, final List<Draw> theDraws,
+			final DrawTable theTable, final FrequencyIndex theIndex,
+			final FilterIndex theFilters) {
+		myGame = theGame;
+		myLength = theLength;
+		myModified = theModified;
+		myDraws = theDraws;
+		myTable = theTable;
+		myIndex = theIndex;
+		myFilters = theFilters;
+		myDecayed = new LinkedHashMap<Integer, DecayedFrequency>();
+	}
+
+	/**
+	 * Returns the game the draws are of.
+	 *
+	 * @return the game
+	 */
+	public Lottery game() {
+		return myGame;
+	}
+
+	/**
+	 * Returns every draw, most recent first. The List cannot be modified.
+	 *
+	 * @return an unmodifiable List of the draws
+	 */
+	public List<Draw> draws() {
+		return myDraws;
+	}
+
+	/**
+	 * Returns every draw as a columnar table, most recent first.
+	 *
+	 * @return the draws as a table
+	 */
+	public DrawTable table() {
+		return myTable;
+	}
+
+	/**
+	 * Returns the running frequency totals of the draws. Its rows line up
+	 * with the rows of draws() and table().
+	 *
+	 * @return the frequency index
+	 */
+	public FrequencyIndex index() {
+		return myIndex;
+	}
+
+	/**
+	 * Returns the bitmap indexes over the jackpot and payout filters of the
+	 * draws. Its rows line up with the rows of draws() and table().
+	 *
+	 * @return the filter index
+	 */
+	public FilterIndex filters() {
+		return myFilters;
+	}
+
+	/**
+	 * Returns the number of draws.
+	 *
+	 * @return the number of draws
+	 */
+	public int size() {
+		return myDraws.size();
+	}
+
+	/**
+	 * Returns the length of the database file when it was read.
+	 *
+	 * @return the length in bytes
+	 */
+	long length() {
+		return myLength;
+	}
+
+	/**
+	 * Returns the modification time of the database file when it was read.
+	 *
+	 * @return the modification time
+	 */
+	long modified() {
+		return myModified;
+	}
+
+	/**
+	 * Returns true if the given file has not changed since it was read.
+	 *
+	 * @param theFile
+	 *            the database file
+	 * @return true if this history is still current
+	 */
+	boolean matches(final File theFile) {
+		return theFile.length() == myLength
+				&& theFile.lastModified() == myModified;
+	}
+}
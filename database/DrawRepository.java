@@ -0,0 +1,385 @@
+package database;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lotto.Lottery;
+import analyzer.DecayedFrequency;
+import analyzer.Draw;
+import analyzer.DrawTable;
+import analyzer.FilterIndex;
+import analyzer.FrequencyIndex;
+import analyzer.GapStatistics;
+import analyzer.RunningStatistics;
+
+/**
+ * This is a module class that keeps the parsed draw history of every game in
+ * memory for the life of the program, as Draw objects, as a DrawTable and as
+ * the FrequencyIndex and FilterIndex built when it is loaded, so a database
+ * file is read once instead of once per algorithm. A history is reloaded only
+ * when its database file changes length or modification time, or when it is
+ * invalidated after an update. When an update only adds draws on top of a
+ * loaded history, the history is extended instead. The DrawStore that answers
+ * queries over those histories is kept here as well, as are the statistics of
+ * each whole history, read from their StatisticsSnapshot so they are not
+ * counted again each run.
+ *
+ * @author Robert
+ */
+public final class DrawRepository {
+
+	/**
+	 * The loaded histories, keyed by database file name.
+	 */
+	private static final Map<String, DrawHistory> HISTORIES = new HashMap<String, DrawHistory>();
+
+	/**
+	 * The statistics of each whole history, keyed by database file name.
+	 */
+	private static final Map<String, Snapshot> SNAPSHOTS = new HashMap<String, Snapshot>();
+
+	/**
+	 * The most half lives whose decayed frequencies are kept with a history.
+	 */
+	private static final int MAX_HALF_LIVES = 4;
+
+	/**
+	 * The store GetDraws queries.
+	 */
+	private static final DrawStore STORE = new FlatFileDrawStore();
+
+	/**
+	 * Private constructor to prevent making a DrawRepository object.
+	 */
+	private DrawRepository() {
+
+	}
+
+	/**
+	 * Returns the loaded history of the given game, loading it first if it is
+	 * missing or its database file has changed. A query that reads more than
+	 * one thing of a game's history takes the history once and reads
+	 * everything from it, so it sees one version of the database throughout.
+	 *
+	 * @param theGame
+	 *            the game
+	 * @return the current history
+	 * @throws FileNotFoundException
+	 *             if the database file is not found
+	 */
+	public static synchronized DrawHistory getHistory(final Lottery theGame)
+			throws FileNotFoundException {
+		final File file = new File(theGame.dataFile());
+		DrawHistory history = HISTORIES.get(theGame.dataFile());
+		if (history == null || !history.matches(file)) {
+			// stamp before reading so a concurrent write forces a reload
+			final long length = file.length();
+			final long modified = file.lastModified();
+			final List<Draw> draws = load(theGame);
+			final DrawTable table = new DrawTable(theGame, draws);
+			history = new DrawHistory(theGame, length, modified, draws,
+					table, FrequencyIndex.of(table), new FilterIndex(table));
+			HISTORIES.put(theGame.dataFile(), history);
+		}
+		return history;
+	}
+
+	/**
+	 * Returns every draw of the given game as a columnar table, most recent
+	 * first. The table is shared and cannot be modified.
+	 *
+	 * @param theGame
+	 *            the game to get the draws of
+	 * @return a table of all draws in the database
+	 * @throws FileNotFoundException
+	 *             if the database file is not found
+	 */
+	public static synchronized DrawTable getTable(final Lottery theGame)
+			throws FileNotFoundException {
+		return getHistory(theGame).table();
+	}
+
+	/**
+	 * Returns the decayed frequencies of every draw of the given history. The
+	 * scores of the last few half lives asked for are kept with the history
+	 * and extended along with it by append(), so switching between them does
+	 * not work them out over the whole history again.
+	 *
+	 * @param theHistory
+	 *            the history to get the scores of
+	 * @param theHalfLife
+	 *            the half life in draws
+	 * @return the decayed frequencies of the history
+	 */
+	public static synchronized DecayedFrequency getDecayed(
+			final DrawHistory theHistory, final int theHalfLife) {
+		final Map<Integer, DecayedFrequency> kept = theHistory.myDecayed;
+		DecayedFrequency decayed = kept.get(theHalfLife);
+		if (decayed == null) {
+			if (kept.size() >= MAX_HALF_LIVES) {
+				kept.remove(kept.keySet().iterator().next());
+			}
+			decayed = DecayedFrequency.of(theHistory.table(), theHalfLife);
+			kept.put(theHalfLife, decayed);
+		}
+		return decayed;
+	}
+
+	/**
+	 * Returns the gaps between the appearances of each number over every draw
+	 * of the given history. They are kept with the history and extended along
+	 * with it by append(), so they are only worked out over the whole history
+	 * when the history is loaded.
+	 *
+	 * @param theHistory
+	 *            the history to get the gaps of
+	 * @return the gaps of the history
+	 */
+	public static synchronized GapStatistics getGaps(
+			final DrawHistory theHistory) {
+		if (theHistory.myGaps == null) {
+			theHistory.myGaps = GapStatistics.of(theHistory.table());
+		}
+		return theHistory.myGaps;
+	}
+
+	/**
+	 * Returns the statistics of every draw of the given history. While the
+	 * history matches the database file, they are read from the game's
+	 * StatisticsSnapshot, and only if that is missing or out of date are they
+	 * worked out from the draws and the snapshot saved again. The statistics
+	 * are shared and must not be changed.
+	 *
+	 * @param theHistory
+	 *            the history to get the statistics of
+	 * @return the statistics of the whole history
+	 */
+	public static synchronized RunningStatistics getStatistics(
+			final DrawHistory theHistory) {
+		final Lottery game = theHistory.game();
+		final Snapshot snapshot = SNAPSHOTS.get(game.dataFile());
+		if (snapshot != null && snapshot.matches(theHistory)) {
+			return snapshot.myStatistics;
+		}
+		final File file = new File(game.dataFile());
+		RunningStatistics statistics = null;
+		if (theHistory.matches(file)) {
+			try {
+				statistics = StatisticsSnapshot.read(game);
+			} catch (final IOException e) {
+				// missing or stale, worked out from the draws below
+			}
+		}
+		// checked again, the file may have changed while it was read
+		if (statistics == null || !theHistory.matches(file)) {
+			statistics = RunningStatistics.of(theHistory.draws());
+			if (theHistory.matches(file)) {
+				try {
+					StatisticsSnapshot.write(game, statistics,
+							theHistory.length(), theHistory.modified());
+				} catch (final IOException e) {
+					// the snapshot is only a copy, work it out again next run
+				}
+			}
+		}
+		SNAPSHOTS.put(game.dataFile(), new Snapshot(theHistory.length(),
+				theHistory.modified(), statistics));
+		return statistics;
+	}
+
+	/**
+	 * Returns the store to query for the rows of a game's history. Its rows
+	 * line up with the rows of the DrawHistory each query is asked of.
+	 *
+	 * @return the draw store
+	 */
+	public static DrawStore getStore() {
+		return STORE;
+	}
+
+	/**
+	 * Drops the loaded history of the given game, so the next request reads
+	 * the database again. Called whenever the database file is rewritten.
+	 *
+	 * @param theGame
+	 *            the game whose database changed
+	 */
+	public static synchronized void invalidate(final Lottery theGame) {
+		HISTORIES.remove(theGame.dataFile());
+	}
+
+	/**
+	 * Puts draws just written to the top of the database on top of the loaded
+	 * history of the given game, extending its index by only the new draws.
+	 * If no history is loaded, or the draws are not all newer than it, the
+	 * history is dropped instead and read again when next needed. Called by
+	 * the updater, which is the only writer of the database, so the history
+	 * is taken to match the file as it was before the draws were added.
+	 *
+	 * @param theGame
+	 *            the game whose database changed
+	 * @param theDraws
+	 *            the draws added, most recent first
+	 */
+	public static synchronized void append(final Lottery theGame,
+			final List<Draw> theDraws) {
+		final DrawHistory old = HISTORIES.get(theGame.dataFile());
+		if (old == null || theDraws.isEmpty() || old.draws().isEmpty()
+				|| theDraws.get(theDraws.size() - 1).epochDay() <= old.draws()
+						.get(0).epochDay()) {
+			invalidate(theGame);
+			return;
+		}
+		final File file = new File(theGame.dataFile());
+		final List<Draw> draws = new ArrayList<Draw>(theDraws.size()
+				+ old.size());
+		draws.addAll(theDraws);
+		draws.addAll(old.draws());
+		final DrawTable table = new DrawTable(theGame, draws);
+		final DrawHistory history = new DrawHistory(theGame, file.length(),
+				file.lastModified(), Collections.unmodifiableList(draws),
+				table, old.index().extend(table), new FilterIndex(table));
+		for (final DecayedFrequency decayed : old.myDecayed.values()) {
+			history.myDecayed.put(decayed.halfLife(), decayed.extend(table));
+		}
+		if (old.myGaps != null) {
+			history.myGaps = old.myGaps.extend(table);
+		}
+		HISTORIES.put(theGame.dataFile(), history);
+	}
+
+	/**
+	 * Reads every draw of the given game out of the compressed archive. If the
+	 * archive cannot be used the text database is read instead.
+	 *
+	 * @param theGame
+	 *            the game to load
+	 * @return a List of all draws, most recent first
+	 * @throws FileNotFoundException
+	 *             if the database file is not found
+	 */
+	private static List<Draw> load(final Lottery theGame)
+			throws FileNotFoundException {
+		List<Draw> draws;
+		try {
+			draws = readArchive(theGame);
+		} catch (final IOException e) {
+			// the archive is only a copy
+			draws = readTextDatabase(theGame);
+		}
+		return Collections.unmodifiableList(draws);
+	}
+
+	/**
+	 * Decodes every draw out of the archive of the given game, one at a time
+	 * as the archive is read.
+	 *
+	 * @param theGame
+	 *            the game to read
+	 * @return a List of Draw objects
+	 * @throws IOException
+	 *             if the archive cannot be read or written
+	 */
+	private static List<Draw> readArchive(final Lottery theGame)
+			throws IOException {
+		final DrawArchiveReader in = DrawArchive.open(theGame);
+		try {
+			final List<Draw> draws = new ArrayList<Draw>(in.count());
+			while (in.next()) {
+				draws.add(in.toDraw());
+			}
+			return draws;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Parses every draw out of the text database of the given game.
+	 *
+	 * @param theGame
+	 *            the game to read
+	 * @return a List of Draw objects
+	 * @throws FileNotFoundException
+	 *             if the database file is not found
+	 */
+	private static List<Draw> readTextDatabase(final Lottery theGame)
+			throws FileNotFoundException {
+		final List<Draw> draws = new ArrayList<Draw>();
+		final DrawFileParser in = new DrawFileParser(theGame);
+		try {
+			try {
+				while (in.next()) {
+					draws.add(in.toDraw());
+				}
+			} finally {
+				in.close();
+			}
+		} catch (final IOException e) {
+			// the file was opened, so it is there but unreadable
+			throw new IllegalStateException(e);
+		}
+		return draws;
+	}
+
+	/**
+	 * The statistics of one game's whole history along with the state of the
+	 * database file they were taken from.
+	 *
+	 * @author Robert
+	 */
+	private static final class Snapshot {
+
+		/**
+		 * The length of the database file when it was read.
+		 */
+		private final long myLength;
+
+		/**
+		 * The modification time of the database file when it was read.
+		 */
+		private final long myModified;
+
+		/**
+		 * The statistics of every draw in the database.
+		 */
+		private final RunningStatistics myStatistics;
+
+		/**
+		 * Records the given statistics as taken from a file of the given
+		 * state.
+		 *
+		 * @param theLength
+		 *            the length of the database file
+		 * @param theModified
+		 *            the modification time of the database file
+		 * @param theStatistics
+		 *            the statistics of its draws
+		 */
+		private Snapshot(final long theLength, final long theModified,
+				final RunningStatistics theStatistics) {
+			myLength = theLength;
+			myModified = theModified;
+			myStatistics = theStatistics;
+		}
+
+		/**
+		 * Returns true if these statistics were taken from the same state of
+		 * the database file as the given history.
+		 *
+		 * @param theHistory
+		 *            the history
+		 * @return true if these are the statistics of the history
+		 */
+		private boolean matches(final DrawHistory theHistory) {
+			return theHistory.length() == myLength
+					&& theHistory.modified() == myModified;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package database;
+
+/**
+ * Where the draw history of every game is kept. A store answers the queries
+ * GetDraws makes in terms of rows, row 0 being the most recent draw of a
+ * game. Each query is asked of one DrawHistory taken from the DrawRepository,
+ * and the rows it returns line up with the rows of that history, even if the
+ * database has changed since the history was taken.
+ *
+ * @author Robert
+ */
+public interface DrawStore {
+
+	/**
+	 * Returns the number of draws in the given history.
+	 *
+	 * @param theHistory
+	 *            the history of a game
+	 * @return the number of draws
+	 */
+	int size(DrawHistory theHistory);
+
+	/**
+	 * Finds the first row of the given history drawn on or before the given
+	 * day.
+	 *
+	 * @param theHistory
+	 *            the history of a game
+	 * @param theEpochDay
+	 *            the day to search for
+	 * @return the first row on or before the day, or size() if there is none
+	 */
+	int firstRowOnOrBefore(DrawHistory theHistory, int theEpochDay);
+
+	/**
+	 * Finds the rows in the given run of rows that match the given filters.
+	 *
+	 * @param theHistory
+	 *            the history of a game
+	 * @param theFrom
+	 *            the first row to look at, inclusive
+	 * @param theTo
+	 *            the last row to look at, exclusive
+	 * @param theJackpotOnly
+	 *            if only jackpot winners match
+	 * @param thePayout
+	 *            the minimum payout of the draws that match
+	 * @return the matching rows in increasing order
+	 */
+	int[] query(DrawHistory theHistory, int theFrom, int theTo,
+			boolean theJackpotOnly, long thePayout);
+}
@@ -0,0 +1,32 @@
+package database;
+
+/**
+ * The store made of the database files themselves. Every query is answered
+ * out of the history the DrawRepository loaded from the game's database and
+ * its FilterIndex.
+ *
+ * @author Robert
+ */
+public final class FlatFileDrawStore implements DrawStore {
+
+	/** {@inheritDoc} */
+	@Override
+	public int size(final DrawHistory theHistory) {
+		return theHistory.table().size();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int firstRowOnOrBefore(final DrawHistory theHistory,
+			final int theEpochDay) {
+		return theHistory.table().firstRowOnOrBefore(theEpochDay);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int[] query(final DrawHistory theHistory, final int theFrom,
+			final int theTo, final boolean theJackpotOnly, final long thePayout) {
+		return theHistory.filters().rows(theFrom, theTo, theJackpotOnly,
+				thePayout);
+	}
+}
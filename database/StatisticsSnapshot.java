@@ -0,0 +1,160 @@
+package database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import lotto.Lottery;
+import analyzer.RunningStatistics;
+
+/**
+ * This is a module class for the saved RunningStatistics of a game's whole
+ * history. Like the archive, the snapshot remembers the length and
+ * modification time of the text database it was taken from, and is only read
+ * while those still match. The updater adds the draws it writes to the
+ * snapshot and saves it again, so the frequencies of the whole history are
+ * available after an update without reading any draws.
+ *
+ * Header layout, 24 bytes: magic, version, game id, spare byte, source length
+ * and source modification time. The RunningStatistics follow.
+ *
+ * @author Robert
+ */
+public final class StatisticsSnapshot {
+
+	/**
+	 * The extension that replaces .txt on a game's database file.
+	 */
+	public static final String EXTENSION = ".sta";
+
+	/**
+	 * Marks the start of every snapshot, "LOTS".
+	 */
+	private static final int MAGIC = 0x4C4F5453;
+
+	/**
+	 * The version of the layout.
+	 */
+	private static final short VERSION = 1;
+
+	/**
+	 * Added to the snapshot name while a new one is written.
+	 */
+	private static final String TEMP_EXTENSION = ".tmp";
+
+	/**
+	 * Private constructor to prevent making a StatisticsSnapshot object.
+	 */
+	private StatisticsSnapshot() {
+
+	}
+
+	/**
+	 * Returns the filename of the snapshot of the given game.
+	 *
+	 * @param theGame
+	 *            the game
+	 * @return the snapshot file name
+	 */
+	public static String snapshotFile(final Lottery theGame) {
+		final String text = theGame.dataFile();
+		final int dot = text.lastIndexOf('.');
+		if (dot < 0) {
+			return text + EXTENSION;
+		}
+		return text.substring(0, dot) + EXTENSION;
+	}
+
+	/**
+	 * Reads the snapshot of the given game.
+	 *
+	 * @param theGame
+	 *            the game to read
+	 * @return the statistics of its whole history
+	 * @throws IOException
+	 *             if the snapshot is missing, out of date or cannot be read
+	 */
+	public static RunningStatistics read(final Lottery theGame)
+			throws IOException {
+		final File text = new File(theGame.dataFile());
+		final DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(
+						snapshotFile(theGame))));
+		try {
+			if (in.readInt() != MAGIC || in.readShort() != VERSION
+					|| in.readUnsignedByte() != theGame.gameId()) {
+				throw new IOException("Not a snapshot of " + theGame);
+			}
+			in.readUnsignedByte();
+			if (in.readLong() != text.length()
+					|| in.readLong() != text.lastModified()) {
+				throw new IOException("Snapshot of " + theGame
+						+ " is out of date");
+			}
+			return RunningStatistics.readFrom(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Saves the statistics of the given game's whole history, as the text
+	 * database is now. The snapshot is written beside the old one and moved
+	 * over it.
+	 *
+	 * @param theGame
+	 *            the game
+	 * @param theStatistics
+	 *            the statistics of every draw in its database
+	 * @throws IOException
+	 *             if the snapshot cannot be written
+	 */
+	public static void write(final Lottery theGame,
+			final RunningStatistics theStatistics) throws IOException {
+		final File text = new File(theGame.dataFile());
+		write(theGame, theStatistics, text.length(), text.lastModified());
+	}
+
+	/**
+	 * Saves the statistics of the given game's whole history, as read from a
+	 * text database of the given state.
+	 *
+	 * @param theGame
+	 *            the game
+	 * @param theStatistics
+	 *            the statistics of every draw in its database
+	 * @param theSourceLength
+	 *            the length of the text database
+	 * @param theSourceModified
+	 *            the modification time of the text database
+	 * @throws IOException
+	 *             if the snapshot cannot be written
+	 */
+	static void write(final Lottery theGame,
+			final RunningStatistics theStatistics, final long theSourceLength,
+			final long theSourceModified) throws IOException {
+		final File temp = new File(snapshotFile(theGame) + TEMP_EXTENSION);
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeByte(theGame.gameId());
+			out.writeByte(0);
+			out.writeLong(theSourceLength);
+			out.writeLong(theSourceModified);
+			theStatistics.writeTo(out);
+		} finally {
+			out.close();
+		}
+		Files.move(temp.toPath(), new File(snapshotFile(theGame)).toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+}
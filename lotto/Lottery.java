@@ -65,6 +65,14 @@ public interface Lottery {
      */
     String updateURL();
 
+    /**
+     * Returns the number the WA Lottery website uses for this game. Used to
+     * tag the archive and statistics snapshot files of this game.
+     * 
+     * @return the game number
+     */
+    int gameId();
+
     /**
      * Returns the number of draws contained in the database. Used for checking
      * user input for the number of draws to count.
@@ -28,6 +28,10 @@ public final class MegaMillions extends AbstractBonusBall implements Lottery {
 	 * The database file for this game. In the current directory.
 	 */
 	public static final String DATA_FILE = "mm.txt";
+	/**
+	 * The number the WA Lottery website uses for this game.
+	 */
+	public static final int GAME_ID = 39;
 	/**
 	 * The web url for updating this game's database.
 	 */
@@ -47,6 +51,12 @@ public final class MegaMillions extends AbstractBonusBall implements Lottery {
 		return UPDATE_URL;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public int gameId() {
+		return GAME_ID;
+	}
+
 	/** {@inheritDoc} */
 	public String toString() {
 		return "Mega Millions";
@@ -26,6 +26,10 @@ public final class PowerBall extends AbstractBonusBall implements Lottery {
 	 * The database file for this game.
 	 */
 	public static final String DATA_FILE = "pb.txt";
+	/**
+	 * The number the WA Lottery website uses for this game.
+	 */
+	public static final int GAME_ID = 44;
 	/**
 	 * The web address used to update this game's database.
 	 */
@@ -45,6 +49,12 @@ public final class PowerBall extends AbstractBonusBall implements Lottery {
 		return UPDATE_URL;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public int gameId() {
+		return GAME_ID;
+	}
+
 	/** {@inheritDoc} */
 	public String toString() {
 		return "PowerBall";
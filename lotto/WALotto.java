@@ -11,6 +11,10 @@ public final class WALotto extends AbstractLottery implements Lottery {
 	 * The web address used to update this game's database.
 	 */
 	public static final String UPDATE_URL = "http://www.walottery.com/WinningNumbers/Search.aspx?game=37&year=";
+	/**
+	 * The number the WA Lottery website uses for this game.
+	 */
+	public static final int GAME_ID = 37;
 	/**
 	 * The upper limit of the number range, inclusive.
 	 */
@@ -43,6 +47,12 @@ public final class WALotto extends AbstractLottery implements Lottery {
 		return UPDATE_URL;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public int gameId() {
+		return GAME_ID;
+	}
+
 	/** {@inheritDoc} */
 	public String toString() {
 		return "WA Lottery";
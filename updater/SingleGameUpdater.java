@@ -1,24 +1,30 @@
 package updater;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.PrintStream;
+import java.io.RandomAccessFile;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Scanner;
-import java.util.Set;
-import java.util.TreeSet;
 
 import lotto.AbstractBonusBall;
 import lotto.Lottery;
-import util.DrawStringComparator;
+import util.DrawDate;
 import analyzer.Draw;
+import analyzer.RunningStatistics;
+import database.DrawFileIndex;
+import database.DrawFileParser;
+import database.DrawRepository;
+import database.StatisticsSnapshot;
 
 // TODO multithread updating the three games all at the same time
 /**
@@ -26,14 +32,24 @@ import analyzer.Draw;
  * year pair defines a specific URL that must be pulled from online and parsed
  * through. This class uses a simple web-scraping approach since I have not
  * found any reliable online database or API for this purpose. This class
- * scrapes all draws from a given year, reads in all the draws it already has,
- * puts them into a Set to eliminate duplicates, and then writes them out to a
- * file in a ordered manner where the most recent draw is first.
+ * scrapes all draws from a given year and merges the ones that are not in the
+ * database yet into it, keeping the file ordered with the most recent draw
+ * first.
  * 
  * @author Robert
  */
 public final class SingleGameUpdater {
 
+	/**
+	 * The line break written after each new draw.
+	 */
+	private static final String NEWLINE = System.getProperty("line.separator");
+
+	/**
+	 * Added to the database file name while the merged file is written.
+	 */
+	private static final String TEMP_EXTENSION = ".tmp";
+
 	/**
 	 * The year to update for.
 	 */
@@ -57,9 +73,6 @@ public final class SingleGameUpdater {
 		myYear = "" + year;
 	}
 
-	// TODO when moving away from reading the DB each time, implement it here
-	// too
-	// TODO Compress Database with Huffman's
 	/**
 	 * Update the database for the given year and game.
 	 * 
@@ -70,36 +83,227 @@ public final class SingleGameUpdater {
 		final BufferedReader in = openConnection(myGame.updateURL() + myYear);
 		final Scanner scan = new Scanner(removeTags(in));
 		final List<Draw> newDraws = getNewDraws(scan);
-		final Set<String> allLines = getAllLines();
-		for (Draw draw : newDraws) {
-			allLines.add(draw.toString().toUpperCase());
+		RunningStatistics statistics = null;
+		try {
+			statistics = StatisticsSnapshot.read(myGame);
+		} catch (final IOException e) {
+			// missing or stale, it is worked out again when next needed
+		}
+		final List<Draw> added = mergeIntoFile(newDraws);
+		if (!added.isEmpty()) {
+			DrawRepository.append(myGame, added);
+			if (statistics != null) {
+				updateSnapshot(statistics, added);
+			}
 		}
-		outputToFile(allLines);
 	}
 
-	private void outputToFile(final Set<String> allLines)
-			throws FileNotFoundException {
-		final Set<String> sorted = new TreeSet<String>(
-				new DrawStringComparator());
-		sorted.addAll(allLines);
-		final PrintStream out = new PrintStream(myGame.dataFile());
-		for (String line : sorted) {
-			out.println(line);
+	/**
+	 * Adds the draws just written to the database to the snapshot of its
+	 * statistics and saves it again. The snapshot only counts draws oldest
+	 * first, so if any new draw is not newer than the snapshot, it is left to
+	 * go stale and is worked out again from the history. The database is
+	 * already updated by now, so if the snapshot cannot be saved the old one
+	 * is deleted rather than failing the update; it is only a copy.
+	 * 
+	 * @param theStatistics
+	 *            the snapshot as it was before the draws were written
+	 * @param theAdded
+	 *            the draws added, most recent first
+	 */
+	private void updateSnapshot(final RunningStatistics theStatistics,
+			final List<Draw> theAdded) {
+		if (theAdded.get(theAdded.size() - 1).epochDay() <= theStatistics
+				.newestDay()) {
+			return;
+		}
+		for (int i = theAdded.size() - 1; i >= 0; i--) {
+			theStatistics.add(theAdded.get(i));
+		}
+		try {
+			StatisticsSnapshot.write(myGame, theStatistics);
+		} catch (final IOException e) {
+			// worked out again from the history when next needed
+			new File(StatisticsSnapshot.snapshotFile(myGame)).delete();
 		}
-		out.close();
 	}
 
-	private Set<String> getAllLines() throws FileNotFoundException {
-		final Set<String> result = new HashSet<String>();
-		final Scanner in = new Scanner(new File(myGame.dataFile()));
-		while (in.hasNextLine()) {
-			String line = in.nextLine();
-			line = line.toUpperCase();
-			line = line.replace(' ', '\t');
-			line = line.replace("\t\t", "\t");
-			result.add(line);
+	/**
+	 * Merges the given draws into the database. Both the database and the
+	 * sorted new draws are ordered most recent first, so the two sequences are
+	 * merged by date and the existing draws are only read down to the oldest
+	 * new draw. Draws whose date is already in the database are dropped. If
+	 * nothing is left to add, the database is not touched at all. Otherwise
+	 * the merged head is written out and the rest of the database is copied
+	 * behind it as raw bytes, and the index is rewritten from the offsets
+	 * already known.
+	 * 
+	 * @param theDraws
+	 *            the draws scraped from online
+	 * @return the draws added to the database, most recent first
+	 * @throws IOException
+	 *             if the database cannot be read or written
+	 */
+	private List<Draw> mergeIntoFile(final List<Draw> theDraws)
+			throws IOException {
+		final Draw[] draws = theDraws.toArray(new Draw[theDraws.size()]);
+		final int[] keys = new int[draws.length];
+		for (int i = 0; i < draws.length; i++) {
+			keys[i] = draws[i].epochDay();
+		}
+		sortMostRecentFirst(draws, keys);
+		final File file = new File(myGame.dataFile());
+		final long[] offsets = DrawFileIndex.readOffsets(myGame);
+		final long[] mergedOffsets = new long[offsets.length + draws.length];
+		final ByteArrayOutputStream head = new ByteArrayOutputStream();
+		final byte[] newLine = NEWLINE.getBytes();
+		final List<Draw> added = new ArrayList<Draw>();
+		int merged = 0;
+		int next = 0;
+		try (final RandomAccessFile existing = new RandomAccessFile(file, "r")) {
+			final DrawFileParser existingKeys = new DrawFileParser(myGame);
+			try {
+				boolean haveExisting = existingKeys.next();
+				for (int i = 0; i < draws.length; i++) {
+					// copy over every existing draw more recent than this one
+					while (haveExisting && existingKeys.epochDay() > keys[i]) {
+						mergedOffsets[merged++] = head.size();
+						copyRecord(existing, offsets, next, head, newLine);
+						next++;
+						haveExisting = existingKeys.next();
+					}
+					final boolean duplicate = (haveExisting && existingKeys
+							.epochDay() == keys[i])
+							|| (i > 0 && keys[i - 1] == keys[i]);
+					if (!duplicate) {
+						mergedOffsets[merged++] = head.size();
+						head.write(draws[i].toString().toUpperCase()
+								.getBytes());
+						head.write(newLine);
+						added.add(draws[i]);
+					}
+				}
+			} finally {
+				existingKeys.close();
+			}
+			if (!added.isEmpty()) {
+				writeMerged(file, existing, head, offsets, next);
+			}
+		}
+		if (!added.isEmpty()) {
+			// the rest of the draws only moved by the size of the new head
+			final long shift = head.size()
+					- (next < offsets.length ? offsets[next] : file.length());
+			for (int j = next; j < offsets.length; j++) {
+				mergedOffsets[merged++] = offsets[j] + shift;
+			}
+			DrawFileIndex.write(myGame, mergedOffsets, merged);
+		}
+		return added;
+	}
+
+	/**
+	 * Writes the merged head followed by the untouched rest of the database
+	 * into a temporary file, then moves it over the database.
+	 * 
+	 * @param theFile
+	 *            the database file
+	 * @param theExisting
+	 *            the open database, closed before it is replaced
+	 * @param theHead
+	 *            the merged head
+	 * @param theOffsets
+	 *            the offsets of the existing draws
+	 * @param theFirstUnread
+	 *            the first existing draw not in the head
+	 * @throws IOException
+	 *             if the database cannot be written
+	 */
+	private static void writeMerged(final File theFile,
+			final RandomAccessFile theExisting,
+			final ByteArrayOutputStream theHead, final long[] theOffsets,
+			final int theFirstUnread) throws IOException {
+		final File temp = new File(theFile.getPath() + TEMP_EXTENSION);
+		final FileOutputStream out = new FileOutputStream(temp);
+		try {
+			theHead.writeTo(out);
+			if (theFirstUnread < theOffsets.length) {
+				final FileChannel source = theExisting.getChannel();
+				final FileChannel target = out.getChannel();
+				long position = theOffsets[theFirstUnread];
+				final long end = source.size();
+				while (position < end) {
+					position += source.transferTo(position, end - position,
+							target);
+				}
+			}
+		} finally {
+			out.close();
+		}
+		theExisting.close();
+		Files.move(temp.toPath(), theFile.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Copies one line of the database into the merged head, ending it with a
+	 * line break if it was the last line and had none.
+	 * 
+	 * @param theExisting
+	 *            the open database
+	 * @param theOffsets
+	 *            the offsets of the existing draws
+	 * @param theIndex
+	 *            the draw to copy
+	 * @param theHead
+	 *            the merged head
+	 * @param theNewLine
+	 *            the line break to add if needed
+	 * @throws IOException
+	 *             if the database cannot be read
+	 */
+	private static void copyRecord(final RandomAccessFile theExisting,
+			final long[] theOffsets, final int theIndex,
+			final ByteArrayOutputStream theHead, final byte[] theNewLine)
+			throws IOException {
+		final long start = theOffsets[theIndex];
+		long end = theExisting.length();
+		if (theIndex + 1 < theOffsets.length) {
+			end = theOffsets[theIndex + 1];
+		}
+		final byte[] record = new byte[(int) (end - start)];
+		theExisting.seek(start);
+		theExisting.readFully(record);
+		theHead.write(record);
+		if (record[record.length - 1] != '\n') {
+			theHead.write(theNewLine);
+		}
+	}
+
+	/**
+	 * Sorts the given draws and their date keys together, most recent first.
+	 * There are at most a year's worth of draws, so an insertion sort on the
+	 * int keys is plenty.
+	 * 
+	 * @param theDraws
+	 *            the draws
+	 * @param theKeys
+	 *            the epoch day of each draw
+	 */
+	private static void sortMostRecentFirst(final Draw[] theDraws,
+			final int[] theKeys) {
+		for (int i = 1; i < theKeys.length; i++) {
+			final int key = theKeys[i];
+			final Draw draw = theDraws[i];
+			int j = i - 1;
+			while (j >= 0 && theKeys[j] < key) {
+				theKeys[j + 1] = theKeys[j];
+				theDraws[j + 1] = theDraws[j];
+				j--;
+			}
+			theKeys[j + 1] = key;
+			theDraws[j + 1] = draw;
 		}
-		return result;
 	}
 
 	/**
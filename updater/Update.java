@@ -5,13 +5,11 @@ import java.awt.GridLayout;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Calendar;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Scanner;
 import java.util.Set;
 
 import javax.swing.JButton;
@@ -21,11 +19,13 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.SwingWorker;
 
-import analyzer.Draw;
+import analyzer.DrawTable;
+import database.DrawRepository;
 import lotto.Lottery;
 import lotto.MegaMillions;
 import lotto.PowerBall;
 import lotto.WALotto;
+import util.DrawDate;
 import view.Menu;
 
 /**
@@ -275,8 +275,8 @@ public final class Update extends SwingWorker<Integer, String> {
 	}
 
 	/**
-	 * Reads in the database file and returns a set of all years in the
-	 * database.
+	 * Returns a set of all years in the database, read from the dates the
+	 * DrawRepository already holds.
 	 * 
 	 * @param game
 	 *            the game to read in the database of
@@ -287,12 +287,16 @@ public final class Update extends SwingWorker<Integer, String> {
 	private Set<Integer> getYearsFromGame(final Lottery game)
 			throws FileNotFoundException {
 		final Set<Integer> result = new HashSet<Integer>();
-		final Scanner in = new Scanner(new File(game.dataFile()));
-		while (in.hasNextLine()) {
-			final String[] split = in.nextLine().split(Draw.DELIMITER);
-			result.add(Integer.parseInt(split[2]));
+		final DrawTable table = DrawRepository.getTable(game);
+		int lastYear = 0;
+		for (int row = 0; row < table.size(); row++) {
+			final int year = DrawDate.year(table.epochDay(row));
+			// the draws are in date order, so each year is one run of rows
+			if (year != lastYear) {
+				result.add(year);
+				lastYear = year;
+			}
 		}
-		in.close();
 		return result;
 	}
 }
@@ -0,0 +1,119 @@
+package util;
+
+import java.time.LocalDate;
+
+/**
+ * This is a module class for working with the dates of draws. Dates in the
+ * database files are written as a three letter month, a two digit day and a
+ * four digit year. Everywhere else a date can be held as a single int counting
+ * days since January 1st, 1970, the epoch day of java.time, which is cheap to
+ * store and to compare.
+ *
+ * @author Robert
+ */
+public final class DrawDate {
+
+	/**
+	 * The month abbreviations used in the database files, in calendar order.
+	 */
+	private static final String[] MONTHS = { "JAN", "FEB", "MAR", "APR",
+			"MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC" };
+
+	/**
+	 * Private constructor to prevent making a DrawDate object.
+	 */
+	private DrawDate() {
+
+	}
+
+	/**
+	 * Returns the number of the given month abbreviation, January being 1.
+	 *
+	 * @param month
+	 *            a three letter month, as found in the database files
+	 * @return the month number in [1, 12]
+	 */
+	public static int monthOf(final String month) {
+		for (int i = 0; i < MONTHS.length; i++) {
+			if (MONTHS[i].equalsIgnoreCase(month)) {
+				return i + 1;
+			}
+		}
+		throw new IllegalStateException("Invalid Month: " + month);
+	}
+
+	/**
+	 * Parses a date written as month, day and year separated by spaces or
+	 * tabs, the way Draw objects hold them, into an epoch day.
+	 *
+	 * @param date
+	 *            the date to parse
+	 * @return the epoch day of the date
+	 */
+	public static int parse(final String date) {
+		final String[] split = date.trim().split("\\s+");
+		return toEpochDay(Integer.parseInt(split[2]), monthOf(split[0]),
+				Integer.parseInt(split[1]));
+	}
+
+	/**
+	 * Returns the three letter abbreviation of the given month number.
+	 *
+	 * @param month
+	 *            the month number in [1, 12]
+	 * @return the abbreviation used in the database files
+	 */
+	public static String monthName(final int month) {
+		return MONTHS[month - 1];
+	}
+
+	/**
+	 * Converts a calendar date into a count of days since 1970-01-01.
+	 *
+	 * @param year
+	 *            the year
+	 * @param month
+	 *            the month in [1, 12]
+	 * @param day
+	 *            the day of the month
+	 * @return the epoch day of the date
+	 */
+	public static int toEpochDay(final int year, final int month, final int day) {
+		return (int) LocalDate.of(year, month, day).toEpochDay();
+	}
+
+	/**
+	 * Returns the year of the given epoch day.
+	 *
+	 * @param epochDay
+	 *            days since 1970-01-01
+	 * @return the calendar year
+	 */
+	public static int year(final int epochDay) {
+		return LocalDate.ofEpochDay(epochDay).getYear();
+	}
+
+	/**
+	 * Formats the given epoch day the way dates are written in the database
+	 * files, with the given separator between month, day and year.
+	 *
+	 * @param epochDay
+	 *            days since 1970-01-01
+	 * @param separator
+	 *            the separator between fields
+	 * @return the formatted date
+	 */
+	public static String format(final int epochDay, final char separator) {
+		final LocalDate date = LocalDate.ofEpochDay(epochDay);
+		final StringBuilder builder = new StringBuilder(11);
+		builder.append(monthName(date.getMonthValue()));
+		builder.append(separator);
+		if (date.getDayOfMonth() < 10) {
+			builder.append('0');
+		}
+		builder.append(date.getDayOfMonth());
+		builder.append(separator);
+		builder.append(date.getYear());
+		return builder.toString();
+	}
+}
@@ -88,6 +88,8 @@ public final class Menu extends JMenuBar {
 	private JMenu createFileMenu(final JFrame frame, final Settings settings) {
 		final JMenu fileMenu = new JMenu("File");
 		final JMenuItem saveAs = new JMenuItem("Save As");
+		final JMenuItem saveSweep = new JMenuItem("Save Sweep Report");
+		myButtonsToDisable.add(saveSweep);
 		final JMenuItem updateButton = new JMenuItem("Update");
 		myButtonsToDisable.add(updateButton);
 		final JMenuItem exit = new JMenuItem("Exit");
@@ -116,6 +118,24 @@ public final class Menu extends JMenuBar {
 				}
 			}
 		});
+		// save sweep report behavior
+		saveSweep.setToolTipText("Backtests a grid of settings for the selected"
+				+ " game and saves them ranked as a .txt file");
+		saveSweep.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent ev) {
+				if (JFileChooser.APPROVE_OPTION == SAVE_AS
+						.showSaveDialog(frame)) {
+					// correct file name from user input
+					final String filename = removeFileExtension(SAVE_AS
+							.getSelectedFile().getAbsolutePath()) + ".txt";
+					// the sweep takes a while, so run it in the background
+					// on a copy of the settings as they are now
+					setButtonsEnabled(false);
+					new SweepWorker(frame, settings.copy(), filename)
+							.execute();
+				}
+			}
+		});
 		// update button behavior
 		updateButton.addActionListener(new ActionListener() {
 			public void actionPerformed(final ActionEvent theEvent) {
@@ -135,6 +155,7 @@ public final class Menu extends JMenuBar {
 		});
 		// add components to the menu
 		fileMenu.add(saveAs);
+		fileMenu.add(saveSweep);
 		fileMenu.add(updateButton);
 		fileMenu.add(exit);
 		return fileMenu;
@@ -191,6 +212,47 @@ public final class Menu extends JMenuBar {
 		myButtonsToDisable.add(rawData);
 		rawData.setSelected((Boolean) settings.get(Settings.RAW_DATA));
 
+		// report the significance of hot and cold picks
+		final JCheckBoxMenuItem significance = new JCheckBoxMenuItem(
+				Settings.SIGNIFICANCE);
+		significance.setToolTipText("Show the chance of each hot or cold"
+				+ " number being that hot or cold by luck alone");
+		significance.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent theEvent) {
+				settings.put(Settings.SIGNIFICANCE, significance.isSelected());
+			}
+		});
+		myButtonsToDisable.add(significance);
+		significance.setSelected((Boolean) settings
+				.get(Settings.SIGNIFICANCE));
+
+		// report how the algorithms did on past draws
+		final JCheckBoxMenuItem backtest = new JCheckBoxMenuItem(
+				Settings.BACKTEST);
+		backtest.setToolTipText("Show how the selected algorithms would have"
+				+ " done on every past draw");
+		backtest.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent theEvent) {
+				settings.put(Settings.BACKTEST, backtest.isSelected());
+			}
+		});
+		myButtonsToDisable.add(backtest);
+		backtest.setSelected((Boolean) settings.get(Settings.BACKTEST));
+
+		// pick the pairs algorithms' numbers from triples
+		final JCheckBoxMenuItem triples = new JCheckBoxMenuItem(
+				Settings.PAIRS_FROM_TRIPLES);
+		triples.setToolTipText("Hot and Cold Pairs pick from the numbers"
+				+ " drawn together three at a time");
+		triples.addActionListener(new ActionListener() {
+			public void actionPerformed(final ActionEvent theEvent) {
+				settings.put(Settings.PAIRS_FROM_TRIPLES, triples.isSelected());
+			}
+		});
+		myButtonsToDisable.add(triples);
+		triples.setSelected((Boolean) settings
+				.get(Settings.PAIRS_FROM_TRIPLES));
+
 		// payout amount selection
 		final JMenuItem paidOver = new JMenuItem(
 				"Use Only Numbers That Paid Above...");
@@ -219,8 +281,7 @@ public final class Menu extends JMenuBar {
 				.setToolTipText("Your lucky numbers to include in each calculation");
 		customNums.addActionListener(new ActionListener() {
 			public void actionPerformed(final ActionEvent e) {
-				final Set<Integer> previousNums = (Set<Integer>) settings
-						.get(Settings.CUSTOM_NUMBERS);
+				final Set<Integer> previousNums = settings.customNumbers();
 				final StringBuilder previousInput = new StringBuilder();
 				for (int n : previousNums) {
 					previousInput.append(n);
@@ -242,6 +303,9 @@ public final class Menu extends JMenuBar {
 		editMenu.add(jackpotOnly);
 		editMenu.add(wheelOut);
 		editMenu.add(rawData);
+		editMenu.add(significance);
+		editMenu.add(backtest);
+		editMenu.add(triples);
 		editMenu.add(paidOver);
 		editMenu.add(customNums);
 		return editMenu;
@@ -226,7 +226,7 @@ public final class SettingsPanel extends JPanel {
 	 * @return a panel to select which algorithms should be analyzed
 	 */
 	private static JPanel createAlgorithmsPanel(final Settings settings) {
-		final JPanel algorithms = new JPanel(new GridLayout(4, 1));
+		final JPanel algorithms = new JPanel(new GridLayout(10, 1));
 		algorithms.add(new JLabel("Algorithms", JLabel.CENTER));
 
 		// hot numbers
@@ -249,10 +249,128 @@ public final class SettingsPanel extends JPanel {
 						+ " number of drawings. This goes back that far and returns"
 						+ " those numbers.");
 		algorithms.add(perdButton);
+		algorithms.add(createLookBackPanel(settings));
+
+		// decayed numbers
+		final JCheckBox decayedButton = createAlgorithmsBox(settings,
+				Settings.DECAYED_SELECTED);
+		decayedButton
+				.setToolTipText("Numbers that are frequently drawn, where recent"
+						+ " draws count for more than old ones.");
+		algorithms.add(decayedButton);
+		algorithms.add(createHalfLifePanel(settings));
+
+		// overdue numbers
+		final JCheckBox overdueButton = createAlgorithmsBox(settings,
+				Settings.OVERDUE_SELECTED);
+		overdueButton.setToolTipText("Numbers that have gone the most times"
+				+ " their usual gap without being drawn.");
+		algorithms.add(overdueButton);
+
+		// hot pairs
+		final JCheckBox hotPairsButton = createAlgorithmsBox(settings,
+				Settings.HOT_PAIRS_SELECTED);
+		hotPairsButton.setToolTipText("Numbers of the pairs that are most"
+				+ " often drawn together.");
+		algorithms.add(hotPairsButton);
+
+		// cold pairs
+		final JCheckBox coldPairsButton = createAlgorithmsBox(settings,
+				Settings.COLD_PAIRS_SELECTED);
+		coldPairsButton.setToolTipText("Numbers of the pairs that are least"
+				+ " often drawn together.");
+		algorithms.add(coldPairsButton);
 
 		return algorithms;
 	}
 
+	/**
+	 * This method creates the panel where the user can choose how many draws
+	 * back Periodic Numbers looks, where 0 keeps the range divided by the
+	 * number of balls. The number is checked every time the focus leaves the
+	 * input text field.
+	 * 
+	 * @param settings
+	 *            the global settings
+	 * @return a panel to choose the look back
+	 */
+	private static JPanel createLookBackPanel(final Settings settings) {
+		final JPanel subPanel = new JPanel();
+		final int startValue = (Integer) settings
+				.get(Settings.PERIODIC_LOOK_BACK);
+		final JTextField inputField = new JTextField("" + startValue, 3);
+		inputField.setToolTipText("How many draws back Periodic Numbers"
+				+ " looks, 0 for the range over the number of balls");
+		inputField.addFocusListener(new FocusListener() {
+			@Override
+			public void focusGained(final FocusEvent e) {
+				// do nothing
+			}
+
+			@Override
+			public void focusLost(final FocusEvent e) {
+				try {
+					final int input = Integer.parseInt(inputField.getText());
+					if (input < 0) {
+						throw new NumberFormatException();
+					}
+					inputField.setText("" + input);
+					settings.put(Settings.PERIODIC_LOOK_BACK, input);
+				} catch (final NumberFormatException ex) {
+					JOptionPane.showMessageDialog(null, "Bad Input", "Error",
+							JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		});
+		subPanel.add(new JLabel("Look back"));
+		subPanel.add(inputField);
+		subPanel.add(new JLabel("draws"));
+		return subPanel;
+	}
+
+	/**
+	 * This method creates the panel where the user can choose the half life
+	 * of Decayed Numbers, the number of draws after which a draw counts half
+	 * as much. Like the number of draws to count, the number is checked every
+	 * time the focus leaves the input text field.
+	 * 
+	 * @param settings
+	 *            the global settings
+	 * @return a panel to choose the half life
+	 */
+	private static JPanel createHalfLifePanel(final Settings settings) {
+		final JPanel subPanel = new JPanel();
+		final int startValue = (Integer) settings.get(Settings.HALF_LIFE);
+		final JTextField inputField = new JTextField("" + startValue, 3);
+		inputField.setToolTipText("The number of draws after which a draw"
+				+ " counts half as much towards Decayed Numbers");
+		inputField.addFocusListener(new FocusListener() {
+			@Override
+			public void focusGained(final FocusEvent e) {
+				// do nothing
+			}
+
+			@Override
+			public void focusLost(final FocusEvent e) {
+				try {
+					final int input = Integer.parseInt(inputField.getText());
+					if (input < 1) {
+						throw new NumberFormatException();
+					}
+					inputField.setText("" + input);
+					settings.put(Settings.HALF_LIFE, input);
+				} catch (final NumberFormatException ex) {
+					JOptionPane.showMessageDialog(null, "Bad Input", "Error",
+							JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		});
+		subPanel.add(new JLabel("Half life"));
+		subPanel.add(inputField);
+		subPanel.add(new JLabel("draws"));
+		return subPanel;
+	}
+
 	/**
 	 * A helper method to create a single checkbox for a given algorithm, that
 	 * displays the given text. This text must be the key for the settings
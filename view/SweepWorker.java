@@ -0,0 +1,111 @@
+package view;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.JFrame;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+
+import controller.Settings;
+import controller.Sweep;
+
+/**
+ * This class is a SwingWorker that runs a sweep in the background and saves
+ * its report. The report file is only opened once the sweep is done, so a
+ * sweep that fails leaves no empty file behind. The menu buttons are disabled
+ * while it runs.
+ *
+ * @author Robert
+ */
+final class SweepWorker extends SwingWorker<Sweep, Void> {
+
+	/**
+	 * A reference to the GUI.
+	 */
+	private final JFrame myFrame;
+
+	/**
+	 * The settings the sweep is laid over.
+	 */
+	private final Settings mySettings;
+
+	/**
+	 * The file the report is saved to.
+	 */
+	private final String myFilename;
+
+	/**
+	 * Creates a worker to sweep the given settings.
+	 *
+	 * @param theFrame
+	 *            a reference to the GUI
+	 * @param theSettings
+	 *            the settings the sweep is laid over, which must not change
+	 *            while it runs
+	 * @param theFilename
+	 *            the file the report is saved to
+	 */
+	SweepWorker(final JFrame theFrame, final Settings theSettings,
+			final String theFilename) {
+		myFrame = theFrame;
+		mySettings = theSettings;
+		myFilename = theFilename;
+	}
+
+	/**
+	 * Backtests every point of the grid.
+	 *
+	 * @return the points, ranked
+	 * @throws FileNotFoundException
+	 *             if a database file cannot be opened
+	 */
+	@Override
+	protected Sweep doInBackground() throws FileNotFoundException {
+		return Sweep.run(mySettings);
+	}
+
+	/**
+	 * When the sweep is done, save the report, or tell the user why it could
+	 * not be made, and reenable the menu buttons.
+	 */
+	@Override
+	protected void done() {
+		try {
+			final Sweep sweep = get();
+			try {
+				final PrintStream out = new PrintStream(myFilename);
+				try {
+					out.println(sweep);
+				} finally {
+					out.close();
+				}
+			} catch (final FileNotFoundException e) {
+				showError("File could not be written!");
+			}
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof FileNotFoundException) {
+				showError("Database File Not Found!");
+			} else {
+				showError("The sweep could not be run!");
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			final Menu menu = (Menu) myFrame.getJMenuBar();
+			menu.setButtonsEnabled(true);
+		}
+	}
+
+	/**
+	 * Shows the user an error message.
+	 *
+	 * @param theMessage
+	 *            the message
+	 */
+	private void showError(final String theMessage) {
+		JOptionPane.showMessageDialog(myFrame, theMessage, "Error",
+				JOptionPane.ERROR_MESSAGE);
+	}
+}